@@ -0,0 +1,25 @@
+package com.example.orderproduction.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Ponto de entrada do benchmarks.jar: repassa os argumentos ao JMH e, quando nenhum formato de resultado é
+// informado, grava o resultado em JSON (jmh-result.json) para comparação entre execuções.
+public class BenchmarkRunner {
+
+    static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.addAll(Arrays.asList("-rf", "json"));
+            if (!options.contains("-rff")) {
+                options.addAll(Arrays.asList("-rff", DEFAULT_RESULT_FILE));
+            }
+        }
+        Main.main(options.toArray(new String[0]));
+    }
+}
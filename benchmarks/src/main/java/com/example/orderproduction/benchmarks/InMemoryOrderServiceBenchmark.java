@@ -0,0 +1,98 @@
+package com.example.orderproduction.benchmarks;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.config.OrderProductionProperties.RepositoryType;
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderStatus;
+import com.example.orderproduction.service.InMemoryOrderRepository;
+import com.example.orderproduction.service.OrderNearCache;
+import com.example.orderproduction.service.OrderService;
+import com.example.orderproduction.service.ProductionAnalytics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Os mesmos caminhos de OrderServiceBenchmark com os pedidos em memória (order-production.repository=memory), sem
+// Redis: mede o custo de OrderService e do repositório em si, sem a ida à rede.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class InMemoryOrderServiceBenchmark {
+
+    private static final int READY_ORDERS = 200;
+    private static final int PROCESS_BASE_ID = 1_000_000;
+    private static final int UPDATE_BASE_ID = 2_000_000;
+    private static final int UPDATE_REFILL_BATCH = 1_000;
+    private static final OrderStatus[] UPDATE_STEPS = {OrderStatus.IN_PREPARATION, OrderStatus.READY, OrderStatus.FINISHED};
+
+    private OrderService orderService;
+    private int processed;
+    private int reads;
+    private int updates;
+    private int refilledUpTo;
+
+    // Repositório novo a cada iteração: o outbox em memória só é esvaziado pelo publicador, que não roda aqui
+    @Setup(Level.Iteration)
+    public void setUp() {
+        OrderProductionProperties properties = new OrderProductionProperties();
+        properties.setRepository(RepositoryType.MEMORY);
+        processed = 0;
+        updates = 0;
+        refilledUpTo = UPDATE_BASE_ID;
+        orderService = new OrderService(new InMemoryOrderRepository(event -> { }), properties,
+                new OrderNearCache(properties, new SimpleMeterRegistry()),
+                new ProductionAnalytics(properties, new SimpleMeterRegistry()), new SimpleMeterRegistry());
+
+        List<Order> ready = new ArrayList<>(READY_ORDERS);
+        for (int orderId = 1; orderId <= READY_ORDERS; orderId++) {
+            ready.add(SampleOrders.withItems(orderId, OrderStatus.READY));
+        }
+        orderService.processOrders(ready);
+    }
+
+    @Benchmark
+    public Order processOrder() {
+        Order order = SampleOrders.withItems(PROCESS_BASE_ID + processed++, null);
+        orderService.processOrder(order);
+        return order;
+    }
+
+    @Benchmark
+    public Order updateOrderStatus() {
+        int orderId = UPDATE_BASE_ID + updates / UPDATE_STEPS.length;
+        OrderStatus status = UPDATE_STEPS[updates % UPDATE_STEPS.length];
+        if (orderId >= refilledUpTo) {
+            refillReceivedOrders();
+        }
+        updates++;
+        return orderService.updateOrderStatus(orderId, status);
+    }
+
+    @Benchmark
+    public Order getOrder() {
+        return orderService.getOrder(reads++ % READY_ORDERS + 1);
+    }
+
+    @Benchmark
+    public List<Order> getOrdersByStatus() {
+        List<Order> orders = new ArrayList<>(READY_ORDERS);
+        orderService.getOrdersByStatus(OrderStatus.READY, READY_ORDERS, null).getOrders().forEachRemaining(orders::add);
+        return orders;
+    }
+
+    private void refillReceivedOrders() {
+        List<Order> received = new ArrayList<>(UPDATE_REFILL_BATCH);
+        for (int i = 0; i < UPDATE_REFILL_BATCH; i++) {
+            received.add(SampleOrders.withItems(refilledUpTo + i, OrderStatus.RECEIVED));
+        }
+        orderService.processOrders(received);
+        refilledUpTo += UPDATE_REFILL_BATCH;
+    }
+}
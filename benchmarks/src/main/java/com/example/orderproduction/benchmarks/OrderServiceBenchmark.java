@@ -0,0 +1,143 @@
+package com.example.orderproduction.benchmarks;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.config.OrderProductionProperties.StorageLayout;
+import com.example.orderproduction.config.OrderProductionProperties.ValueSerializer;
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderStatus;
+import com.example.orderproduction.service.OrderNearCache;
+import com.example.orderproduction.service.OrderService;
+import com.example.orderproduction.service.ProductionAnalytics;
+import com.example.orderproduction.service.RedisOrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Caminhos críticos de OrderService contra um Redis real, para cada combinação de serializer e layout.
+// Os contadores de pedidos não são compartilhados entre threads: os benchmarks rodam com uma thread.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class OrderServiceBenchmark {
+
+    private static final int READY_ORDERS = 200;
+    private static final int PROCESS_BASE_ID = 1_000_000;
+    private static final int UPDATE_BASE_ID = 2_000_000;
+    private static final int UPDATE_REFILL_BATCH = 1_000;
+    private static final OrderStatus[] UPDATE_STEPS = {OrderStatus.IN_PREPARATION, OrderStatus.READY, OrderStatus.FINISHED};
+
+    @Param({"BINARY", "JSON"})
+    public ValueSerializer serializer;
+
+    @Param({"STRING", "HASH"})
+    public StorageLayout layout;
+
+    private RedisFixture redis;
+    private RedisTemplate<String, Object> redisTemplate;
+    private OrderService orderService;
+    private OrderService cachedOrderService;
+    private int processed;
+    private int reads;
+    private int updates;
+    private int refilledUpTo = UPDATE_BASE_ID;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        redis = new RedisFixture();
+        OrderProductionProperties properties = properties(false);
+        redisTemplate = redis.redisTemplate(properties);
+        // Sem near-cache para medir a ida ao Redis; a variante com cache é medida em getOrderNearCache
+        orderService = new OrderService(new RedisOrderRepository(redisTemplate, redisTemplate, properties), properties,
+                new OrderNearCache(properties, new SimpleMeterRegistry()),
+                new ProductionAnalytics(properties, new SimpleMeterRegistry()), new SimpleMeterRegistry());
+        OrderProductionProperties cachedProperties = properties(true);
+        cachedOrderService = new OrderService(new RedisOrderRepository(redisTemplate, redisTemplate, cachedProperties),
+                cachedProperties, new OrderNearCache(cachedProperties, new SimpleMeterRegistry()),
+                new ProductionAnalytics(cachedProperties, new SimpleMeterRegistry()), new SimpleMeterRegistry());
+
+        List<Order> ready = new ArrayList<>(READY_ORDERS);
+        for (int orderId = 1; orderId <= READY_ORDERS; orderId++) {
+            ready.add(SampleOrders.withItems(orderId, OrderStatus.READY));
+        }
+        orderService.processOrders(ready);
+    }
+
+    // O stream do outbox só é consumido pelo publicador, que não roda aqui
+    @TearDown(Level.Iteration)
+    public void trimOutbox() {
+        redisTemplate.delete("order:outbox");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        redis.close();
+    }
+
+    @Benchmark
+    public Order processOrder() {
+        Order order = SampleOrders.withItems(PROCESS_BASE_ID + processed++, null);
+        orderService.processOrder(order);
+        return order;
+    }
+
+    // Cada pedido percorre RECEIVED -> IN_PREPARATION -> READY -> FINISHED; os pedidos RECEIVED são criados em
+    // lotes de UPDATE_REFILL_BATCH, o que dilui o custo da criação em uma a cada 3000 chamadas
+    @Benchmark
+    public Order updateOrderStatus() {
+        int orderId = UPDATE_BASE_ID + updates / UPDATE_STEPS.length;
+        OrderStatus status = UPDATE_STEPS[updates % UPDATE_STEPS.length];
+        if (orderId >= refilledUpTo) {
+            refillReceivedOrders();
+        }
+        updates++;
+        return orderService.updateOrderStatus(orderId, status);
+    }
+
+    @Benchmark
+    public Order getOrder() {
+        return orderService.getOrder(nextReadId());
+    }
+
+    @Benchmark
+    public Order getOrderNearCache() {
+        return cachedOrderService.getOrder(nextReadId());
+    }
+
+    // Uma página com todos os pedidos READY, lida até o fim como ao escrever a resposta
+    @Benchmark
+    public List<Order> getOrdersByStatus() {
+        List<Order> orders = new ArrayList<>(READY_ORDERS);
+        orderService.getOrdersByStatus(OrderStatus.READY, READY_ORDERS, null).getOrders().forEachRemaining(orders::add);
+        return orders;
+    }
+
+    private int nextReadId() {
+        return reads++ % READY_ORDERS + 1;
+    }
+
+    private void refillReceivedOrders() {
+        List<Order> received = new ArrayList<>(UPDATE_REFILL_BATCH);
+        for (int i = 0; i < UPDATE_REFILL_BATCH; i++) {
+            received.add(SampleOrders.withItems(refilledUpTo + i, OrderStatus.RECEIVED));
+        }
+        orderService.processOrders(received);
+        refilledUpTo += UPDATE_REFILL_BATCH;
+    }
+
+    private OrderProductionProperties properties(boolean nearCache) {
+        OrderProductionProperties properties = new OrderProductionProperties();
+        properties.getRedis().setSerializer(serializer);
+        properties.getRedis().setLayout(layout);
+        properties.getNearCache().setEnabled(nearCache);
+        return properties;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.orderproduction.benchmarks;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.service.UpdatedOrderOutboxPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.redis.connection.stream.StringRecord;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Publicação do outbox de pedidos atualizados com um RabbitTemplate que confirma cada envio na hora:
+// mede a leitura do stream, o XACK e o XDEL, sem a latência do broker
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+public class OutboxPublisherBenchmark {
+
+    private static final String OUTBOX_KEY = "order:outbox";
+
+    @Param({"100"})
+    public int events;
+
+    private RedisFixture redis;
+    private StringRedisTemplate stringRedisTemplate;
+    private UpdatedOrderOutboxPublisher publisher;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        redis = new RedisFixture();
+        stringRedisTemplate = new StringRedisTemplate(redis.connectionFactory());
+        OrderProductionProperties properties = new OrderProductionProperties();
+        properties.getOutbox().setBatchSize(events);
+        publisher = new UpdatedOrderOutboxPublisher(stringRedisTemplate, new ConfirmingRabbitTemplate(), properties,
+                Optional.empty(), new SimpleMeterRegistry());
+    }
+
+    // Cada chamada encontra o lote de eventos recém-gravado pelo script de atualização de status
+    @Setup(Level.Invocation)
+    public void fillOutbox() {
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                for (int i = 0; i < events; i++) {
+                    Map<String, String> fields = new HashMap<>();
+                    fields.put("orderId", String.valueOf(i));
+                    fields.put("orderStatus", "READY");
+                    operations.opsForStream().add(StringRecord.of(fields).withStreamKey(OUTBOX_KEY));
+                }
+                return null;
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        redis.close();
+    }
+
+    @Benchmark
+    public void publishPending() {
+        publisher.publishPending();
+    }
+
+    private static final class ConfirmingRabbitTemplate extends RabbitTemplate {
+
+        @Override
+        public void convertAndSend(String exchange, String routingKey, Object message, CorrelationData correlationData) {
+            correlationData.getFuture().set(new CorrelationData.Confirm(true, null));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.orderproduction.benchmarks;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.config.RedisConfig;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+// Redis usado pelos benchmarks: um redis-server embarcado em porta livre ou, com -Dbenchmark.redis.port,
+// uma instância externa (o banco é limpo no início de cada trial).
+final class RedisFixture {
+
+    private final RedisServer server;
+    private final LettuceConnectionFactory connectionFactory;
+
+    RedisFixture() throws IOException {
+        String host = System.getProperty("benchmark.redis.host", "localhost");
+        String externalPort = System.getProperty("benchmark.redis.port");
+        int port;
+        if (externalPort != null) {
+            port = Integer.parseInt(externalPort);
+            server = null;
+        } else {
+            port = freePort();
+            server = new RedisServer(port);
+            server.start();
+        }
+        connectionFactory = new LettuceConnectionFactory(host, port);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.getConnection().serverCommands().flushDb();
+    }
+
+    LettuceConnectionFactory connectionFactory() {
+        return connectionFactory;
+    }
+
+    RedisTemplate<String, Object> redisTemplate(OrderProductionProperties properties) {
+        return new RedisConfig().redisTemplate(connectionFactory, properties);
+    }
+
+    void close() throws IOException {
+        connectionFactory.destroy();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
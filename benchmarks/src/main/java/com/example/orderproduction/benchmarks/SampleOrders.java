@@ -0,0 +1,41 @@
+package com.example.orderproduction.benchmarks;
+
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderStatus;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Pedidos usados nos benchmarks, no formato que chega pela fila de pedidos confirmados
+final class SampleOrders {
+
+    private SampleOrders() {
+    }
+
+    // details com 3 itens, cliente e observação, desserializado como LinkedHashMap pelo conversor do RabbitMQ
+    static Order withItems(int orderId, OrderStatus status) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        items.add(item("Sanduíche de Soja", 1, 24.9));
+        items.add(item("Batata Rústica", 2, 12.5));
+        items.add(item("Suco de Limão com Abacaxi", 1, 9.0));
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("customer", "Maria da Silva");
+        details.put("items", items);
+        details.put("notes", "sem cebola");
+        return new Order(orderId, status, details);
+    }
+
+    static Order withText(int orderId, OrderStatus status) {
+        return new Order(orderId, status, "{Lanche: Sanduiche de Soja, Bebida : Suco de Limão com Abacaxi}");
+    }
+
+    private static Map<String, Object> item(String name, int quantity, double price) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("name", name);
+        item.put("quantity", quantity);
+        item.put("price", price);
+        return item;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.orderproduction.benchmarks;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.config.OrderProductionProperties.ValueSerializer;
+import com.example.orderproduction.config.RedisConfig;
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderStatus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+// Custo isolado do serializer de valores configurado em RedisConfig, sem ida ao Redis
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    public enum Details {
+        ITEMS,
+        TEXT
+    }
+
+    @Param({"BINARY", "JSON"})
+    public ValueSerializer serializer;
+
+    @Param({"ITEMS", "TEXT"})
+    public Details details;
+
+    private RedisSerializer<Object> valueSerializer;
+    private Order order;
+    private byte[] serialized;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        OrderProductionProperties properties = new OrderProductionProperties();
+        properties.getRedis().setSerializer(serializer);
+        // O template só é montado para obter o serializer; nenhuma conexão é aberta
+        valueSerializer = (RedisSerializer<Object>) new RedisConfig()
+                .redisTemplate(new LettuceConnectionFactory(), properties)
+                .getValueSerializer();
+        order = details == Details.ITEMS
+                ? SampleOrders.withItems(123, OrderStatus.RECEIVED)
+                : SampleOrders.withText(123, OrderStatus.RECEIVED);
+        serialized = valueSerializer.serialize(order);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return valueSerializer.serialize(order);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return valueSerializer.deserialize(serialized);
+    }
+}
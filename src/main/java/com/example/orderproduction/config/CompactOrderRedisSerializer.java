@@ -0,0 +1,125 @@
+package com.example.orderproduction.config;
+
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderStatus;
+import com.example.orderproduction.model.RawJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Formato binário compacto para Order no Redis:
+// [marcador 0xC0][versão][ordinal do status][orderId int32][tipo do details][bytes do details]
+// O details em JSON é gravado com os bytes recebidos e lido como um RawJson sobre o próprio valor, sem parse.
+// Um RawJson isolado (campo details do layout em hash) é gravado como [marcador 0xC1][bytes do JSON].
+// Outros valores, e pedidos gravados antes do formato binário, passam pelo serializer JSON de fallback.
+// O ordinal do status é gravado no Redis: novos status devem ser sempre adicionados ao final de OrderStatus.
+public class CompactOrderRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte FORMAT_MARKER = (byte) 0xC0;
+    static final byte RAW_JSON_MARKER = (byte) 0xC1;
+    static final byte VERSION = 1;
+    static final int STATUS_OFFSET = 2;
+    private static final int HEADER_LENGTH = 8;
+    private static final byte NO_STATUS = (byte) 0xFF;
+    private static final byte DETAILS_NULL = 0;
+    private static final byte DETAILS_TEXT = 1;
+    private static final byte DETAILS_JSON = 2;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private final RedisSerializer<Object> fallback;
+    private final ObjectMapper detailsMapper;
+
+    public CompactOrderRedisSerializer(RedisSerializer<Object> fallback, ObjectMapper detailsMapper) {
+        this.fallback = fallback;
+        this.detailsMapper = detailsMapper;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value instanceof RawJson) {
+            RawJson json = (RawJson) value;
+            ByteBuffer buffer = ByteBuffer.allocate(1 + json.length()).put(RAW_JSON_MARKER);
+            json.writeTo(buffer);
+            return buffer.array();
+        }
+        if (!(value instanceof Order)) {
+            return fallback.serialize(value);
+        }
+        Order order = (Order) value;
+        if (order.getDetails() instanceof RawJson) {
+            RawJson details = (RawJson) order.getDetails();
+            ByteBuffer buffer = header(order, DETAILS_JSON, details.length());
+            details.writeTo(buffer);
+            return buffer.array();
+        }
+        byte detailsType;
+        byte[] details;
+        if (order.getDetails() == null) {
+            detailsType = DETAILS_NULL;
+            details = new byte[0];
+        } else if (order.getDetails() instanceof String) {
+            detailsType = DETAILS_TEXT;
+            details = ((String) order.getDetails()).getBytes(StandardCharsets.UTF_8);
+        } else {
+            detailsType = DETAILS_JSON;
+            try {
+                details = detailsMapper.writeValueAsBytes(order.getDetails());
+            } catch (IOException e) {
+                throw new SerializationException("Não foi possível serializar os detalhes do pedido " + order.getOrderId(), e);
+            }
+        }
+
+        return header(order, detailsType, details.length).put(details).array();
+    }
+
+    private static ByteBuffer header(Order order, byte detailsType, int detailsLength) {
+        return ByteBuffer.allocate(HEADER_LENGTH + detailsLength)
+                .put(FORMAT_MARKER)
+                .put(VERSION)
+                .put(order.getStatus() == null ? NO_STATUS : (byte) order.getStatus().ordinal())
+                .putInt(order.getOrderId())
+                .put(detailsType);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == RAW_JSON_MARKER) {
+            return new RawJson(bytes, 1, bytes.length - 1);
+        }
+        if (bytes[0] != FORMAT_MARKER) {
+            return fallback.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH || bytes[1] != VERSION) {
+            throw new SerializationException("Formato binário de pedido não suportado, versão " + bytes[1]);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, STATUS_OFFSET, bytes.length - STATUS_OFFSET);
+        int statusOrdinal = buffer.get() & 0xFF;
+        int orderId = buffer.getInt();
+        byte detailsType = buffer.get();
+
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setStatus(statusOrdinal < STATUSES.length ? STATUSES[statusOrdinal] : null);
+        switch (detailsType) {
+            case DETAILS_NULL:
+                break;
+            case DETAILS_TEXT:
+                order.setDetails(new String(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH, StandardCharsets.UTF_8));
+                break;
+            case DETAILS_JSON:
+                order.setDetails(new RawJson(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH));
+                break;
+            default:
+                throw new SerializationException("Tipo de detalhes desconhecido no pedido " + orderId + ": " + detailsType);
+        }
+        return order;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.orderproduction.config;
+
+import com.example.orderproduction.model.Order;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.BatchMessageListener;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.core.ParameterizedTypeReference;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Com pedidos particionados, consome a confirmed.order.queue: os pedidos que ficaram nela na troca para partições e
+// os que chegam sem o cabeçalho orderId, desviados pela alternate-exchange da exchange das partições. Cada mensagem
+// é republicada na exchange das partições com o cabeçalho preenchido a partir do orderId do corpo; as que não
+// convertem em pedido vão para a DLQ. O lote só é confirmado depois do confirm do broker para todas as mensagens.
+public class ConfirmedOrderPartitionRouter implements BatchMessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfirmedOrderPartitionRouter.class);
+    private static final ParameterizedTypeReference<Order> ORDER_TYPE = new ParameterizedTypeReference<Order>() {
+    };
+
+    private final RabbitTemplate rabbitTemplate;
+    private final Jackson2JsonMessageConverter messageConverter;
+    private final OrderProductionProperties properties;
+    private final Counter routedCounter;
+    private final Counter deadLetteredCounter;
+
+    public ConfirmedOrderPartitionRouter(RabbitTemplate rabbitTemplate, Jackson2JsonMessageConverter messageConverter,
+                                         OrderProductionProperties properties, MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.messageConverter = messageConverter;
+        this.properties = properties;
+        this.routedCounter = Counter.builder("orders.partition.rerouted")
+                .description("Pedidos confirmados sem o cabeçalho orderId republicados na exchange das partições")
+                .register(meterRegistry);
+        this.deadLetteredCounter = Counter.builder("orders.partition.dead.lettered")
+                .description("Pedidos confirmados sem orderId legível enviados para a DLQ em vez de uma partição")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onMessageBatch(List<Message> messages) {
+        List<CorrelationData> sent = new ArrayList<>(messages.size());
+        int deadLettered = 0;
+        for (Message message : messages) {
+            Integer orderId = orderId(message);
+            if (orderId == null) {
+                sent.add(send("", RabbitMQConfig.CONFIRMED_ORDER_DLQ, message));
+                deadLettered++;
+            } else {
+                message.getMessageProperties().setHeader(RabbitMQConfig.PARTITION_HASH_HEADER, orderId.toString());
+                sent.add(send(RabbitMQConfig.CONFIRMED_ORDER_PARTITION_EXCHANGE, "", message));
+            }
+        }
+        // Sem confirm de todas as mensagens o lote volta para a fila; as já republicadas chegam de novo à partição, e
+        // a gravação ignora pedidos que já existem
+        PublisherConfirms.awaitAll(sent, properties.getRetry().getConfirmTimeout(),
+                "Mensagem recusada pelo broker ao rotear para a partição");
+        routedCounter.increment(messages.size() - deadLettered);
+        if (deadLettered > 0) {
+            deadLetteredCounter.increment(deadLettered);
+            logger.warn("{} pedidos confirmados sem orderId legível enviados para a DLQ em vez de uma partição",
+                    deadLettered);
+        }
+    }
+
+    private Integer orderId(Message message) {
+        try {
+            Object order = messageConverter.fromMessage(message, ORDER_TYPE);
+            return order instanceof Order ? ((Order) order).getOrderId() : null;
+        } catch (MessageConversionException e) {
+            return null;
+        }
+    }
+
+    private CorrelationData send(String exchange, String routingKey, Message message) {
+        CorrelationData correlationData = new CorrelationData();
+        rabbitTemplate.send(exchange, routingKey, message, correlationData);
+        return correlationData;
+    }
+}
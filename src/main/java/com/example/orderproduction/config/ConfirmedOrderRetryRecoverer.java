@@ -0,0 +1,122 @@
+package com.example.orderproduction.config;
+
+import com.example.orderproduction.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageBatchRecoverer;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.core.ParameterizedTypeReference;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Destino de um lote de pedidos confirmados cujo processamento falhou. Cada mensagem vai para a fila de espera da
+// próxima tentativa, com o número de tentativas no cabeçalho x-order-attempts, ou para a DLQ quando as tentativas
+// acabam. Com pedidos particionados as filas de espera devolvem a mensagem à exchange das partições. Se a falha foi
+// de conversão, só as mensagens que não convertem vão para a DLQ e as demais voltam à fila sem contar tentativa.
+// O lote só é confirmado depois do confirm do broker para todas as mensagens movidas.
+public class ConfirmedOrderRetryRecoverer implements MessageBatchRecoverer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfirmedOrderRetryRecoverer.class);
+    public static final String ATTEMPTS_HEADER = "x-order-attempts";
+    public static final String LAST_ERROR_HEADER = "x-order-last-error";
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final ParameterizedTypeReference<Order> ORDER_TYPE = new ParameterizedTypeReference<Order>() {
+    };
+
+    private final RabbitTemplate rabbitTemplate;
+    private final Jackson2JsonMessageConverter messageConverter;
+    private final OrderProductionProperties properties;
+
+    public ConfirmedOrderRetryRecoverer(RabbitTemplate rabbitTemplate, Jackson2JsonMessageConverter messageConverter,
+                                        OrderProductionProperties properties) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.messageConverter = messageConverter;
+        this.properties = properties;
+    }
+
+    @Override
+    public void recover(List<Message> messages, Throwable cause) {
+        String error = describe(cause);
+        List<Message> poison = isConversionFailure(cause) ? unconvertible(messages) : List.of();
+        List<CorrelationData> sent = new ArrayList<>(messages.size());
+        int deadLettered = 0;
+        for (Message message : messages) {
+            message.getMessageProperties().setHeader(LAST_ERROR_HEADER, error);
+            if (poison.contains(message)) {
+                sent.add(send(RabbitMQConfig.CONFIRMED_ORDER_DLQ, message));
+                deadLettered++;
+            } else if (!poison.isEmpty()) {
+                // Mesmo lote de uma mensagem inválida: volta para a fila (ou partição) de onde veio sem consumir
+                // tentativa
+                sent.add(send(consumerQueue(message), message));
+            } else {
+                int attempts = attempts(message) + 1;
+                message.getMessageProperties().setHeader(ATTEMPTS_HEADER, attempts);
+                if (attempts >= properties.getRetry().getMaxAttempts()) {
+                    sent.add(send(RabbitMQConfig.CONFIRMED_ORDER_DLQ, message));
+                    deadLettered++;
+                } else {
+                    sent.add(send(RabbitMQConfig.retryQueueName(properties, attempts), message));
+                }
+            }
+        }
+        PublisherConfirms.awaitAll(sent, properties.getRetry().getConfirmTimeout(),
+                "Mensagem recusada pelo broker ao mover o lote com falha");
+        logger.warn("Falha ao processar {} pedidos confirmados ({}): {} enviados para a DLQ e {} para nova tentativa",
+                messages.size(), error, deadLettered, messages.size() - deadLettered);
+    }
+
+    static int attempts(Message message) {
+        Object attempts = message.getMessageProperties().getHeader(ATTEMPTS_HEADER);
+        return attempts instanceof Number ? ((Number) attempts).intValue() : 0;
+    }
+
+    private static String consumerQueue(Message message) {
+        String queue = message.getMessageProperties().getConsumerQueue();
+        return queue == null ? RabbitMQConfig.CONFIRMED_ORDER_QUEUE : queue;
+    }
+
+    private CorrelationData send(String queue, Message message) {
+        CorrelationData correlationData = new CorrelationData();
+        rabbitTemplate.send("", queue, message, correlationData);
+        return correlationData;
+    }
+
+    private List<Message> unconvertible(List<Message> messages) {
+        List<Message> poison = new ArrayList<>();
+        for (Message message : messages) {
+            try {
+                if (!(messageConverter.fromMessage(message, ORDER_TYPE) instanceof Order)) {
+                    poison.add(message);
+                }
+            } catch (MessageConversionException e) {
+                poison.add(message);
+            }
+        }
+        return poison;
+    }
+
+    private static boolean isConversionFailure(Throwable cause) {
+        for (Throwable current = cause; current != null; current = current.getCause()) {
+            if (current instanceof MessageConversionException
+                    || current instanceof org.springframework.messaging.converter.MessageConversionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describe(Throwable cause) {
+        Throwable root = cause;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        String description = root.getClass().getSimpleName() + ": " + root.getMessage();
+        return description.length() > MAX_ERROR_LENGTH ? description.substring(0, MAX_ERROR_LENGTH) : description;
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.orderproduction.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "order-production")
+public class OrderProductionProperties {
+
+    // Armazenamento dos pedidos: REDIS ou MEMORY, em processo, para instâncias únicas e testes sem Redis. Com
+    // MEMORY os pedidos não são compartilhados entre instâncias nem sobrevivem a um restart, e o profile reactive
+    // não é suportado
+    private RepositoryType repository = RepositoryType.REDIS;
+
+    // Origem dos pedidos confirmados: RABBITMQ (fila confirmed.order.queue) ou STREAM, o stream do Redis em
+    // ingestion-stream.key lido por consumer group
+    private IngestionType ingestion = IngestionType.RABBITMQ;
+
+    private final Redis redis = new Redis();
+    private final Listener listener = new Listener();
+    private final WriteBehind writeBehind = new WriteBehind();
+    private final IngestionStream ingestionStream = new IngestionStream();
+    private final Outbox outbox = new Outbox();
+    private final NearCache nearCache = new NearCache();
+    private final Push push = new Push();
+    private final VirtualThreads virtualThreads = new VirtualThreads();
+    private final Pagination pagination = new Pagination();
+    private final Retry retry = new Retry();
+    private final Analytics analytics = new Analytics();
+
+    @Data
+    public static class Redis {
+
+        // Quantidade máxima de chaves por MGET; lotes maiores são divididos e enviados em pipeline
+        private int readChunkSize = 500;
+
+        // Formato dos pedidos gravados no Redis
+        private ValueSerializer serializer = ValueSerializer.BINARY;
+
+        // STRING grava o pedido inteiro em uma chave; HASH separa status e details para atualizar só o status
+        private StorageLayout layout = StorageLayout.STRING;
+
+        // Partições dos pedidos (orderId módulo partitions). Com mais de uma, as chaves levam a hash tag da
+        // partição, que mantém o pedido, os índices por status e o outbox da partição no mesmo slot do Redis
+        // Cluster. Com uma única partição as chaves não têm hash tag, como antes do suporte a cluster
+        private int partitions = 1;
+
+        // Leituras de getOrder, getOrderStatus e das listagens por status, conforme io.lettuce.core.ReadFrom (por
+        // exemplo REPLICA_PREFERRED). Vazio mantém todas as leituras no primário. Exige Sentinel, réplicas estáticas
+        // ou Redis Cluster; gravações e scripts sempre vão ao primário
+        private String readFrom;
+
+        // Réplicas (host:port) do nó em spring.redis.host, para master/replica estático sem Sentinel
+        private List<String> replicas = new ArrayList<>();
+
+        // Máximo de pedidos por requisição de PUT /orders/status; todos vão ao Redis no mesmo pipeline
+        private int bulkUpdateMaxSize = 1000;
+
+        // Máximo de ids por requisição de GET /orders?ids=; acima disso a requisição responde 400
+        private int getManyMaxSize = 1000;
+    }
+
+    public enum RepositoryType {
+        REDIS,
+        MEMORY
+    }
+
+    public enum IngestionType {
+        RABBITMQ,
+        STREAM
+    }
+
+    public enum ValueSerializer {
+        JSON,
+        BINARY
+    }
+
+    public enum StorageLayout {
+        STRING,
+        HASH
+    }
+
+    @Data
+    public static class Listener {
+
+        // Pedidos entregues por chamada do listener da fila de pedidos confirmados
+        private int batchSize = 50;
+
+        // Tempo máximo de espera por novas mensagens antes de entregar um lote incompleto
+        private Duration batchTimeout = Duration.ofMillis(100);
+
+        private int prefetch = 250;
+
+        private int concurrency = 1;
+
+        private int maxConcurrency = 4;
+
+        // Filas de partição de pedidos confirmados, escolhidas pelo cabeçalho orderId; 1 mantém a fila única. Com
+        // partições, cada uma tem um único consumidor ativo e concurrency e max-concurrency não se aplicam
+        private int partitions = 1;
+
+        // Partições consumidas por esta instância; vazio consome todas. Instâncias com partições em comum ficam de
+        // reserva: o RabbitMQ entrega a partição a um consumidor por vez e passa para outro quando ele cai
+        private List<Integer> assignedPartitions = new ArrayList<>();
+    }
+
+    @Data
+    public static class WriteBehind {
+
+        // Junta os lotes do listener de pedidos confirmados, de todos os consumidores, em gravações maiores no
+        // repositório. Cada lote só é confirmado ao broker depois da gravação que o contém
+        private boolean enabled = false;
+
+        // Pedidos por gravação; ao atingir o limite a gravação sai sem esperar flush-interval
+        private int flushSize = 500;
+
+        // Tempo máximo que um lote espera no buffer antes da gravação
+        private Duration flushInterval = Duration.ofMillis(20);
+
+        // Pedidos aguardando gravação; com o buffer cheio o listener espera, o que segura o consumo da fila
+        private int maxPending = 5000;
+    }
+
+    @Data
+    public static class IngestionStream {
+
+        // Stream em que os serviços de origem gravam os pedidos confirmados, com o JSON do pedido no campo order
+        private String key = "order:confirmed";
+
+        // Entradas lidas por XREADGROUP
+        private int batchSize = 100;
+
+        // Espera do XREADGROUP por novas entradas; precisa ficar abaixo de spring.redis.timeout
+        private Duration blockTimeout = Duration.ofMillis(500);
+
+        // Consumidores (threads) desta instância no consumer group
+        private int concurrency = 1;
+
+        // Entregas de uma entrada antes de movê-la para o stream de DLQ (key + ":dlq")
+        private int maxDeliveries = 5;
+
+        // Espera antes de reler um lote cuja gravação falhou
+        private Duration retryInterval = Duration.ofSeconds(1);
+
+        // Entradas pendentes há mais tempo que isso em outro consumidor são assumidas por este
+        private Duration claimIdleTime = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Outbox {
+
+        // Eventos lidos do stream e publicados por ciclo do publicador
+        private int batchSize = 100;
+
+        // Espera máxima pelo publisher confirm antes de manter o evento pendente para nova tentativa
+        private Duration confirmTimeout = Duration.ofSeconds(5);
+
+        // Eventos pendentes há mais tempo que isso em outra instância são assumidos por esta
+        private Duration claimIdleTime = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class NearCache {
+
+        // Cache local de OrderService.getOrder, invalidado por keyspace notifications do Redis
+        private boolean enabled = true;
+
+        private long maximumSize = 10_000;
+
+        // Limite de permanência no cache local; a entrada nunca sobrevive ao TTL restante da chave no Redis
+        private Duration timeToLive = Duration.ofMinutes(30);
+
+        // Habilita notify-keyspace-events no Redis ao subir; desative quando o comando CONFIG não for permitido
+        private boolean configureKeyspaceEvents = true;
+
+        // Com read-from, por quanto tempo após uma invalidação o pedido é lido sem passar pelo cache: a notificação
+        // vem do primário e a réplica ainda pode devolver o valor anterior
+        private Duration replicaLag = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Push {
+
+        // Eventos aguardando envio por assinante do stream de mudanças de status
+        private int bufferSize = 256;
+
+        // O que fazer quando o buffer de um assinante lento enche
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DISCONNECT;
+
+        // Duração máxima de uma conexão SSE; o EventSource do cliente reconecta automaticamente
+        private Duration timeout = Duration.ofMinutes(30);
+
+        // Threads que escrevem os eventos nas conexões
+        private int senderThreads = 4;
+
+        // Envio parado há mais que isso (cliente que não lê o socket) desconecta o assinante e libera a thread
+        private Duration writeTimeout = Duration.ofSeconds(10);
+    }
+
+    public enum OverflowPolicy {
+        // Encerra a conexão; ao reconectar o cliente recarrega o estado e não perde mudanças silenciosamente
+        DISCONNECT,
+        // Descarta o evento mais antigo do buffer e mantém a conexão
+        DROP_OLDEST
+    }
+
+    @Data
+    public static class VirtualThreads {
+
+        // Requisições do Tomcat e consumidores do RabbitMQ em threads virtuais; exige a aplicação rodando em Java 21+
+        private boolean enabled = false;
+    }
+
+    @Data
+    public static class Pagination {
+
+        // Pedidos por página da listagem por status quando o cliente não informa limit
+        private int defaultLimit = 100;
+
+        // Maior limit aceito; valores acima são reduzidos a este
+        private int maxLimit = 1000;
+    }
+
+    @Data
+    public static class Retry {
+
+        // Tentativas de processar uma mensagem de pedido confirmado antes de enviá-la à DLQ
+        private int maxAttempts = 5;
+
+        // Espera antes da segunda tentativa; cada tentativa seguinte multiplica a espera por multiplier
+        private Duration initialInterval = Duration.ofSeconds(1);
+
+        private double multiplier = 2.0;
+
+        // Maior espera entre duas tentativas
+        private Duration maxInterval = Duration.ofMinutes(1);
+
+        // Tempo máximo aguardando o confirm do broker ao mover uma mensagem para a espera, a DLQ ou de volta à fila
+        private Duration confirmTimeout = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Analytics {
+
+        // Largura de cada bucket da análise de produção (pedidos por estágio e tempo em cada status)
+        private Duration bucket = Duration.ofMinutes(1);
+
+        // Janela mantida em memória e no Redis; a consulta agrega no máximo retention / bucket buckets
+        private Duration retention = Duration.ofHours(1);
+    }
+}
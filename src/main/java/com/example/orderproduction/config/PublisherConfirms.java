@@ -0,0 +1,42 @@
+package com.example.orderproduction.config;
+
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Espera pelos publisher confirms das mensagens enviadas com CorrelationData: o outbox de pedidos atualizados e os
+// listeners de lote que movem mensagens antes de confirmar o lote recebido
+public final class PublisherConfirms {
+
+    private PublisherConfirms() {
+    }
+
+    // Confirm do broker ou, sem resposta dentro de timeout, um nack com o motivo
+    public static CorrelationData.Confirm await(CorrelationData correlationData, Duration timeout) {
+        try {
+            return correlationData.getFuture().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new CorrelationData.Confirm(false, "Espera pelo confirm interrompida");
+        } catch (TimeoutException e) {
+            return new CorrelationData.Confirm(false, "Sem confirm do broker em " + timeout);
+        } catch (ExecutionException e) {
+            return new CorrelationData.Confirm(false, String.valueOf(e.getCause()));
+        }
+    }
+
+    // Sem ack de todas as mensagens o lote do listener volta para a fila, para não perder nenhuma ao confirmá-lo
+    static void awaitAll(List<CorrelationData> sent, Duration timeout, String refusal) {
+        for (CorrelationData correlationData : sent) {
+            CorrelationData.Confirm confirm = await(correlationData, timeout);
+            if (!confirm.isAck()) {
+                throw new ImmediateRequeueAmqpException(refusal + ": " + confirm.getReason());
+            }
+        }
+    }
+}
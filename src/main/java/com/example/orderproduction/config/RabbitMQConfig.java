@@ -1,11 +1,33 @@
 package com.example.orderproduction.config;
 
+import com.example.orderproduction.service.OrderEventListener;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.MethodRabbitListenerEndpoint;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Configuration
 public class RabbitMQConfig {
@@ -20,9 +42,63 @@ public class RabbitMQConfig {
     public static final String UPDATED_ORDER_EXCHANGE = "updated.order.exchange";
     public static final String UPDATED_ORDER_ROUTING_KEY = "updated.order";
 
+    // Container em lote usado pelo consumidor de pedidos confirmados
+    public static final String CONFIRMED_ORDER_LISTENER_FACTORY = "confirmedOrderListenerContainerFactory";
+
+    // Cada fila tem uma DLQ; mensagens rejeitadas sem requeue chegam a ela pela exchange padrão
+    public static final String DEAD_LETTER_QUEUE_SUFFIX = ".dlq";
+    public static final String CONFIRMED_ORDER_DLQ = CONFIRMED_ORDER_QUEUE + DEAD_LETTER_QUEUE_SUFFIX;
+    public static final String UPDATED_ORDER_DLQ = UPDATED_ORDER_QUEUE + DEAD_LETTER_QUEUE_SUFFIX;
+
+    // Filas de espera entre tentativas, uma por intervalo; ao expirar a mensagem volta para a fila de origem
+    public static final String CONFIRMED_ORDER_RETRY_QUEUE_PREFIX = "confirmed.order.retry.";
+
+    // Com listener.partitions > 1 os pedidos confirmados passam da exchange de entrada para uma exchange
+    // x-consistent-hash (plugin rabbitmq_consistent_hash_exchange), que escolhe a partição pelo cabeçalho orderId.
+    // Cada partição tem um único consumidor ativo, então os pedidos de uma partição são processados em ordem. As
+    // filas de espera são outras, porque devolvem a mensagem à exchange das partições e não à fila única.
+    // Mensagens sem o cabeçalho não casam com nenhuma partição: a alternate-exchange as leva à fila única, de onde
+    // ConfirmedOrderPartitionRouter as republica com o cabeçalho lido do corpo
+    public static final String CONFIRMED_ORDER_PARTITION_EXCHANGE = "confirmed.order.partitioned";
+    public static final String CONFIRMED_ORDER_UNPARTITIONED_EXCHANGE = "confirmed.order.unpartitioned";
+    public static final String CONFIRMED_ORDER_PARTITION_QUEUE_PREFIX = "confirmed.order.partition.";
+    public static final String CONFIRMED_ORDER_PARTITION_RETRY_QUEUE_PREFIX = "confirmed.order.partitioned.retry.";
+    public static final String PARTITION_HASH_HEADER = "orderId";
+    static final String CONFIRMED_ORDER_LISTENER_ID = "confirmedOrderListener";
+    static final String CONFIRMED_ORDER_ROUTER_ID = "confirmedOrderPartitionRouter";
+    public static final String CONFIRMED_ORDER_ROUTER_FACTORY = "confirmedOrderRouterContainerFactory";
+
     @Bean
     public Queue paidOrderQueue() {
-        return QueueBuilder.durable(CONFIRMED_ORDER_QUEUE).build();
+        return QueueBuilder.durable(CONFIRMED_ORDER_QUEUE)
+                .deadLetterExchange("")
+                .deadLetterRoutingKey(CONFIRMED_ORDER_DLQ)
+                .build();
+    }
+
+    @Bean
+    public Queue paidOrderDeadLetterQueue() {
+        return QueueBuilder.durable(CONFIRMED_ORDER_DLQ).build();
+    }
+
+    // O nome da fila inclui o intervalo: mudar o backoff cria filas novas em vez de conflitar com o x-message-ttl
+    // das existentes
+    @Bean
+    public Declarables paidOrderRetryQueues(OrderProductionProperties properties) {
+        Set<String> names = new LinkedHashSet<>();
+        List<Declarable> queues = new ArrayList<>();
+        boolean partitioned = properties.getListener().getPartitions() > 1;
+        for (int attempt = 1; attempt < properties.getRetry().getMaxAttempts(); attempt++) {
+            String name = retryQueueName(properties, attempt);
+            if (names.add(name)) {
+                QueueBuilder queue = QueueBuilder.durable(name)
+                        .ttl((int) retryDelay(properties.getRetry(), attempt).toMillis());
+                queues.add(partitioned
+                        ? queue.deadLetterExchange(CONFIRMED_ORDER_PARTITION_EXCHANGE).build()
+                        : queue.deadLetterExchange("").deadLetterRoutingKey(CONFIRMED_ORDER_QUEUE).build());
+            }
+        }
+        return new Declarables(queues);
     }
 
     @Bean
@@ -30,14 +106,50 @@ public class RabbitMQConfig {
         return new TopicExchange(CONFIRMED_ORDER_EXCHANGE);
     }
 
+    // Particionado, a fila única deixa de receber pedidos direto da exchange de entrada e passa a receber só os sem
+    // cabeçalho orderId, pela alternate-exchange; o roteador esvazia nela também os pedidos da troca para partições
     @Bean
-    public Binding bindingPaidOrder(Queue paidOrderQueue, TopicExchange paidOrderExchange) {
-        return BindingBuilder.bind(paidOrderQueue).to(paidOrderExchange).with(CONFIRMED_ORDER_ROUTING_KEY);
+    public Declarables paidOrderRouting(Queue paidOrderQueue, TopicExchange paidOrderExchange,
+                                        OrderProductionProperties properties) {
+        int partitions = properties.getListener().getPartitions();
+        if (partitions <= 1) {
+            return new Declarables(BindingBuilder.bind(paidOrderQueue).to(paidOrderExchange).with(CONFIRMED_ORDER_ROUTING_KEY));
+        }
+        List<Declarable> declarables = new ArrayList<>();
+        FanoutExchange unpartitionedExchange = new FanoutExchange(CONFIRMED_ORDER_UNPARTITIONED_EXCHANGE);
+        declarables.add(unpartitionedExchange);
+        declarables.add(BindingBuilder.bind(paidOrderQueue).to(unpartitionedExchange));
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("hash-header", PARTITION_HASH_HEADER);
+        arguments.put("alternate-exchange", CONFIRMED_ORDER_UNPARTITIONED_EXCHANGE);
+        CustomExchange partitionExchange = new CustomExchange(CONFIRMED_ORDER_PARTITION_EXCHANGE, "x-consistent-hash",
+                true, false, arguments);
+        declarables.add(partitionExchange);
+        declarables.add(BindingBuilder.bind(partitionExchange).to(paidOrderExchange).with(CONFIRMED_ORDER_ROUTING_KEY));
+        for (int partition = 0; partition < partitions; partition++) {
+            Queue queue = QueueBuilder.durable(partitionQueueName(partition))
+                    .singleActiveConsumer()
+                    .deadLetterExchange("")
+                    .deadLetterRoutingKey(CONFIRMED_ORDER_DLQ)
+                    .build();
+            declarables.add(queue);
+            // Na exchange x-consistent-hash a routing key da binding é o peso da fila
+            declarables.add(BindingBuilder.bind(queue).to(partitionExchange).with("1").noargs());
+        }
+        return new Declarables(declarables);
     }
 
     @Bean
     public Queue updatedOrderQueue() {
-        return QueueBuilder.durable(UPDATED_ORDER_QUEUE).build();
+        return QueueBuilder.durable(UPDATED_ORDER_QUEUE)
+                .deadLetterExchange("")
+                .deadLetterRoutingKey(UPDATED_ORDER_DLQ)
+                .build();
+    }
+
+    @Bean
+    public Queue updatedOrderDeadLetterQueue() {
+        return QueueBuilder.durable(UPDATED_ORDER_DLQ).build();
     }
 
     @Bean
@@ -63,4 +175,161 @@ public class RabbitMQConfig {
         return rabbitTemplate;
     }
 
+    // Uma falha no lote não volta para a fila na hora: o recoverer leva cada mensagem para a fila de espera da
+    // próxima tentativa, ou para a DLQ após max-attempts; mensagens rejeitadas fora dele vão direto para a DLQ
+    @Bean(name = CONFIRMED_ORDER_LISTENER_FACTORY)
+    public SimpleRabbitListenerContainerFactory confirmedOrderListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            OrderProductionProperties properties,
+            ConfirmedOrderRetryRecoverer retryRecoverer) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+
+        OrderProductionProperties.Listener listener = properties.getListener();
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(listener.getBatchSize());
+        factory.setReceiveTimeout(listener.getBatchTimeout().toMillis());
+        factory.setPrefetchCount(Math.max(listener.getPrefetch(), listener.getBatchSize()));
+        factory.setConcurrentConsumers(listener.getConcurrency());
+        factory.setMaxConcurrentConsumers(Math.max(listener.getConcurrency(), listener.getMaxConcurrency()));
+        factory.setDefaultRequeueRejected(false);
+        factory.setAdviceChain(RetryInterceptorBuilder.stateless()
+                .maxAttempts(1)
+                .recoverer(retryRecoverer)
+                .build());
+        if (properties.getVirtualThreads().isEnabled()) {
+            factory.setTaskExecutor(VirtualThreadsConfig.taskExecutor("rabbit-vt-"));
+        }
+        return factory;
+    }
+
+    // Lotes do roteador de partições: sem o recoverer de novas tentativas, uma falha ao republicar devolve o lote
+    // à fila única
+    @Bean(name = CONFIRMED_ORDER_ROUTER_FACTORY)
+    public SimpleRabbitListenerContainerFactory confirmedOrderRouterContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            OrderProductionProperties properties) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+
+        OrderProductionProperties.Listener listener = properties.getListener();
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(listener.getBatchSize());
+        factory.setReceiveTimeout(listener.getBatchTimeout().toMillis());
+        factory.setPrefetchCount(Math.max(listener.getPrefetch(), listener.getBatchSize()));
+        return factory;
+    }
+
+    // Os consumidores de pedidos confirmados são registrados aqui, e não por @RabbitListener, porque a quantidade
+    // depende da configuração: um container para a fila única ou um por partição atribuída a esta instância, com
+    // um consumidor cada, mais o roteador na fila única. Sem OrderEventListener (ingestão por stream) nada é
+    // registrado
+    @Bean
+    public RabbitListenerConfigurer confirmedOrderListeners(
+            @Qualifier(CONFIRMED_ORDER_LISTENER_FACTORY) SimpleRabbitListenerContainerFactory containerFactory,
+            @Qualifier(CONFIRMED_ORDER_ROUTER_FACTORY) SimpleRabbitListenerContainerFactory routerContainerFactory,
+            ConfirmedOrderPartitionRouter partitionRouter,
+            Optional<OrderEventListener> orderEventListener,
+            OrderProductionProperties properties,
+            BeanFactory beanFactory) {
+        return registrar -> {
+            if (orderEventListener.isEmpty()) {
+                return;
+            }
+            DefaultMessageHandlerMethodFactory handlerMethodFactory = new DefaultMessageHandlerMethodFactory();
+            handlerMethodFactory.setBeanFactory(beanFactory);
+            handlerMethodFactory.afterPropertiesSet();
+            Method method = ReflectionUtils.findMethod(OrderEventListener.class, "receiveOrders", List.class);
+            if (properties.getListener().getPartitions() <= 1) {
+                registrar.registerEndpoint(listenerEndpoint(CONFIRMED_ORDER_LISTENER_ID, CONFIRMED_ORDER_QUEUE, null,
+                        orderEventListener.get(), method, handlerMethodFactory), containerFactory);
+                return;
+            }
+            for (int partition : assignedPartitions(properties.getListener())) {
+                registrar.registerEndpoint(listenerEndpoint(CONFIRMED_ORDER_LISTENER_ID + "-" + partition,
+                        partitionQueueName(partition), "1", orderEventListener.get(), method, handlerMethodFactory),
+                        containerFactory);
+            }
+            // Consumidor exclusivo: só uma instância republica por vez, para não embaralhar a ordem de pedidos
+            // repetidos. A fila já existe sem x-single-active-consumer, e os argumentos de uma fila não mudam; as
+            // demais instâncias tentam de novo a cada recovery-interval e assumem quando a ativa cai
+            SimpleRabbitListenerEndpoint router = new SimpleRabbitListenerEndpoint();
+            router.setId(CONFIRMED_ORDER_ROUTER_ID);
+            router.setQueueNames(CONFIRMED_ORDER_QUEUE);
+            router.setConcurrency("1");
+            router.setExclusive(true);
+            router.setBatchListener(true);
+            router.setMessageListener(partitionRouter);
+            registrar.registerEndpoint(router, routerContainerFactory);
+        };
+    }
+
+    private static MethodRabbitListenerEndpoint listenerEndpoint(String id, String queue, String concurrency,
+                                                                 OrderEventListener bean, Method method,
+                                                                 DefaultMessageHandlerMethodFactory handlerMethodFactory) {
+        MethodRabbitListenerEndpoint endpoint = new MethodRabbitListenerEndpoint();
+        endpoint.setId(id);
+        endpoint.setQueueNames(queue);
+        endpoint.setConcurrency(concurrency);
+        endpoint.setBean(bean);
+        endpoint.setMethod(method);
+        endpoint.setBatchListener(true);
+        endpoint.setMessageHandlerMethodFactory(handlerMethodFactory);
+        return endpoint;
+    }
+
+    @Bean
+    public ConfirmedOrderRetryRecoverer confirmedOrderRetryRecoverer(RabbitTemplate rabbitTemplate,
+                                                                     OrderProductionProperties properties) {
+        return new ConfirmedOrderRetryRecoverer(rabbitTemplate, jsonMessageConverter(), properties);
+    }
+
+    @Bean
+    public ConfirmedOrderPartitionRouter confirmedOrderPartitionRouter(RabbitTemplate rabbitTemplate,
+                                                                       OrderProductionProperties properties,
+                                                                       MeterRegistry meterRegistry) {
+        return new ConfirmedOrderPartitionRouter(rabbitTemplate, jsonMessageConverter(), properties, meterRegistry);
+    }
+
+    // Espera depois da tentativa attempt (a partir de 1): initial-interval * multiplier^(attempt - 1), até max-interval
+    public static Duration retryDelay(OrderProductionProperties.Retry retry, int attempt) {
+        double delay = retry.getInitialInterval().toMillis() * Math.pow(retry.getMultiplier(), attempt - 1);
+        return Duration.ofMillis((long) Math.min(delay, retry.getMaxInterval().toMillis()));
+    }
+
+    public static String retryQueueName(OrderProductionProperties.Retry retry, int attempt) {
+        return CONFIRMED_ORDER_RETRY_QUEUE_PREFIX + retryDelay(retry, attempt).toMillis() + "ms";
+    }
+
+    public static String retryQueueName(OrderProductionProperties properties, int attempt) {
+        return properties.getListener().getPartitions() > 1
+                ? CONFIRMED_ORDER_PARTITION_RETRY_QUEUE_PREFIX + retryDelay(properties.getRetry(), attempt).toMillis() + "ms"
+                : retryQueueName(properties.getRetry(), attempt);
+    }
+
+    public static String partitionQueueName(int partition) {
+        return CONFIRMED_ORDER_PARTITION_QUEUE_PREFIX + partition;
+    }
+
+    // Partições consumidas por esta instância: assigned-partitions ou, vazio, todas
+    static List<Integer> assignedPartitions(OrderProductionProperties.Listener listener) {
+        if (listener.getAssignedPartitions().isEmpty()) {
+            List<Integer> all = new ArrayList<>(listener.getPartitions());
+            for (int partition = 0; partition < listener.getPartitions(); partition++) {
+                all.add(partition);
+            }
+            return all;
+        }
+        for (int partition : listener.getAssignedPartitions()) {
+            if (partition < 0 || partition >= listener.getPartitions()) {
+                throw new IllegalStateException("Partição " + partition + " fora de order-production.listener.partitions="
+                        + listener.getPartitions());
+            }
+        }
+        return new ArrayList<>(new LinkedHashSet<>(listener.getAssignedPartitions()));
+    }
 }
@@ -0,0 +1,20 @@
+package com.example.orderproduction.config;
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+// Variante reativa da API, ativada pelo profile reactive (application-reactive.properties troca o tipo da
+// aplicação para WebFlux). Com o Tomcat também no classpath, o Netty precisa ser declarado explicitamente.
+@Configuration
+@Profile(ReactiveWebConfig.PROFILE)
+public class ReactiveWebConfig {
+
+    public static final String PROFILE = "reactive";
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
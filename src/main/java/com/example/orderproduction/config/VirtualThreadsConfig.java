@@ -0,0 +1,45 @@
+package com.example.orderproduction.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.concurrent.ThreadFactory;
+
+// Modo de threads virtuais (order-production.virtual-threads.enabled=true): cada requisição do Tomcat e cada
+// consumidor do RabbitMQ roda em uma thread virtual, e uma chamada lenta ao Redis deixa de prender uma das 200
+// threads do pool. O projeto ainda compila para Java 17, então a API do Java 21 é obtida por reflexão e a aplicação
+// não sobe com o modo ligado em uma JVM mais antiga.
+@Configuration
+@ConditionalOnProperty(prefix = "order-production.virtual-threads", name = "enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadsProtocolHandlerCustomizer() {
+        // Com um executor externo o server.tomcat.threads.max deixa de valer; o limite passa a ser max-connections
+        return protocolHandler -> protocolHandler.setExecutor(taskExecutor("tomcat-vt-"));
+    }
+
+    // Uma thread virtual nova por tarefa, sem pool
+    public static SimpleAsyncTaskExecutor taskExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setThreadFactory(virtualThreadFactory(threadNamePrefix));
+        return executor;
+    }
+
+    // Equivale a Thread.ofVirtual().name(prefix, 0).factory()
+    static ThreadFactory virtualThreadFactory(String threadNamePrefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("order-production.virtual-threads.enabled=true exige Java 21 ou superior "
+                    + "(JVM atual: " + Runtime.version().feature() + ")", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.orderproduction.controller;
+
+import com.example.orderproduction.dto.DeadLetterDTO;
+import com.example.orderproduction.dto.DeadLetterReplayDTO;
+import com.example.orderproduction.service.DeadLetterService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+// Administração das DLQs, servida nas duas variantes da API. O acesso ao broker é bloqueante e roda no
+// boundedElastic, para não ocupar o event loop no profile reactive
+@RestController
+@RequestMapping("/order-production/admin/dead-letters")
+public class DeadLetterAdminController {
+
+    private final DeadLetterService deadLetterService;
+
+    public DeadLetterAdminController(DeadLetterService deadLetterService) {
+        this.deadLetterService = deadLetterService;
+    }
+
+    // Mensagens do início da DLQ da fila, sem retirá-las
+    @GetMapping("/{queue}")
+    public Mono<ResponseEntity<List<DeadLetterDTO>>> peek(@PathVariable("queue") String queue,
+                                                          @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        if (!deadLetterService.hasDeadLetterQueue(queue)) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        return Mono.fromCallable(() -> ResponseEntity.ok(deadLetterService.peek(queue, limit)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Devolve até limit mensagens da DLQ para a fila de origem, com as tentativas zeradas
+    @PostMapping("/{queue}/replay")
+    public Mono<ResponseEntity<DeadLetterReplayDTO>> replay(@PathVariable("queue") String queue,
+                                                            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        if (!deadLetterService.hasDeadLetterQueue(queue)) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        return Mono.fromCallable(() -> ResponseEntity.ok(
+                        new DeadLetterReplayDTO(queue, deadLetterService.replay(queue, limit))))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
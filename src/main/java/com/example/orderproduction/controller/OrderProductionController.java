@@ -1,22 +1,38 @@
 package com.example.orderproduction.controller;
 
+import com.example.orderproduction.config.ReactiveWebConfig;
+import com.example.orderproduction.dto.OrderStatusDTO;
 import com.example.orderproduction.dto.OrderStatusUpdateDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO;
 import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderPage;
 import com.example.orderproduction.model.OrderStatus;
+import com.example.orderproduction.service.InvalidCursorException;
+import com.example.orderproduction.service.InvalidStatusTransitionException;
 import com.example.orderproduction.service.OrderService;
+import com.example.orderproduction.service.OrderStatusPushService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.Iterator;
 import java.util.List;
 
+// API bloqueante (Spring MVC); no profile reactive as mesmas rotas são servidas por ReactiveOrderProductionController
 @RestController
+@Profile("!" + ReactiveWebConfig.PROFILE)
 @RequestMapping("/order-production/orders")
 public class OrderProductionController {
 
     private final OrderService orderService;
+    private final OrderStatusPushService pushService;
 
-    public OrderProductionController(OrderService orderService) {
+    public OrderProductionController(OrderService orderService, OrderStatusPushService pushService) {
         this.orderService = orderService;
+        this.pushService = pushService;
     }
 
     @PutMapping("/{id}/status")
@@ -25,12 +41,30 @@ public class OrderProductionController {
         try {
             Order updatedOrder = orderService.updateOrderStatus(orderId, request.getStatus());
             return ResponseEntity.ok(updatedOrder);
+        } catch (InvalidStatusTransitionException e) {
+
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+
+            return ResponseEntity.badRequest().build();
         } catch (RuntimeException e) {
 
             return ResponseEntity.notFound().build();
         }
     }
 
+    // Várias mudanças de status em uma requisição, aplicadas no Redis em um único pipeline. Responde 200 com o
+    // resultado de cada pedido na ordem recebida; lista vazia ou acima de redis.bulk-update-max-size responde 400
+    @PutMapping("/status")
+    public ResponseEntity<List<OrderStatusUpdateResultDTO>> updateStatuses(@RequestBody List<OrderStatusDTO> updates) {
+        try {
+            return ResponseEntity.ok(orderService.updateOrderStatuses(updates));
+        } catch (IllegalArgumentException e) {
+
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Order> getOrder(@PathVariable("id") int orderId) {
         Order order = orderService.getOrder(orderId);
@@ -40,12 +74,55 @@ public class OrderProductionController {
         return ResponseEntity.ok(order);
     }
 
-    @GetMapping("/status")
-    public ResponseEntity<List<Order>> getOrdersByStatus(@RequestParam("status") OrderStatus status) {
-        List<Order> orders = orderService.getOrdersByStatus(status);
+    @GetMapping("/{id}/status")
+    public ResponseEntity<OrderStatusDTO> getOrderStatus(@PathVariable("id") int orderId) {
+        OrderStatus status = orderService.getOrderStatus(orderId);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(new OrderStatusDTO(orderId, status));
+    }
+
+    // Stream SSE das mudanças de status, opcionalmente filtrado por status e/ou pedido
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStatusChanges(@RequestParam(value = "status", required = false) OrderStatus status,
+                                          @RequestParam(value = "orderId", required = false) Integer orderId) {
+        return pushService.subscribe(status, orderId);
+    }
+
+    // Pedidos na ordem dos ids; mais de redis.get-many-max-size ids responde 400
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<Order>> getOrders(@RequestParam("ids") List<Integer> orderIds) {
+        List<Order> orders;
+        try {
+            orders = orderService.getOrders(orderIds);
+        } catch (IllegalArgumentException e) {
+
+            return ResponseEntity.badRequest().build();
+        }
         if (orders.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
         return ResponseEntity.ok(orders);
     }
+
+    // Página de pedidos do status em ordem de recebimento; o cursor da próxima página vai no cabeçalho X-Next-Cursor.
+    // Os pedidos são escritos na resposta à medida que são lidos do Redis
+    @GetMapping("/status")
+    public ResponseEntity<Iterator<Order>> getOrdersByStatus(@RequestParam("status") OrderStatus status,
+                                                             @RequestParam(value = "limit", required = false) Integer limit,
+                                                             @RequestParam(value = "cursor", required = false) String cursor) {
+        OrderPage<Iterator<Order>> page;
+        try {
+            page = orderService.getOrdersByStatus(status, limit, cursor);
+        } catch (InvalidCursorException e) {
+
+            return ResponseEntity.badRequest().build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(OrderPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getOrders());
+    }
 }
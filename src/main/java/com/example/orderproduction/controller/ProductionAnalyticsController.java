@@ -0,0 +1,38 @@
+package com.example.orderproduction.controller;
+
+import com.example.orderproduction.dto.ProductionAnalyticsDTO;
+import com.example.orderproduction.service.ProductionAnalytics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+
+// Análise de produção de todas as instâncias (com os pedidos no Redis) ou da instância única (pedidos em memória),
+// servida nas duas variantes da API. A leitura dos agregados no Redis roda fora das threads de requisição do WebFlux
+@RestController
+@RequestMapping("/order-production/analytics")
+public class ProductionAnalyticsController {
+
+    private final ProductionAnalytics analytics;
+
+    public ProductionAnalyticsController(ProductionAnalytics analytics) {
+        this.analytics = analytics;
+    }
+
+    // Pedidos por bucket em cada status e percentis do tempo em cada status nos últimos minutes minutos, limitados
+    // a analytics.retention
+    @GetMapping
+    public Mono<ResponseEntity<ProductionAnalyticsDTO>> getAnalytics(
+            @RequestParam(value = "minutes", defaultValue = "15") int minutes) {
+        if (minutes < 1) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return Mono.fromCallable(() -> ResponseEntity.ok(analytics.snapshot(Duration.ofMinutes(minutes))))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.orderproduction.controller;
+
+import com.example.orderproduction.config.ReactiveWebConfig;
+import com.example.orderproduction.dto.OrderStatusDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO;
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderPage;
+import com.example.orderproduction.model.OrderStatus;
+import com.example.orderproduction.service.InvalidCursorException;
+import com.example.orderproduction.service.InvalidStatusTransitionException;
+import com.example.orderproduction.service.ReactiveOrderService;
+import com.example.orderproduction.service.ReactiveOrderStatusPushService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// Mesmas rotas de OrderProductionController sobre WebFlux (profile reactive). As listagens são devolvidas como
+// array JSON ou, com Accept: application/x-ndjson, emitidas pedido a pedido conforme são lidas do Redis.
+@RestController
+@Profile(ReactiveWebConfig.PROFILE)
+@RequestMapping("/order-production/orders")
+public class ReactiveOrderProductionController {
+
+    private final ReactiveOrderService orderService;
+    private final ReactiveOrderStatusPushService pushService;
+
+    public ReactiveOrderProductionController(ReactiveOrderService orderService,
+                                             ReactiveOrderStatusPushService pushService) {
+        this.orderService = orderService;
+        this.pushService = pushService;
+    }
+
+    @PutMapping("/{id}/status")
+    public Mono<ResponseEntity<Order>> updateStatus(@PathVariable("id") int orderId,
+                                                    @RequestBody OrderStatusUpdateDTO request) {
+        return orderService.updateOrderStatus(orderId, request.getStatus())
+                .map(ResponseEntity::ok)
+                .onErrorResume(InvalidStatusTransitionException.class,
+                        e -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build()))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    @PutMapping("/status")
+    public Mono<ResponseEntity<List<OrderStatusUpdateResultDTO>>> updateStatuses(
+            @RequestBody List<OrderStatusDTO> updates) {
+        return orderService.updateOrderStatuses(updates)
+                .map(ResponseEntity::ok)
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Order>> getOrder(@PathVariable("id") int orderId) {
+        return orderService.getOrder(orderId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/status")
+    public Mono<ResponseEntity<OrderStatusDTO>> getOrderStatus(@PathVariable("id") int orderId) {
+        return orderService.getOrderStatus(orderId)
+                .map(status -> ResponseEntity.ok(new OrderStatusDTO(orderId, status)))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    // Stream SSE das mudanças de status, opcionalmente filtrado por status e/ou pedido
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<OrderStatusDTO>> streamStatusChanges(
+            @RequestParam(value = "status", required = false) OrderStatus status,
+            @RequestParam(value = "orderId", required = false) Integer orderId) {
+        return pushService.subscribe(status, orderId);
+    }
+
+    // Mais de redis.get-many-max-size ids responde 400, antes de qualquer leitura
+    @GetMapping(params = "ids")
+    public Flux<Order> getOrders(@RequestParam("ids") List<Integer> orderIds) {
+        return orEmptyNotFound(orderService.getOrders(orderIds))
+                .onErrorMap(IllegalArgumentException.class, e -> new ResponseStatusException(HttpStatus.BAD_REQUEST));
+    }
+
+    // Página de pedidos do status em ordem de recebimento; o cursor da próxima página vai no cabeçalho X-Next-Cursor
+    // e uma página vazia responde 200 com lista vazia
+    @GetMapping("/status")
+    public Mono<ResponseEntity<Flux<Order>>> getOrdersByStatus(@RequestParam("status") OrderStatus status,
+                                                               @RequestParam(value = "limit", required = false) Integer limit,
+                                                               @RequestParam(value = "cursor", required = false) String cursor) {
+        return orderService.getOrdersByStatus(status, limit, cursor)
+                .map(page -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (page.getNextCursor() != null) {
+                        response.header(OrderPage.NEXT_CURSOR_HEADER, page.getNextCursor());
+                    }
+                    return response.body(page.getOrders());
+                })
+                .onErrorResume(InvalidCursorException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
+    // Lista vazia responde 404, como na variante bloqueante; o erro sai antes do primeiro pedido ser escrito
+    private static Flux<Order> orEmptyNotFound(Flux<Order> orders) {
+        return orders.switchIfEmpty(Flux.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.orderproduction.dto;
+
+import java.util.Map;
+
+public class DeadLetterDTO {
+
+    private String messageId;
+    private int attempts;
+    private String lastError;
+    private Map<String, Object> headers;
+    private String body;
+
+    public DeadLetterDTO() {
+    }
+
+    public DeadLetterDTO(String messageId, int attempts, String lastError, Map<String, Object> headers, String body) {
+        this.messageId = messageId;
+        this.attempts = attempts;
+        this.lastError = lastError;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Map<String, Object> getHeaders() {
+        return headers;
+    }
+    public void setHeaders(Map<String, Object> headers) {
+        this.headers = headers;
+    }
+
+    public String getBody() {
+        return body;
+    }
+    public void setBody(String body) {
+        this.body = body;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.orderproduction.dto;
+
+public class DeadLetterReplayDTO {
+
+    private String queue;
+    private int replayed;
+
+    public DeadLetterReplayDTO() {
+    }
+
+    public DeadLetterReplayDTO(String queue, int replayed) {
+        this.queue = queue;
+        this.replayed = replayed;
+    }
+
+    public String getQueue() {
+        return queue;
+    }
+    public void setQueue(String queue) {
+        this.queue = queue;
+    }
+
+    public int getReplayed() {
+        return replayed;
+    }
+    public void setReplayed(int replayed) {
+        this.replayed = replayed;
+    }
+}
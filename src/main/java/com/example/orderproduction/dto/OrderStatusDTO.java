@@ -0,0 +1,31 @@
+package com.example.orderproduction.dto;
+
+import com.example.orderproduction.model.OrderStatus;
+
+public class OrderStatusDTO {
+
+    private int orderId;
+    private OrderStatus status;
+
+    public OrderStatusDTO() {
+    }
+
+    public OrderStatusDTO(int orderId, OrderStatus status) {
+        this.orderId = orderId;
+        this.status = status;
+    }
+
+    public int getOrderId() {
+        return orderId;
+    }
+    public void setOrderId(int orderId) {
+        this.orderId = orderId;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.orderproduction.dto;
+
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+public class OrderStatusUpdateResultDTO {
+
+    public enum Result {
+        UPDATED, UNCHANGED, INVALID_TRANSITION, NOT_FOUND, FAILED
+    }
+
+    private int orderId;
+    private Result result;
+    private Order order;
+    // Só em UPDATED, para a análise de produção: o status que o pedido deixou e o tempo em ms que ficou nele
+    // (null quando o horário de entrada não é conhecido)
+    @JsonIgnore
+    private OrderStatus previousStatus;
+    @JsonIgnore
+    private Long previousStatusMillis;
+
+    public OrderStatusUpdateResultDTO() {
+    }
+
+    public OrderStatusUpdateResultDTO(int orderId, Result result, Order order) {
+        this.orderId = orderId;
+        this.result = result;
+        this.order = order;
+    }
+
+    public int getOrderId() {
+        return orderId;
+    }
+    public void setOrderId(int orderId) {
+        this.orderId = orderId;
+    }
+
+    public Result getResult() {
+        return result;
+    }
+    public void setResult(Result result) {
+        this.result = result;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+    public void setOrder(Order order) {
+        this.order = order;
+    }
+
+    public OrderStatus getPreviousStatus() {
+        return previousStatus;
+    }
+    public void setPreviousStatus(OrderStatus previousStatus) {
+        this.previousStatus = previousStatus;
+    }
+
+    public Long getPreviousStatusMillis() {
+        return previousStatusMillis;
+    }
+    public void setPreviousStatusMillis(Long previousStatusMillis) {
+        this.previousStatusMillis = previousStatusMillis;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.orderproduction.dto;
+
+import com.example.orderproduction.model.OrderStatus;
+
+import java.util.List;
+import java.util.Map;
+
+public class ProductionAnalyticsDTO {
+
+    private long from;
+    private long to;
+    private long bucketMillis;
+    private List<ThroughputBucket> throughput;
+    private Map<OrderStatus, StatusTime> timeInStatus;
+
+    public ProductionAnalyticsDTO() {
+    }
+
+    public ProductionAnalyticsDTO(long from, long to, long bucketMillis, List<ThroughputBucket> throughput,
+                                  Map<OrderStatus, StatusTime> timeInStatus) {
+        this.from = from;
+        this.to = to;
+        this.bucketMillis = bucketMillis;
+        this.throughput = throughput;
+        this.timeInStatus = timeInStatus;
+    }
+
+    public long getFrom() {
+        return from;
+    }
+    public void setFrom(long from) {
+        this.from = from;
+    }
+
+    public long getTo() {
+        return to;
+    }
+    public void setTo(long to) {
+        this.to = to;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+    public void setBucketMillis(long bucketMillis) {
+        this.bucketMillis = bucketMillis;
+    }
+
+    public List<ThroughputBucket> getThroughput() {
+        return throughput;
+    }
+    public void setThroughput(List<ThroughputBucket> throughput) {
+        this.throughput = throughput;
+    }
+
+    public Map<OrderStatus, StatusTime> getTimeInStatus() {
+        return timeInStatus;
+    }
+    public void setTimeInStatus(Map<OrderStatus, StatusTime> timeInStatus) {
+        this.timeInStatus = timeInStatus;
+    }
+
+    // Pedidos que entraram em cada status no bucket iniciado em start
+    public static class ThroughputBucket {
+
+        private long start;
+        private Map<OrderStatus, Long> entered;
+
+        public ThroughputBucket() {
+        }
+
+        public ThroughputBucket(long start, Map<OrderStatus, Long> entered) {
+            this.start = start;
+            this.entered = entered;
+        }
+
+        public long getStart() {
+            return start;
+        }
+        public void setStart(long start) {
+            this.start = start;
+        }
+
+        public Map<OrderStatus, Long> getEntered() {
+            return entered;
+        }
+        public void setEntered(Map<OrderStatus, Long> entered) {
+            this.entered = entered;
+        }
+    }
+
+    // Pedidos que deixaram o status na janela e percentis, em ms, do tempo que ficaram nele
+    public static class StatusTime {
+
+        private long count;
+        private long p50;
+        private long p95;
+        private long p99;
+
+        public StatusTime() {
+        }
+
+        public StatusTime(long count, long p50, long p95, long p99) {
+            this.count = count;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+        }
+
+        public long getCount() {
+            return count;
+        }
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+        public void setP50(long p50) {
+            this.p50 = p50;
+        }
+
+        public long getP95() {
+            return p95;
+        }
+        public void setP95(long p95) {
+            this.p95 = p95;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+        public void setP99(long p99) {
+            this.p99 = p99;
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package com.example.orderproduction.model;
 
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
+@JsonPropertyOrder({"orderId", "status", "details"})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
     private int orderId;
     private OrderStatus status;
+    // Opaco para o serviço: JSON estruturado vira RawJson, texto continua String
+    @JsonDeserialize(using = RawJson.Deserializer.class)
     private Object details;
 }
@@ -0,0 +1,19 @@
+package com.example.orderproduction.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Página da listagem por status. orders é um Iterator na variante bloqueante e um Flux na reativa: em ambas os
+// pedidos são lidos do Redis em blocos à medida que a resposta é escrita.
+@Getter
+@AllArgsConstructor
+public class OrderPage<T> {
+
+    // Cabeçalho da resposta com o cursor da próxima página; ausente na última
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final T orders;
+
+    // Nulo na última página
+    private final String nextCursor;
+}
@@ -0,0 +1,222 @@
+package com.example.orderproduction.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Valor JSON mantido como bytes UTF-8, sem montar Map/List: o details do pedido não é interpretado pelo serviço.
+// É lido da mensagem do RabbitMQ copiando os tokens para um buffer, gravado no Redis como está e escrito na resposta
+// HTTP sem nova serialização. Pode apontar para um trecho de um array maior, como o valor lido do Redis.
+@JsonDeserialize(using = RawJson.Deserializer.class)
+public class RawJson implements JsonSerializable {
+
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+
+    public RawJson(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public static RawJson of(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return new RawJson(bytes, 0, bytes.length);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.put(bytes, offset, length);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOfRange(bytes, offset, offset + length);
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeRawValue(new RawValue());
+    }
+
+    // Com default typing (serializer JSON do Redis) o tipo vai em um array [tipo, valor], já que o valor é opaco
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        WritableTypeId typeId = typeSer.writeTypePrefix(gen, typeSer.typeId(this, JsonToken.VALUE_EMBEDDED_OBJECT));
+        serialize(gen, serializers);
+        typeSer.writeTypeSuffix(gen, typeId);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof RawJson)) {
+            return false;
+        }
+        RawJson that = (RawJson) other;
+        return Arrays.equals(bytes, offset, offset + length, that.bytes, that.offset, that.offset + that.length);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, offset, length, StandardCharsets.UTF_8);
+    }
+
+    // Copia o valor atual do parser token a token para um buffer UTF-8. Números mantêm o texto original e uma
+    // string JSON isolada continua String, como nos pedidos de details em texto
+    public static class Deserializer extends StdDeserializer<Object> {
+
+        private static final JsonFactory FACTORY = new JsonFactory();
+
+        public Deserializer() {
+            super(Object.class);
+        }
+
+        @Override
+        public Object deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() == JsonToken.VALUE_STRING) {
+                return p.getText();
+            }
+            ByteArrayBuilder buffer = new ByteArrayBuilder(FACTORY._getBufferRecycler());
+            try (JsonGenerator gen = FACTORY.createGenerator(buffer)) {
+                copyValue(p, gen);
+            }
+            byte[] bytes = buffer.toByteArray();
+            buffer.release();
+            return new RawJson(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public Object getNullValue(DeserializationContext ctxt) {
+            return null;
+        }
+
+        private static void copyValue(JsonParser p, JsonGenerator gen) throws IOException {
+            int depth = 0;
+            do {
+                JsonToken token = p.currentToken();
+                if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                    gen.writeNumber(p.getText());
+                } else {
+                    gen.copyCurrentEvent(p);
+                }
+                if (token.isStructStart()) {
+                    depth++;
+                } else if (token.isStructEnd()) {
+                    depth--;
+                }
+            } while (depth > 0 && p.nextToken() != null);
+        }
+    }
+
+    // Os bytes são copiados direto para o buffer do gerador UTF-8; as variantes com aspas nunca são usadas por
+    // writeRawValue
+    private final class RawValue implements SerializableString {
+
+        @Override
+        public String getValue() {
+            return RawJson.this.toString();
+        }
+
+        @Override
+        public int charLength() {
+            return getValue().length();
+        }
+
+        @Override
+        public char[] asQuotedChars() {
+            return new SerializedString(getValue()).asQuotedChars();
+        }
+
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return toByteArray();
+        }
+
+        @Override
+        public byte[] asQuotedUTF8() {
+            return new SerializedString(getValue()).asQuotedUTF8();
+        }
+
+        @Override
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            return new SerializedString(getValue()).appendQuotedUTF8(buffer, offset);
+        }
+
+        @Override
+        public int appendQuoted(char[] buffer, int offset) {
+            return new SerializedString(getValue()).appendQuoted(buffer, offset);
+        }
+
+        @Override
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            if (offset + length > buffer.length) {
+                return -1;
+            }
+            System.arraycopy(bytes, RawJson.this.offset, buffer, offset, length);
+            return length;
+        }
+
+        @Override
+        public int appendUnquoted(char[] buffer, int offset) {
+            return new SerializedString(getValue()).appendUnquoted(buffer, offset);
+        }
+
+        @Override
+        public int writeQuotedUTF8(OutputStream out) throws IOException {
+            return new SerializedString(getValue()).writeQuotedUTF8(out);
+        }
+
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            out.write(bytes, RawJson.this.offset, length);
+            return length;
+        }
+
+        @Override
+        public int putQuotedUTF8(ByteBuffer buffer) {
+            return new SerializedString(getValue()).putQuotedUTF8(buffer);
+        }
+
+        @Override
+        public int putUnquotedUTF8(ByteBuffer buffer) {
+            if (length > buffer.remaining()) {
+                return -1;
+            }
+            writeTo(buffer);
+            return length;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.model.Order;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.*;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Ingestão de pedidos confirmados por Redis Stream (order-production.ingestion=stream), no lugar da fila
+// confirmed.order.queue. Os serviços de origem gravam cada pedido com XADD no stream ingestion-stream.key, com o
+// JSON do pedido (o mesmo corpo da mensagem AMQP) no campo order. Cada thread é um consumidor do grupo
+// order-production: lê lotes com XREADGROUP e só confirma (XACK e XDEL) depois da gravação, feita por
+// OrderWriteBehindBuffer como no listener do RabbitMQ. Um lote com falha continua pendente e é relido após
+// retry-interval; entradas que atingem max-deliveries entregas, ou que não convertem, vão para o stream key + ":dlq".
+@Component
+@ConditionalOnProperty(prefix = "order-production", name = "ingestion", havingValue = "stream")
+public class ConfirmedOrderStreamConsumer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfirmedOrderStreamConsumer.class);
+    static final String CONSUMER_GROUP = "order-production";
+    static final String ORDER_FIELD = "order";
+    static final String ERROR_FIELD = "error";
+    static final String DEAD_LETTER_SUFFIX = ":dlq";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final OrderWriteBehindBuffer writeBehind;
+    private final ObjectMapper objectMapper;
+    private final OrderProductionProperties.IngestionStream config;
+    private final String consumerPrefix = "consumer-" + UUID.randomUUID() + "-";
+    private final Timer consumeLagTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter deadLetterCounter;
+    private volatile boolean groupCreated;
+    private volatile boolean running;
+    private ExecutorService consumers;
+
+    public ConfirmedOrderStreamConsumer(StringRedisTemplate stringRedisTemplate, OrderWriteBehindBuffer writeBehind,
+                                        ObjectMapper objectMapper, OrderProductionProperties properties,
+                                        MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.writeBehind = writeBehind;
+        this.objectMapper = objectMapper;
+        this.config = properties.getIngestionStream();
+        // Os mesmos medidores do listener do RabbitMQ: só uma das ingestões fica ativa
+        this.consumeLagTimer = Timer.builder("orders.listener.lag")
+                .description("Tempo entre a gravação do pedido confirmado no stream (id da entrada) e o consumo")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("orders.listener.batch.size")
+                .description("Pedidos entregues por leitura do stream")
+                .register(meterRegistry);
+        this.deadLetterCounter = meterRegistry.counter("orders.stream.dead-lettered");
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("order-stream-");
+        threadFactory.setDaemon(true);
+        consumers = Executors.newFixedThreadPool(config.getConcurrency(), threadFactory);
+        for (int i = 0; i < config.getConcurrency(); i++) {
+            String consumerName = consumerPrefix + i;
+            consumers.execute(() -> consume(Consumer.from(CONSUMER_GROUP, consumerName)));
+        }
+    }
+
+    // Cada consumidor termina a leitura bloqueante (até block-timeout) e a gravação em andamento
+    @Override
+    public void stop() {
+        running = false;
+        consumers.shutdown();
+        try {
+            if (!consumers.awaitTermination(config.getBlockTimeout().toMillis() + 5000, TimeUnit.MILLISECONDS)) {
+                consumers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            consumers.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void consume(Consumer consumer) {
+        long nextClaim = System.nanoTime();
+        while (running) {
+            try {
+                if (System.nanoTime() - nextClaim >= 0) {
+                    ensureGroup(stringRedisTemplate.opsForStream());
+                    RedisStreamGroups.claimStaleEntries(stringRedisTemplate.opsForStream(), config.getKey(),
+                            CONSUMER_GROUP, consumer.getName(), config.getClaimIdleTime(), config.getBatchSize());
+                    nextClaim = System.nanoTime() + config.getClaimIdleTime().toNanos();
+                }
+                consumeBatch(consumer);
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                if (RedisStreamGroups.isMissingGroup(e)) {
+                    // O próximo ciclo recria o grupo e volta a assumir as entradas de consumidores parados
+                    groupCreated = false;
+                    nextClaim = System.nanoTime();
+                }
+                logger.warn("Falha ao consumir pedidos do stream {}: {}", config.getKey(), e.getMessage());
+                pause(config.getRetryInterval());
+            }
+        }
+    }
+
+    // Devolve as entradas lidas; uma falha na gravação é relançada com o lote ainda pendente neste consumidor
+    int consumeBatch(Consumer consumer) {
+        StreamOperations<String, Object, Object> streams = stringRedisTemplate.opsForStream();
+        ensureGroup(streams);
+        StreamReadOptions options = StreamReadOptions.empty().count(config.getBatchSize());
+        // Primeiro as entradas já entregues a este consumidor e não confirmadas (lote com falha ou assumido)
+        List<MapRecord<String, Object, Object>> records = streams.read(consumer, options,
+                StreamOffset.create(config.getKey(), ReadOffset.from("0")));
+        if (records == null || records.isEmpty()) {
+            records = streams.read(consumer, options.block(config.getBlockTimeout()),
+                    StreamOffset.create(config.getKey(), ReadOffset.lastConsumed()));
+        }
+        if (records == null || records.isEmpty()) {
+            return 0;
+        }
+
+        long now = System.currentTimeMillis();
+        List<Order> orders = new ArrayList<>(records.size());
+        Map<RecordId, MapRecord<String, Object, Object>> converted = new LinkedHashMap<>();
+        for (MapRecord<String, Object, Object> record : records) {
+            Object json = record.getValue().get(ORDER_FIELD);
+            Order order;
+            try {
+                order = json == null ? null : objectMapper.readValue(json.toString(), Order.class);
+            } catch (JsonProcessingException e) {
+                deadLetter(streams, record, e.getClass().getSimpleName() + ": " + e.getOriginalMessage());
+                continue;
+            }
+            if (order == null) {
+                deadLetter(streams, record, "Entrada sem o campo " + ORDER_FIELD);
+                continue;
+            }
+            orders.add(order);
+            converted.put(record.getId(), record);
+            consumeLagTimer.record(Math.max(0, now - record.getId().getTimestamp()), TimeUnit.MILLISECONDS);
+        }
+        if (orders.isEmpty()) {
+            return records.size();
+        }
+        batchSizeSummary.record(orders.size());
+        try {
+            writeBehind.write(orders);
+        } catch (RuntimeException e) {
+            deadLetterExhausted(streams, consumer, converted, describe(e));
+            throw e;
+        }
+        RecordId[] ids = converted.keySet().toArray(new RecordId[0]);
+        streams.acknowledge(config.getKey(), CONSUMER_GROUP, ids);
+        streams.delete(config.getKey(), ids);
+
+        logger.info("recebidos {} pedidos do stream {}", orders.size(), config.getKey());
+        return records.size();
+    }
+
+    // Entradas do lote com falha que já atingiram max-deliveries entregas saem do stream; as demais continuam
+    // pendentes para a próxima leitura
+    private void deadLetterExhausted(StreamOperations<String, Object, Object> streams, Consumer consumer,
+                                     Map<RecordId, MapRecord<String, Object, Object>> records, String error) {
+        List<RecordId> ids = new ArrayList<>(records.keySet());
+        PendingMessages pending = streams.pending(config.getKey(), consumer,
+                Range.closed(ids.get(0).getValue(), ids.get(ids.size() - 1).getValue()), (long) ids.size());
+        if (pending == null) {
+            return;
+        }
+        for (PendingMessage message : pending) {
+            MapRecord<String, Object, Object> record = records.get(message.getId());
+            if (record != null && message.getTotalDeliveryCount() >= config.getMaxDeliveries()) {
+                deadLetter(streams, record, error);
+            }
+        }
+    }
+
+    private void deadLetter(StreamOperations<String, Object, Object> streams, MapRecord<String, Object, Object> record,
+                            String error) {
+        Map<Object, Object> fields = new HashMap<>(record.getValue());
+        fields.put(ERROR_FIELD, error);
+        streams.add(MapRecord.create(config.getKey() + DEAD_LETTER_SUFFIX, fields));
+        streams.acknowledge(config.getKey(), CONSUMER_GROUP, record.getId());
+        streams.delete(config.getKey(), record.getId());
+        deadLetterCounter.increment();
+        logger.warn("Entrada {} do stream {} enviada para a DLQ: {}", record.getId(), config.getKey(), error);
+    }
+
+    private void ensureGroup(StreamOperations<String, Object, Object> streams) {
+        if (!groupCreated) {
+            RedisStreamGroups.createGroupIfMissing(streams, config.getKey(), CONSUMER_GROUP);
+            groupCreated = true;
+        }
+    }
+
+    private static String describe(Exception e) {
+        return e.getClass().getSimpleName() + ": " + e.getMessage();
+    }
+
+    private static void pause(Duration interval) {
+        try {
+            Thread.sleep(interval.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
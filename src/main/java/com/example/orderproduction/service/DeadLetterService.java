@@ -0,0 +1,148 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.ConfirmedOrderRetryRecoverer;
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.config.RabbitMQConfig;
+import com.example.orderproduction.dto.DeadLetterDTO;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import com.rabbitmq.client.LongString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Inspeção e reenvio em lote das DLQs. As mensagens são lidas com basic.get sem ack: a inspeção as devolve para a
+// DLQ (na mesma posição) e o reenvio só confirma a retirada da DLQ depois do confirm do broker para a publicação na
+// fila de origem. Um reenvio interrompido pode duplicar mensagens, o que a ingestão idempotente tolera.
+@Service
+public class DeadLetterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterService.class);
+    static final int MAX_LIMIT = 1000;
+    static final Set<String> QUEUES = Collections.unmodifiableSet(new LinkedHashSet<>(
+            Arrays.asList(RabbitMQConfig.CONFIRMED_ORDER_QUEUE, RabbitMQConfig.UPDATED_ORDER_QUEUE)));
+
+    private final RabbitTemplate rabbitTemplate;
+    private final OrderProductionProperties properties;
+
+    public DeadLetterService(RabbitTemplate rabbitTemplate, OrderProductionProperties properties) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.properties = properties;
+    }
+
+    public boolean hasDeadLetterQueue(String queue) {
+        return QUEUES.contains(queue);
+    }
+
+    public List<DeadLetterDTO> peek(String queue, int limit) {
+        String deadLetterQueue = deadLetterQueue(queue);
+        return rabbitTemplate.execute(channel -> {
+            List<DeadLetterDTO> deadLetters = new ArrayList<>();
+            long lastTag = -1;
+            try {
+                GetResponse response;
+                while (deadLetters.size() < clamp(limit) && (response = channel.basicGet(deadLetterQueue, false)) != null) {
+                    lastTag = response.getEnvelope().getDeliveryTag();
+                    deadLetters.add(toDeadLetter(response));
+                }
+            } finally {
+                requeue(channel, lastTag);
+            }
+            return deadLetters;
+        });
+    }
+
+    // Devolve até limit mensagens da DLQ para a fila de origem, com o contador de tentativas zerado
+    public int replay(String queue, int limit) {
+        String deadLetterQueue = deadLetterQueue(queue);
+        long confirmTimeout = properties.getRetry().getConfirmTimeout().toMillis();
+        // Com pedidos particionados os confirmados voltam pela exchange das partições, que escolhe a fila pelo orderId
+        boolean partitioned = RabbitMQConfig.CONFIRMED_ORDER_QUEUE.equals(queue)
+                && properties.getListener().getPartitions() > 1;
+        String exchange = partitioned ? RabbitMQConfig.CONFIRMED_ORDER_PARTITION_EXCHANGE : "";
+        String routingKey = partitioned ? "" : queue;
+        Integer replayed = rabbitTemplate.execute(channel -> {
+            int moved = 0;
+            long lastTag = -1;
+            try {
+                GetResponse response;
+                while (moved < clamp(limit) && (response = channel.basicGet(deadLetterQueue, false)) != null) {
+                    lastTag = response.getEnvelope().getDeliveryTag();
+                    channel.basicPublish(exchange, routingKey, resetAttempts(response.getProps()), response.getBody());
+                    moved++;
+                }
+                if (lastTag >= 0) {
+                    channel.waitForConfirmsOrDie(confirmTimeout);
+                    channel.basicAck(lastTag, true);
+                }
+            } catch (Exception e) {
+                requeue(channel, lastTag);
+                throw e;
+            }
+            return moved;
+        });
+        logger.info("{} mensagens reenviadas de {} para {}", replayed, deadLetterQueue, queue);
+        return replayed == null ? 0 : replayed;
+    }
+
+    private String deadLetterQueue(String queue) {
+        if (!hasDeadLetterQueue(queue)) {
+            throw new IllegalArgumentException("Fila sem DLQ: " + queue);
+        }
+        return queue + RabbitMQConfig.DEAD_LETTER_QUEUE_SUFFIX;
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    private static void requeue(Channel channel, long lastTag) throws IOException {
+        if (lastTag >= 0 && channel.isOpen()) {
+            channel.basicNack(lastTag, true, true);
+        }
+    }
+
+    private static AMQP.BasicProperties resetAttempts(AMQP.BasicProperties props) {
+        Map<String, Object> headers = props.getHeaders() == null ? new HashMap<>() : new HashMap<>(props.getHeaders());
+        headers.remove(ConfirmedOrderRetryRecoverer.ATTEMPTS_HEADER);
+        return props.builder().headers(headers).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DeadLetterDTO toDeadLetter(GetResponse response) {
+        AMQP.BasicProperties props = response.getProps();
+        Map<String, Object> headers = props.getHeaders() == null
+                ? Collections.emptyMap() : (Map<String, Object>) plain(props.getHeaders());
+        Object attempts = headers.get(ConfirmedOrderRetryRecoverer.ATTEMPTS_HEADER);
+        Object lastError = headers.get(ConfirmedOrderRetryRecoverer.LAST_ERROR_HEADER);
+        return new DeadLetterDTO(props.getMessageId(), attempts instanceof Number ? ((Number) attempts).intValue() : 0,
+                lastError == null ? null : lastError.toString(), headers,
+                new String(response.getBody(), StandardCharsets.UTF_8));
+    }
+
+    // Cabeçalhos AMQP (LongString, x-death com tabelas aninhadas) em tipos serializáveis em JSON
+    private static Object plain(Object value) {
+        if (value instanceof LongString) {
+            return value.toString();
+        }
+        if (value instanceof Map) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((key, item) -> map.put(String.valueOf(key), plain(item)));
+            return map;
+        }
+        if (value instanceof List) {
+            List<Object> list = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                list.add(plain(item));
+            }
+            return list;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.orderproduction.service;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntToLongFunction;
+
+// Roda de expiração com uma posição por tick: cada pedido entra na posição do tick do seu horário de expiração, e
+// avançar a roda só percorre as posições dos ticks já encerrados, sem ordenar nem varrer todos os pedidos. A roda
+// cobre mais que o maior tempo de vida agendado, então cada posição só guarda pedidos de um mesmo tick. Não é
+// thread-safe.
+final class ExpiryTimingWheel {
+
+    private final long tickMillis;
+    private final int mask;
+    private final int[][] slots;
+    private final int[] sizes;
+    private long nextTick;
+
+    ExpiryTimingWheel(long tickMillis, long maxDelayMillis, long now) {
+        this.tickMillis = tickMillis;
+        int wheelSize = 1;
+        while (wheelSize < maxDelayMillis / tickMillis + 2) {
+            wheelSize <<= 1;
+        }
+        this.mask = wheelSize - 1;
+        this.slots = new int[wheelSize][];
+        this.sizes = new int[wheelSize];
+        this.nextTick = now / tickMillis;
+    }
+
+    void schedule(int id, long expiresAt) {
+        int slot = (int) (expiresAt / tickMillis) & mask;
+        int[] ids = slots[slot];
+        if (ids == null) {
+            ids = slots[slot] = new int[8];
+        } else if (sizes[slot] == ids.length) {
+            ids = slots[slot] = Arrays.copyOf(ids, ids.length * 2);
+        }
+        ids[sizes[slot]++] = id;
+    }
+
+    // Percorre os ticks encerrados até now. expiresAt devolve o horário de expiração atual do id (Long.MIN_VALUE
+    // quando não existe mais); ids vencidos vão para expire e os reagendados em outra posição são descartados
+    void advance(long now, IntToLongFunction expiresAt, IntConsumer expire) {
+        long currentTick = now / tickMillis;
+        long lastTick = Math.min(currentTick - 1, nextTick + mask);
+        for (long tick = nextTick; tick <= lastTick; tick++) {
+            int slot = (int) tick & mask;
+            int[] ids = slots[slot];
+            int kept = 0;
+            for (int i = 0; i < sizes[slot]; i++) {
+                long expiration = expiresAt.applyAsLong(ids[i]);
+                if (expiration == Long.MIN_VALUE) {
+                    continue;
+                }
+                if (expiration <= now) {
+                    expire.accept(ids[i]);
+                } else if (((int) (expiration / tickMillis) & mask) == slot) {
+                    ids[kept++] = ids[i];
+                }
+            }
+            sizes[slot] = kept;
+            if (kept == 0 && ids != null && ids.length > 64) {
+                slots[slot] = null;
+            }
+        }
+        nextTick = Math.max(nextTick, currentTick);
+    }
+}
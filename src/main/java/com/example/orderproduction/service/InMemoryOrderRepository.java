@@ -0,0 +1,336 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.dto.OrderStatusDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO.Result;
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+// Pedidos em memória, para instância única e testes sem Redis (order-production.repository=memory). Os pedidos
+// ficam em um mapa indexado pelo orderId primitivo, os índices por status em conjuntos ordenados como os sorted sets
+// do Redis (horário de recebimento e orderId como texto, a ordem do cursor da listagem) e a expiração em uma roda
+// de ticks de um segundo. Cada operação segura o lock uma vez, então a transição de status, a troca de índice e o
+// registro no outbox são atômicos como no script do Redis. As mudanças de status são publicadas como eventos da
+// aplicação para o push (SSE) desta instância.
+@Component
+@ConditionalOnProperty(prefix = "order-production", name = "repository", havingValue = "memory")
+public class InMemoryOrderRepository implements OrderRepository {
+
+    private static final long EXPIRY_TICK_MILLIS = 1000;
+    private static final Comparator<IndexEntry> INDEX_ORDER =
+            Comparator.comparingLong((IndexEntry entry) -> entry.receivedAt).thenComparing(entry -> entry.member);
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final LongSupplier clock;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final IntObjectHashMap<StoredOrder> orders = new IntObjectHashMap<>(1024);
+    private final List<NavigableSet<IndexEntry>> statusIndexes = new ArrayList<>(STATUSES.length);
+    private final ExpiryTimingWheel expiryWheel;
+    private final Queue<OutboxEvent> outbox = new ConcurrentLinkedQueue<>();
+
+    @Autowired
+    public InMemoryOrderRepository(ApplicationEventPublisher eventPublisher) {
+        this(eventPublisher, System::currentTimeMillis);
+    }
+
+    InMemoryOrderRepository(ApplicationEventPublisher eventPublisher, LongSupplier clock) {
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
+        for (int i = 0; i < STATUSES.length; i++) {
+            statusIndexes.add(new TreeSet<>(INDEX_ORDER));
+        }
+        this.expiryWheel = new ExpiryTimingWheel(EXPIRY_TICK_MILLIS, ORDER_TTL.toMillis(), clock.getAsLong());
+    }
+
+    @Override
+    public boolean[] insertAll(List<Order> orders, long receivedAt) {
+        boolean[] written = new boolean[orders.size()];
+        long now = clock.getAsLong();
+        lock.writeLock().lock();
+        try {
+            expire(now);
+            for (int i = 0; i < orders.size(); i++) {
+                Order order = orders.get(i);
+                if (live(this.orders.get(order.getOrderId()), now) != null) {
+                    continue;
+                }
+                StoredOrder stored = new StoredOrder(order.getOrderId(), order.getStatus(), order.getDetails(),
+                        receivedAt, receivedAt + ORDER_TTL.toMillis());
+                remove(this.orders.put(stored.orderId, stored));
+                statusIndexes.get(stored.status.ordinal()).add(stored.indexEntry);
+                expiryWheel.schedule(stored.orderId, stored.expiresAt);
+                written[i] = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return written;
+    }
+
+    @Override
+    public OrderStatusUpdateResultDTO updateStatus(int orderId, OrderStatus newStatus) {
+        OrderStatusUpdateResultDTO result;
+        lock.writeLock().lock();
+        try {
+            result = transition(orderId, newStatus, clock.getAsLong());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        publishChange(result);
+        return result;
+    }
+
+    // Todas as transições do lote com um único lock
+    @Override
+    public List<OrderStatusUpdateResultDTO> updateStatuses(List<OrderStatusDTO> updates) {
+        List<OrderStatusUpdateResultDTO> results = new ArrayList<>(updates.size());
+        lock.writeLock().lock();
+        try {
+            long now = clock.getAsLong();
+            for (OrderStatusDTO update : updates) {
+                results.add(update.getStatus() == null
+                        ? new OrderStatusUpdateResultDTO(update.getOrderId(), Result.INVALID_TRANSITION, null)
+                        : transition(update.getOrderId(), update.getStatus(), now));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (OrderStatusUpdateResultDTO result : results) {
+            publishChange(result);
+        }
+        return results;
+    }
+
+    // Mesmas regras do script update-order-status.lua: o status só avança para o seguinte, e o pedido mantém a
+    // posição de recebimento ao mudar de índice
+    private OrderStatusUpdateResultDTO transition(int orderId, OrderStatus newStatus, long now) {
+        StoredOrder stored = live(orders.get(orderId), now);
+        if (stored == null) {
+            return new OrderStatusUpdateResultDTO(orderId, Result.NOT_FOUND, null);
+        }
+        if (stored.status == newStatus) {
+            return new OrderStatusUpdateResultDTO(orderId, Result.UNCHANGED, stored.toOrder());
+        }
+        if (newStatus.ordinal() != stored.status.ordinal() + 1) {
+            return new OrderStatusUpdateResultDTO(orderId, Result.INVALID_TRANSITION, stored.toOrder());
+        }
+        statusIndexes.get(stored.status.ordinal()).remove(stored.indexEntry);
+        statusIndexes.get(newStatus.ordinal()).add(stored.indexEntry);
+        OrderStatusUpdateResultDTO result = new OrderStatusUpdateResultDTO(orderId, Result.UPDATED, null);
+        result.setPreviousStatus(stored.status);
+        result.setPreviousStatusMillis(Math.max(0, now - stored.statusSince));
+        stored.status = newStatus;
+        stored.statusSince = now;
+        outbox.add(new OutboxEvent(orderId, newStatus, now));
+        result.setOrder(stored.toOrder());
+        return result;
+    }
+
+    private void publishChange(OrderStatusUpdateResultDTO result) {
+        if (result.getResult() == Result.UPDATED) {
+            eventPublisher.publishEvent(new OrderStatusDTO(result.getOrderId(), result.getOrder().getStatus()));
+        }
+    }
+
+    @Override
+    public OrderNearCache.CachedOrder find(int orderId) {
+        long now = clock.getAsLong();
+        lock.readLock().lock();
+        try {
+            StoredOrder stored = live(orders.get(orderId), now);
+            return stored == null ? null : new OrderNearCache.CachedOrder(stored.toOrder(), stored.expiresAt - now);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Order> findAll(List<Integer> orderIds) {
+        List<Order> found = new ArrayList<>(orderIds.size());
+        long now = clock.getAsLong();
+        lock.readLock().lock();
+        try {
+            for (Integer orderId : orderIds) {
+                StoredOrder stored = live(orders.get(orderId), now);
+                if (stored != null) {
+                    found.add(stored.toOrder());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    @Override
+    public OrderStatus findStatus(int orderId) {
+        long now = clock.getAsLong();
+        lock.readLock().lock();
+        try {
+            StoredOrder stored = live(orders.get(orderId), now);
+            return stored == null ? null : stored.status;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean readsStatusOnly() {
+        return true;
+    }
+
+    @Override
+    public void readStatusIndexPage(OrderStatus status, StatusIndexPage page) {
+        long minReceivedAt = (long) page.minScore(clock.getAsLong() - ORDER_TTL.toMillis());
+        lock.readLock().lock();
+        try {
+            for (IndexEntry entry : statusIndexes.get(status.ordinal()).tailSet(new IndexEntry(minReceivedAt, ""), true)) {
+                if (!page.add((double) entry.receivedAt, entry.member)) {
+                    return;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Os pedidos vencidos saem do índice a cada tick da roda de expiração
+    @Override
+    public double countActiveOrders(OrderStatus status) {
+        lock.readLock().lock();
+        try {
+            return statusIndexes.get(status.ordinal()).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelay = EXPIRY_TICK_MILLIS)
+    public void expireOrders() {
+        long now = clock.getAsLong();
+        lock.writeLock().lock();
+        try {
+            expire(now);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Eventos de pedidos atualizados na ordem de gravação, para UpdatedOrderOutboxPublisher; permanecem no outbox
+    // até removeFromOutbox, depois do confirm do broker
+    List<OutboxEvent> outboxBatch(int maxSize) {
+        List<OutboxEvent> batch = new ArrayList<>(maxSize);
+        for (Iterator<OutboxEvent> events = outbox.iterator(); events.hasNext() && batch.size() < maxSize; ) {
+            batch.add(events.next());
+        }
+        return batch;
+    }
+
+    // Os confirmados chegam na ordem do lote, que é o início da fila: saem com poll enquanto coincidem com a cabeça.
+    // Depois de um evento sem confirm, que fica para o próximo ciclo, os demais saem em uma única passada pela fila
+    void removeFromOutbox(Collection<OutboxEvent> events) {
+        Iterator<OutboxEvent> confirmed = events.iterator();
+        OutboxEvent next = confirmed.hasNext() ? confirmed.next() : null;
+        while (next != null && outbox.peek() == next) {
+            outbox.poll();
+            next = confirmed.hasNext() ? confirmed.next() : null;
+        }
+        for (Iterator<OutboxEvent> queued = outbox.iterator(); next != null && queued.hasNext(); ) {
+            if (queued.next() == next) {
+                queued.remove();
+                next = confirmed.hasNext() ? confirmed.next() : null;
+            }
+        }
+    }
+
+    private void expire(long now) {
+        expiryWheel.advance(now, orderId -> {
+            StoredOrder stored = orders.get(orderId);
+            return stored == null ? Long.MIN_VALUE : stored.expiresAt;
+        }, orderId -> remove(orders.remove(orderId)));
+    }
+
+    private void remove(StoredOrder stored) {
+        if (stored != null) {
+            statusIndexes.get(stored.status.ordinal()).remove(stored.indexEntry);
+        }
+    }
+
+    // Pedido vencido e ainda não removido pela roda conta como inexistente, como a expiração preguiçosa do Redis
+    private static StoredOrder live(StoredOrder stored, long now) {
+        return stored == null || stored.expiresAt <= now ? null : stored;
+    }
+
+    private static final class StoredOrder {
+
+        private final int orderId;
+        private OrderStatus status;
+        // Horário de entrada no status atual
+        private long statusSince;
+        private final Object details;
+        private final long expiresAt;
+        private final IndexEntry indexEntry;
+
+        private StoredOrder(int orderId, OrderStatus status, Object details, long receivedAt, long expiresAt) {
+            this.orderId = orderId;
+            this.status = status;
+            this.statusSince = receivedAt;
+            this.details = details;
+            this.expiresAt = expiresAt;
+            this.indexEntry = new IndexEntry(receivedAt, String.valueOf(orderId));
+        }
+
+        // Cópia a cada leitura: Order é mutável e o chamador não altera o pedido armazenado
+        private Order toOrder() {
+            return new Order(orderId, status, details);
+        }
+    }
+
+    private static final class IndexEntry {
+
+        private final long receivedAt;
+        private final String member;
+
+        private IndexEntry(long receivedAt, String member) {
+            this.receivedAt = receivedAt;
+            this.member = member;
+        }
+    }
+
+    static final class OutboxEvent {
+
+        private final int orderId;
+        private final OrderStatus status;
+        private final long createdAt;
+
+        private OutboxEvent(int orderId, OrderStatus status, long createdAt) {
+            this.orderId = orderId;
+            this.status = status;
+            this.createdAt = createdAt;
+        }
+
+        int getOrderId() {
+            return orderId;
+        }
+
+        OrderStatus getStatus() {
+            return status;
+        }
+
+        long getCreatedAt() {
+            return createdAt;
+        }
+    }
+}
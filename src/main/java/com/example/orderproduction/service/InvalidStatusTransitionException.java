@@ -0,0 +1,10 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.model.OrderStatus;
+
+public class InvalidStatusTransitionException extends RuntimeException {
+
+    public InvalidStatusTransitionException(int orderId, OrderStatus newStatus) {
+        super("Transição de status inválida para o pedido " + orderId + ": " + newStatus);
+    }
+}
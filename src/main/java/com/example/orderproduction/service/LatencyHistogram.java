@@ -0,0 +1,54 @@
+package com.example.orderproduction.service;
+
+// Histograma log-linear de durações em ms com faixas fixas: valores até 7 ms têm faixa própria e cada potência de
+// dois acima é dividida em SUB_BUCKETS faixas, o que limita o erro do percentil a 1/SUB_BUCKETS (12,5%). Como as
+// faixas são as mesmas em qualquer histograma, dois histogramas se combinam somando as contagens posição a posição.
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Valores acima de 2^32 ms (cerca de 50 dias) ficam na última faixa
+    private static final int MAX_EXPONENT = 31;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private LatencyHistogram() {
+    }
+
+    static int bucketOf(long millis) {
+        if (millis < SUB_BUCKETS) {
+            return (int) Math.max(0, millis);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(millis);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (millis >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Maior valor da faixa, reportado como percentil: a estimativa nunca fica abaixo do valor real
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (SUB_BUCKETS + bucket % SUB_BUCKETS) * width + width - 1;
+    }
+
+    // Percentil (0 a 1) das contagens; 0 sem valores
+    static long percentile(long[] counts, long total, double quantile) {
+        if (total <= 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return upperBound(bucket);
+            }
+        }
+        return upperBound(counts.length - 1);
+    }
+}
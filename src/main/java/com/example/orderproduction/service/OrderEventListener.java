@@ -1,29 +1,60 @@
 package com.example.orderproduction.service;
 
-import com.example.orderproduction.config.RabbitMQConfig;
 import com.example.orderproduction.model.Order;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Com order-production.ingestion=stream os pedidos chegam por ConfirmedOrderStreamConsumer
 @Component
+@ConditionalOnProperty(prefix = "order-production", name = "ingestion", havingValue = "rabbitmq", matchIfMissing = true)
 public class OrderEventListener {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderEventListener.class);
 
-    private final OrderService orderService;
-
-    public OrderEventListener(OrderService orderService) {
-        this.orderService = orderService;
+    private final OrderWriteBehindBuffer writeBehind;
+    private final Timer consumeLagTimer;
+    private final DistributionSummary batchSizeSummary;
+
+    public OrderEventListener(OrderWriteBehindBuffer writeBehind, MeterRegistry meterRegistry) {
+        this.writeBehind = writeBehind;
+        this.consumeLagTimer = Timer.builder("orders.listener.lag")
+                .description("Tempo entre a publicação do pedido confirmado (propriedade timestamp) e o consumo")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("orders.listener.batch.size")
+                .description("Pedidos entregues por chamada do listener")
+                .register(meterRegistry);
     }
 
 
-    @RabbitListener(queues = RabbitMQConfig.CONFIRMED_ORDER_QUEUE)
-    public void receiveOrder(Order order) {
-        orderService.processOrder(order);
-
-        logger.info("recebido objeto pedido da FILA CONFIRMED_ORDER_QUEUE :" + order);
+    // O tempo de processamento de cada lote fica no timer spring.rabbitmq.listener do próprio container. Com o
+    // write-behind habilitado o lote é gravado junto com os de outros consumidores e só retorna (e é confirmado)
+    // depois da gravação
+    public void receiveOrders(List<Message<Order>> messages) {
+        long now = System.currentTimeMillis();
+        List<Order> orders = new ArrayList<>(messages.size());
+        for (Message<Order> message : messages) {
+            orders.add(message.getPayload());
+            Date timestamp = message.getHeaders().get(AmqpHeaders.TIMESTAMP, Date.class);
+            if (timestamp != null) {
+                consumeLagTimer.record(Math.max(0, now - timestamp.getTime()), TimeUnit.MILLISECONDS);
+            }
+        }
+        batchSizeSummary.record(orders.size());
+        writeBehind.write(orders);
+
+        logger.info("recebidos {} pedidos da FILA CONFIRMED_ORDER_QUEUE", orders.size());
 
     }
 }
@@ -0,0 +1,178 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.config.RedisConfig;
+import com.example.orderproduction.model.Order;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntFunction;
+
+// Near-cache local dos pedidos lidos por OrderService.getOrder.
+// Cada entrada expira junto com a chave no Redis (TTL restante lido na carga, limitado por time-to-live) e é
+// invalidada por OrderNearCacheInvalidator quando qualquer instância altera o pedido. Com leituras em réplica, o
+// pedido recém-invalidado é lido sem passar pelo cache durante replica-lag, para não guardar o valor anterior
+// devolvido por uma réplica atrasada. Com Redis Cluster o cache fica desligado: as keyspace notifications são
+// publicadas só no nó dono da chave e o listener assina um único nó, então as invalidações de outros nós se perderiam.
+@Component
+public class OrderNearCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderNearCache.class);
+
+    static final String CACHE_NAME = "orders-near-cache";
+    private static final int INVALIDATION_STRIPES = 64;
+
+    private final Cache<Integer, CachedOrder> cache;
+    // Invalidações por faixa de orderId, usadas para descartar cargas reativas que concorreram com uma alteração
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+    // Pedidos invalidados há menos de replica-lag; nulo quando as leituras vão ao primário
+    private final Cache<Integer, Boolean> recentInvalidations;
+    private volatile long invalidatedAllAt;
+    private final long replicaLagNanos;
+
+    @Autowired
+    public OrderNearCache(OrderProductionProperties properties, RedisProperties redisProperties,
+                          MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, RedisConfig.isCluster(redisProperties));
+    }
+
+    public OrderNearCache(OrderProductionProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, false);
+    }
+
+    private OrderNearCache(OrderProductionProperties properties, MeterRegistry meterRegistry, boolean cluster) {
+        OrderProductionProperties.NearCache config = properties.getNearCache();
+        boolean redis = properties.getRepository() == OrderProductionProperties.RepositoryType.REDIS;
+        if (config.isEnabled() && redis && cluster) {
+            logger.warn("Near-cache desligado: com Redis Cluster as keyspace notifications de outros nós não " +
+                    "chegam a esta instância");
+        }
+        // Com os pedidos em memória a leitura já é local e o cache só duplicaria os pedidos
+        if (!config.isEnabled() || !redis || cluster) {
+            this.cache = null;
+            this.recentInvalidations = null;
+            this.replicaLagNanos = 0;
+            return;
+        }
+        boolean replicaReads = StringUtils.hasText(properties.getRedis().getReadFrom());
+        this.replicaLagNanos = replicaReads ? config.getReplicaLag().toNanos() : 0;
+        this.recentInvalidations = replicaLagNanos > 0
+                ? Caffeine.newBuilder().expireAfterWrite(config.getReplicaLag()).maximumSize(config.getMaximumSize()).build()
+                : null;
+        this.invalidatedAllAt = System.nanoTime() - replicaLagNanos;
+        long maxTtlNanos = config.getTimeToLive().toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfter(new Expiry<Integer, CachedOrder>() {
+                    @Override
+                    public long expireAfterCreate(Integer orderId, CachedOrder value, long currentTime) {
+                        return Math.min(TimeUnit.MILLISECONDS.toNanos(value.ttlMillis), maxTtlNanos);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Integer orderId, CachedOrder value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(orderId, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Integer orderId, CachedOrder value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    // Carregamentos concorrentes do mesmo pedido são agrupados; uma invalidação recebida durante a carga
+    // aguarda o fim dela e remove a entrada, então o valor lido antes da alteração não permanece no cache
+    public Order get(int orderId, IntFunction<CachedOrder> loader) {
+        if (cache == null || replicaLagging(orderId)) {
+            CachedOrder loaded = loader.apply(orderId);
+            return loaded == null ? null : loaded.order;
+        }
+        CachedOrder cached = cache.get(orderId, loader::apply);
+        return cached == null ? null : cached.order;
+    }
+
+    // Variante sem bloqueio: a carga roda fora do cache e só é gravada se nenhuma invalidação da mesma faixa
+    // ocorreu desde o início dela. A verificação e a gravação são atômicas em relação a invalidate, que
+    // incrementa a faixa antes de remover a entrada.
+    public Mono<Order> getReactive(int orderId, IntFunction<Mono<CachedOrder>> loader) {
+        if (cache == null || replicaLagging(orderId)) {
+            return loader.apply(orderId).map(loaded -> loaded.order);
+        }
+        return Mono.defer(() -> {
+            CachedOrder cached = cache.getIfPresent(orderId);
+            if (cached != null) {
+                return Mono.just(cached.order);
+            }
+            int stripe = stripe(orderId);
+            long stamp = invalidations.get(stripe);
+            return loader.apply(orderId)
+                    .doOnNext(loaded -> cache.asMap().computeIfAbsent(orderId,
+                            id -> invalidations.get(stripe) == stamp ? loaded : null))
+                    .map(loaded -> loaded.order);
+        });
+    }
+
+    public void invalidate(int orderId) {
+        if (cache != null) {
+            if (recentInvalidations != null) {
+                recentInvalidations.put(orderId, Boolean.TRUE);
+            }
+            invalidations.incrementAndGet(stripe(orderId));
+            cache.invalidate(orderId);
+        }
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            invalidatedAllAt = System.nanoTime();
+            for (int stripe = 0; stripe < INVALIDATION_STRIPES; stripe++) {
+                invalidations.incrementAndGet(stripe);
+            }
+            cache.invalidateAll();
+        }
+    }
+
+    private boolean replicaLagging(int orderId) {
+        return recentInvalidations != null && (System.nanoTime() - invalidatedAllAt < replicaLagNanos
+                || recentInvalidations.getIfPresent(orderId) != null);
+    }
+
+    private static int stripe(int orderId) {
+        return Math.floorMod(orderId, INVALIDATION_STRIPES);
+    }
+
+    static final class CachedOrder {
+
+        private final Order order;
+        private final long ttlMillis;
+
+        CachedOrder(Order order, long ttlMillis) {
+            this.order = order;
+            this.ttlMillis = ttlMillis;
+        }
+
+        long getTtlMillis() {
+            return ttlMillis;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.orderproduction.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+// Remove do near-cache os pedidos alterados, removidos ou expirados no Redis, recebidos por keyspace notifications.
+// Os padrões cobrem as chaves dos dois layouts, com e sem a hash tag da partição, e ignoram os índices por status
+// e o outbox.
+// Enquanto a assinatura está caída as notificações se perdem, então o cache inteiro é descartado a cada
+// confirmação de PSUBSCRIBE: na subida do container, na recuperação da assinatura pelo container e na reassinatura
+// feita pelo Lettuce depois de reconectar.
+@Component
+@ConditionalOnProperty(prefix = "order-production.near-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OrderNearCacheInvalidator implements MessageListener, SubscriptionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderNearCacheInvalidator.class);
+    public static final List<Topic> ORDER_KEYSPACE_TOPICS = Arrays.asList(
+            new PatternTopic("__keyspace@*__:order:[0-9]*"),
+            new PatternTopic("__keyspace@*__:order:{*}:*"),
+            new PatternTopic("__keyspace@*__:order:hash:*"));
+
+    private final OrderNearCache nearCache;
+
+    public OrderNearCacheInvalidator(OrderNearCache nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    // Falso quando o near-cache está desligado (por exemplo com Redis Cluster): não há o que invalidar
+    public boolean isNearCacheEnabled() {
+        return nearCache.isEnabled();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String orderId = channel.substring(channel.lastIndexOf(':') + 1);
+        try {
+            nearCache.invalidate(Integer.parseInt(orderId));
+        } catch (NumberFormatException e) {
+            logger.debug("Notificação ignorada para a chave {}", channel);
+        }
+    }
+
+    @Override
+    public void onPatternSubscribed(byte[] pattern, long count) {
+        logger.info("Assinatura de {} (re)estabelecida; near-cache descartado",
+                new String(pattern, StandardCharsets.UTF_8));
+        nearCache.invalidateAll();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.dto.OrderStatusDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO;
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderStatus;
+
+import java.time.Duration;
+import java.util.List;
+
+// Armazenamento dos pedidos usado por OrderService, escolhido por order-production.repository: RedisOrderRepository
+// (padrão) ou InMemoryOrderRepository. Cada implementação mantém o pedido, o índice por status em ordem de
+// recebimento e o outbox de pedidos atualizados, e expira o pedido ORDER_TTL após o recebimento.
+public interface OrderRepository {
+
+    Duration ORDER_TTL = Duration.ofMinutes(30);
+
+    // Grava os pedidos que ainda não existem; um valor por pedido, na ordem recebida: true quando gravado e false
+    // quando o pedido já existia (mensagem reentregue ou duplicada) e foi mantido como estava
+    boolean[] insertAll(List<Order> orders, long receivedAt);
+
+    // Transição atômica de status, com o registro no outbox e a notificação do push. Devolve NOT_FOUND (sem pedido),
+    // UPDATED, UNCHANGED ou INVALID_TRANSITION, com o pedido após a operação
+    OrderStatusUpdateResultDTO updateStatus(int orderId, OrderStatus newStatus);
+
+    // Um resultado por atualização, na ordem recebida; atualizações sem status voltam como INVALID_TRANSITION e as
+    // que falharam como FAILED, sem interromper as demais
+    List<OrderStatusUpdateResultDTO> updateStatuses(List<OrderStatusDTO> updates);
+
+    // Pedido e tempo de vida restante, para o near-cache expirar junto com o pedido; null quando não existe
+    OrderNearCache.CachedOrder find(int orderId);
+
+    // Pedidos existentes entre os informados, na ordem dos ids; os inexistentes são omitidos
+    List<Order> findAll(List<Integer> orderIds);
+
+    // Status sem ler o details; null quando o pedido não existe. Só usado quando readsStatusOnly é true
+    OrderStatus findStatus(int orderId);
+
+    // false quando ler só o status custa o mesmo que ler o pedido: OrderService usa então getOrder e o near-cache
+    boolean readsStatusOnly();
+
+    // Preenche a página com as entradas do índice do status depois do cursor, em ordem de recebimento
+    void readStatusIndexPage(OrderStatus status, StatusIndexPage page);
+
+    // Pedidos no índice do status dentro do TTL
+    double countActiveOrders(OrderStatus status);
+}
@@ -1,78 +1,276 @@
 package com.example.orderproduction.service;
 
-import com.example.orderproduction.config.RabbitMQConfig;
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.dto.OrderStatusDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO.Result;
 import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderPage;
 import com.example.orderproduction.model.OrderStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 
 @Service
 public class OrderService {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
-    private static final String ORDER_KEY_PREFIX = "order:";
 
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final RabbitTemplate rabbitTemplate;
+    private final OrderRepository orderRepository;
+    private final OrderProductionProperties properties;
+    private final OrderNearCache nearCache;
+    private final ProductionAnalytics analytics;
+    private final MeterRegistry meterRegistry;
+    private final Timer processTimer;
+    private final Timer updateStatusTimer;
+    private final Timer bulkUpdateStatusTimer;
+    private final Timer getTimer;
+    private final Timer getStatusTimer;
+    private final Timer getManyTimer;
+    private final Timer getByStatusTimer;
+    private final Counter duplicateCounter;
 
-    public OrderService(RedisTemplate<String, Object> redisTemplate, RabbitTemplate rabbitTemplate) {
-        this.redisTemplate = redisTemplate;
-        this.rabbitTemplate = rabbitTemplate;
+    public OrderService(OrderRepository orderRepository, OrderProductionProperties properties,
+                        OrderNearCache nearCache, ProductionAnalytics analytics, MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.properties = properties;
+        this.nearCache = nearCache;
+        this.analytics = analytics;
+        this.meterRegistry = meterRegistry;
+        // Tempo de cada operação no repositório; no Redis a latência por comando fica em lettuce.command.completion
+        this.processTimer = redisTimer(meterRegistry, "process");
+        this.updateStatusTimer = redisTimer(meterRegistry, "update-status");
+        this.bulkUpdateStatusTimer = redisTimer(meterRegistry, "update-status-bulk");
+        this.getTimer = redisTimer(meterRegistry, "get");
+        this.getStatusTimer = redisTimer(meterRegistry, "get-status");
+        this.getManyTimer = redisTimer(meterRegistry, "get-many");
+        this.getByStatusTimer = redisTimer(meterRegistry, "get-by-status");
+        this.duplicateCounter = Counter.builder("orders.ingest.duplicates")
+                .description("Pedidos recebidos da fila que já existiam e foram ignorados")
+                .register(meterRegistry);
+        for (OrderStatus status : OrderStatus.values()) {
+            Gauge.builder("orders.active", orderRepository, repository -> repository.countActiveOrders(status))
+                    .description("Pedidos no índice do status dentro do TTL")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+        }
     }
 
     public void processOrder(Order order) {
-        if (order.getStatus() == null) {
-            order.setStatus(OrderStatus.RECEIVED);
+        processOrders(Collections.singletonList(order));
+    }
+
+    // A gravação é idempotente: pedidos que já existem (mensagem reentregue ou duplicada) são ignorados sem
+    // sobrescrever o status nem o índice
+    public void processOrders(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        for (Order order : orders) {
+            if (order.getStatus() == null) {
+                order.setStatus(OrderStatus.RECEIVED);
+            }
         }
 
-        String key = ORDER_KEY_PREFIX + order.getOrderId();
-        redisTemplate.opsForValue().set(key, order, 30, TimeUnit.MINUTES);
+        long receivedAt = System.currentTimeMillis();
+        boolean[] written = processTimer.record(() -> orderRepository.insertAll(orders, receivedAt));
+        int duplicates = 0;
+        int[] entered = new int[OrderStatus.values().length];
+        for (int i = 0; i < orders.size(); i++) {
+            if (written[i]) {
+                nearCache.invalidate(orders.get(i).getOrderId());
+                entered[orders.get(i).getStatus().ordinal()]++;
+            } else {
+                duplicates++;
+            }
+        }
+        for (OrderStatus status : OrderStatus.values()) {
+            analytics.recordEntered(status, entered[status.ordinal()], receivedAt);
+        }
+        if (duplicates > 0) {
+            duplicateCounter.increment(duplicates);
+            logger.info("{} de {} pedidos do lote já existiam e foram ignorados", duplicates, orders.size());
+        }
     }
 
     public Order updateOrderStatus(int orderId, OrderStatus newStatus) {
+        if (newStatus == null) {
+            throw new IllegalArgumentException("Status ausente na atualização do pedido " + orderId);
+        }
 
-        String key = ORDER_KEY_PREFIX + orderId;
-        Order order = (Order) redisTemplate.opsForValue().get(key);
-        if (order == null) {
+        OrderStatusUpdateResultDTO result = updateStatusTimer.record(() -> orderRepository.updateStatus(orderId, newStatus));
+        countStatusUpdate(result);
+        if (result.getResult() == Result.NOT_FOUND) {
             throw new RuntimeException("Pedido não encontrado com id: " + orderId);
         }
-        order.setStatus(newStatus);
-        redisTemplate.opsForValue().set(key, order);
+        if (result.getResult() == Result.INVALID_TRANSITION) {
+            throw new InvalidStatusTransitionException(orderId, newStatus);
+        }
+        Order order = result.getOrder();
+        if (result.getResult() == Result.UNCHANGED) {
+            logger.info("Pedido {} já está com o status {}", orderId, newStatus);
+            return order;
+        }
 
-        Map<String, Object> updatedOrderMessage = new HashMap<>();
-        updatedOrderMessage.put("orderId", order.getOrderId());
-        updatedOrderMessage.put("orderStatus", order.getStatus());
+        logger.info("Pedido {} atualizado para o status {} e registrado no outbox de pedidos atualizados",
+                order.getOrderId(), order.getStatus());
+        return order;
+    }
 
-        rabbitTemplate.convertAndSend(RabbitMQConfig.UPDATED_ORDER_EXCHANGE,
-                RabbitMQConfig.UPDATED_ORDER_ROUTING_KEY, updatedOrderMessage);
+    // Várias mudanças de status em uma ida ao repositório, cada pedido com o próprio resultado. Os eventos seguem
+    // pelo outbox, publicado em lote com publisher confirms
+    public List<OrderStatusUpdateResultDTO> updateOrderStatuses(List<OrderStatusDTO> updates) {
+        checkBulkSize(properties, updates);
+        List<OrderStatusUpdateResultDTO> results =
+                bulkUpdateStatusTimer.record(() -> orderRepository.updateStatuses(updates));
 
-        logger.info("Enviado o pedido {} para fila de pedidos atualizados com o status {}", order.getOrderId(), order.getStatus());
-        return order;
+        int updated = 0;
+        for (int i = 0; i < updates.size(); i++) {
+            OrderStatusUpdateResultDTO result = results.get(i);
+            if (updates.get(i).getStatus() != null && result.getResult() != Result.FAILED) {
+                countStatusUpdate(result);
+                updated += result.getResult() == Result.UPDATED ? 1 : 0;
+            }
+        }
+        logger.info("{} de {} pedidos do lote atualizados e registrados no outbox de pedidos atualizados",
+                updated, updates.size());
+        return results;
+    }
+
+    static void checkBulkSize(OrderProductionProperties properties, List<OrderStatusDTO> updates) {
+        int maxSize = properties.getRedis().getBulkUpdateMaxSize();
+        if (updates == null || updates.isEmpty() || updates.size() > maxSize) {
+            throw new IllegalArgumentException("Informe de 1 a " + maxSize + " atualizações de status por requisição");
+        }
+    }
+
+    static void checkGetManySize(OrderProductionProperties properties, Collection<Integer> orderIds) {
+        int maxSize = properties.getRedis().getGetManyMaxSize();
+        if (orderIds.size() > maxSize) {
+            throw new IllegalArgumentException("Informe no máximo " + maxSize + " ids por requisição");
+        }
+    }
+
+    static Result statusUpdateResult(long outcome) {
+        return outcome == 1 ? Result.UPDATED : outcome == 2 ? Result.UNCHANGED
+                : outcome == 3 ? Result.INVALID_TRANSITION : Result.NOT_FOUND;
     }
 
+    // Resultado da atualização nas métricas e na análise de produção; uma alteração invalida o near-cache local
+    private void countStatusUpdate(OrderStatusUpdateResultDTO result) {
+        countStatusUpdate(meterRegistry, result.getResult());
+        if (result.getResult() == Result.NOT_FOUND) {
+            countNotFound(meterRegistry, "update-status");
+        }
+        if (result.getResult() == Result.UPDATED) {
+            // A notificação do Redis chega de forma assíncrona; a invalidação local garante a leitura da própria escrita
+            nearCache.invalidate(result.getOrderId());
+            analytics.recordTransition(result);
+        }
+    }
 
     public Order getOrder(int orderId) {
-        String key = ORDER_KEY_PREFIX + orderId;
-        return (Order) redisTemplate.opsForValue().get(key);
-    }
-
-    public List<Order> getOrdersByStatus(OrderStatus status) {
-        Set<String> keys = redisTemplate.keys(ORDER_KEY_PREFIX + "*");
-        List<Order> orders = new ArrayList<>();
-        if (keys != null && !keys.isEmpty()) {
-            for (String key : keys) {
-                Order order = (Order) redisTemplate.opsForValue().get(key);
-                if (order != null && order.getStatus() == status) {
-                    orders.add(order);
+        Order order = nearCache.get(orderId, id -> getTimer.record(() -> orderRepository.find(id)));
+        if (order == null) {
+            countNotFound(meterRegistry, "get");
+        }
+        return order;
+    }
+
+    // Leitura apenas do status: no layout em hash o details do pedido não é transferido
+    public OrderStatus getOrderStatus(int orderId) {
+        if (orderRepository.readsStatusOnly()) {
+            OrderStatus status = getStatusTimer.record(() -> orderRepository.findStatus(orderId));
+            if (status == null) {
+                countNotFound(meterRegistry, "get-status");
+            }
+            return status;
+        }
+        Order order = getOrder(orderId);
+        return order == null ? null : order.getStatus();
+    }
+
+    public List<Order> getOrders(Collection<Integer> orderIds) {
+        checkGetManySize(properties, orderIds);
+        return getManyTimer.record(() -> orderRepository.findAll(new ArrayList<>(new LinkedHashSet<>(orderIds))));
+    }
+
+    // Página da listagem por status, em ordem de recebimento. Só o índice da página é lido aqui (get-by-status);
+    // os pedidos são lidos em blocos de read-chunk-size (get-many) à medida que o iterador avança, ou seja,
+    // enquanto a resposta é escrita
+    public OrderPage<Iterator<Order>> getOrdersByStatus(OrderStatus status, Integer limit, String cursor) {
+        StatusIndexPage page = new StatusIndexPage(cursor, pageLimit(properties, limit));
+        getByStatusTimer.record(() -> orderRepository.readStatusIndexPage(status, page));
+        return new OrderPage<>(new ChunkedOrderIterator(page.orderIds(), status), page.nextCursor());
+    }
+
+    // limit ausente usa pagination.default-limit; o valor fica entre 1 e pagination.max-limit
+    static int pageLimit(OrderProductionProperties properties, Integer limit) {
+        OrderProductionProperties.Pagination pagination = properties.getPagination();
+        int requested = limit == null ? pagination.getDefaultLimit() : limit;
+        return Math.max(1, Math.min(requested, pagination.getMaxLimit()));
+    }
+
+    static Timer redisTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("orders.redis")
+                .description("Operações de OrderService no repositório de pedidos")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    static void countStatusUpdate(MeterRegistry meterRegistry, Result result) {
+        String name = result == Result.UPDATED ? "updated" : result == Result.UNCHANGED ? "unchanged"
+                : result == Result.INVALID_TRANSITION ? "invalid" : "not-found";
+        Counter.builder("orders.status.updates").tag("outcome", name).register(meterRegistry).increment();
+    }
+
+    static void countNotFound(MeterRegistry meterRegistry, String operation) {
+        Counter.builder("orders.not.found").tag("operation", operation).register(meterRegistry).increment();
+    }
+
+    // Lê os pedidos da página em blocos de read-chunk-size e descarta os que já saíram do status: o índice é
+    // atualizado junto com o pedido, mas a página foi lida antes
+    private final class ChunkedOrderIterator implements Iterator<Order> {
+
+        private final List<Integer> orderIds;
+        private final OrderStatus status;
+        private int nextChunk;
+        private Iterator<Order> current = Collections.emptyIterator();
+
+        private ChunkedOrderIterator(List<Integer> orderIds, OrderStatus status) {
+            this.orderIds = orderIds;
+            this.status = status;
+        }
+
+        @Override
+        public boolean hasNext() {
+            int chunkSize = Math.max(1, properties.getRedis().getReadChunkSize());
+            while (!current.hasNext() && nextChunk < orderIds.size()) {
+                List<Integer> chunk = orderIds.subList(nextChunk, Math.min(nextChunk + chunkSize, orderIds.size()));
+                nextChunk += chunk.size();
+                List<Order> orders = new ArrayList<>(chunk.size());
+                for (Order order : getManyTimer.record(() -> orderRepository.findAll(chunk))) {
+                    if (order.getStatus() == status) {
+                        orders.add(order);
+                    }
                 }
+                current = orders.iterator();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Order next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
+            return current.next();
         }
-        return orders;
     }
 }
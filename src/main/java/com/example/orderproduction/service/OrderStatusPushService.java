@@ -0,0 +1,271 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.config.ReactiveWebConfig;
+import com.example.orderproduction.config.OrderProductionProperties.OverflowPolicy;
+import com.example.orderproduction.dto.OrderStatusDTO;
+import com.example.orderproduction.model.OrderStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Envia por SSE as mudanças de status publicadas pelo script de updateOrderStatus no canal order:status-changes
+// (ou pelo InMemoryOrderRepository, como eventos da aplicação).
+// Todas as instâncias recebem o canal e entregam apenas aos próprios assinantes. Cada assinante tem um buffer
+// limitado e é atendido por uma thread de envio por vez. Um envio parado há mais de write-timeout (cliente que não lê
+// o socket) desconecta o assinante e a thread presa na escrita é substituída, então um cliente lento não atrasa os
+// demais.
+// No profile reactive o stream é servido por ReactiveOrderStatusPushService.
+@Component
+@Profile("!" + ReactiveWebConfig.PROFILE)
+public class OrderStatusPushService implements MessageListener, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusPushService.class);
+    public static final Topic STATUS_CHANGES_TOPIC = new ChannelTopic(RedisOrderRepository.STATUS_CHANGES_CHANNEL);
+    static final String EVENT_NAME = "order-status";
+    private static final Object HEARTBEAT = new Object();
+    private static final long IDLE = Long.MIN_VALUE;
+    private static final long STALLED = Long.MAX_VALUE;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final OrderProductionProperties.Push config;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolExecutor sender;
+    private final Counter droppedEvents;
+    private final Counter stalledSends;
+
+    public OrderStatusPushService(OrderProductionProperties properties, ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry) {
+        this.config = properties.getPush();
+        this.objectMapper = objectMapper;
+        this.sender = new ThreadPoolExecutor(config.getSenderThreads(), config.getSenderThreads(), 0L,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new CustomizableThreadFactory("order-push-"));
+        this.droppedEvents = meterRegistry.counter("orders.push.dropped");
+        this.stalledSends = meterRegistry.counter("orders.push.stalled");
+        meterRegistry.gaugeCollectionSize("orders.push.subscribers", Tags.empty(), subscribers);
+    }
+
+    // Filtros nulos recebem todas as mudanças; com os dois informados o evento precisa atender a ambos
+    public SseEmitter subscribe(OrderStatus status, Integer orderId) {
+        SseEmitter emitter = newEmitter();
+        Subscriber subscriber = new Subscriber(emitter, status, orderId);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(subscriber));
+        return emitter;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        OrderStatusDTO change;
+        try {
+            change = objectMapper.readValue(message.getBody(), OrderStatusDTO.class);
+        } catch (IOException e) {
+            logger.warn("Mudança de status ignorada, conteúdo inválido: {}", e.getMessage());
+            return;
+        }
+        onStatusChange(change);
+    }
+
+    // Com order-production.repository=memory as mudanças chegam como eventos da aplicação, sem o canal do Redis
+    @EventListener
+    public void onStatusChange(OrderStatusDTO change) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.accepts(change)) {
+                subscriber.offer(change);
+            }
+        }
+    }
+
+    // Comentário periódico para manter a conexão aberta em proxies e detectar clientes que já desconectaram
+    @Scheduled(fixedDelayString = "${order-production.push.heartbeat-interval:15000}")
+    public void sendHeartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offerHeartbeat();
+        }
+    }
+
+    // A escrita bloqueante do Tomcat ignora interrupção; o assinante é desconectado e a thread presa só volta ao pool
+    // quando a escrita terminar ou falhar
+    @Scheduled(fixedDelayString = "${order-production.push.stall-check-interval:1000}")
+    public void disconnectStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.abandonStalledSend(now);
+        }
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(config.getTimeout().toMillis());
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    // Os emitters são completados pelas threads de envio, que não ficam esperando um envio preso terminar
+    @Override
+    public void destroy() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        sender.shutdown();
+    }
+
+    // Abre (delta 1) ou devolve (delta -1) a thread que substitui uma presa em um envio abandonado
+    private synchronized void resizeSender(int delta) {
+        int size = sender.getMaximumPoolSize() + delta;
+        if (delta > 0) {
+            sender.setMaximumPoolSize(size);
+            sender.setCorePoolSize(size);
+        } else {
+            sender.setCorePoolSize(size);
+            sender.setMaximumPoolSize(size);
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final OrderStatus status;
+        private final Integer orderId;
+        private final BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(config.getBufferSize());
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // Início (nanoTime) do envio em andamento, IDLE sem envio ou STALLED depois que o envio foi abandonado
+        private final AtomicLong sendStartedAt = new AtomicLong(IDLE);
+
+        private Subscriber(SseEmitter emitter, OrderStatus status, Integer orderId) {
+            this.emitter = emitter;
+            this.status = status;
+            this.orderId = orderId;
+        }
+
+        private boolean accepts(OrderStatusDTO change) {
+            return (status == null || status == change.getStatus())
+                    && (orderId == null || orderId == change.getOrderId());
+        }
+
+        private void offer(OrderStatusDTO event) {
+            if (!buffer.offer(event)) {
+                droppedEvents.increment();
+                if (config.getOverflowPolicy() == OverflowPolicy.DISCONNECT) {
+                    logger.warn("Assinante do stream de status desconectado por não acompanhar os eventos");
+                    close();
+                    return;
+                }
+                buffer.poll();
+                buffer.offer(event);
+            }
+            scheduleDrain();
+        }
+
+        private void offerHeartbeat() {
+            if (buffer.offer(HEARTBEAT)) {
+                scheduleDrain();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Serviço encerrando: destroy já fechou os assinantes
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Object next;
+                while (!closed.get() && (next = buffer.poll()) != null) {
+                    send(next);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado ou emitter já encerrado
+                close();
+            } finally {
+                draining.set(false);
+            }
+            // complete e send sincronizam no emitter: completar aqui não espera por um envio de outra thread
+            if (closed.get()) {
+                emitter.complete();
+                return;
+            }
+            // Um evento pode ter chegado entre o último poll e a liberação do flag
+            if (!buffer.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private void send(Object next) throws IOException {
+            long started = System.nanoTime();
+            sendStartedAt.set(started);
+            try {
+                emitter.send(next == HEARTBEAT
+                        ? SseEmitter.event().comment("heartbeat")
+                        : SseEmitter.event().name(EVENT_NAME).data(next, MediaType.APPLICATION_JSON));
+            } finally {
+                if (!sendStartedAt.compareAndSet(started, IDLE)) {
+                    // Envio abandonado por abandonStalledSend, que já abriu uma thread no lugar desta
+                    resizeSender(-1);
+                }
+            }
+        }
+
+        private void abandonStalledSend(long now) {
+            long started = sendStartedAt.get();
+            if (started == IDLE || started == STALLED || now - started < config.getWriteTimeout().toNanos()
+                    || !sendStartedAt.compareAndSet(started, STALLED)) {
+                return;
+            }
+            resizeSender(1);
+            stalledSends.increment();
+            logger.warn("Assinante do stream de status desconectado: envio parado há mais de {}",
+                    config.getWriteTimeout());
+            close();
+        }
+
+        // Quem completa o emitter é a thread de envio, depois do envio em andamento
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                subscribers.remove(this);
+                buffer.clear();
+                scheduleDrain();
+            }
+        }
+    }
+}
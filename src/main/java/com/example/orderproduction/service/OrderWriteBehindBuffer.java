@@ -0,0 +1,195 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.model.Order;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// Write-behind dos pedidos confirmados entre OrderEventListener e o repositório. Os lotes entregues pelos
+// consumidores entram em uma fila limitada e uma única thread os grava juntos, em uma chamada de processOrders,
+// quando a gravação atinge flush-size pedidos ou o lote mais antigo espera flush-interval. Pedidos repetidos na
+// mesma gravação são enviados uma vez só: a ingestão grava apenas o primeiro. O listener aguarda a gravação do seu
+// lote antes de retornar, então o ack ao broker e o caminho de falha (espera e DLQ) continuam os do container.
+// Se a gravação conjunta falha, cada lote é gravado de novo sozinho, e só os que falham de novo voltam com erro ao
+// seu listener. Desabilitado, write grava o lote direto na thread do listener.
+@Component
+public class OrderWriteBehindBuffer implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderWriteBehindBuffer.class);
+
+    private final OrderService orderService;
+    private final OrderProductionProperties.WriteBehind config;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final Semaphore pendingOrders;
+    private final ExecutorService flusher;
+    private final DistributionSummary flushSizeSummary;
+    private final Counter coalescedCounter;
+    private final Counter isolatedRetryCounter;
+    private volatile boolean running = true;
+
+    public OrderWriteBehindBuffer(OrderService orderService, OrderProductionProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.orderService = orderService;
+        this.config = properties.getWriteBehind();
+        this.pendingOrders = new Semaphore(config.getMaxPending());
+        this.flushSizeSummary = DistributionSummary.builder("orders.write-behind.flush.size")
+                .description("Pedidos gravados por flush do write-behind")
+                .register(meterRegistry);
+        this.coalescedCounter = meterRegistry.counter("orders.write-behind.coalesced");
+        this.isolatedRetryCounter = Counter.builder("orders.write-behind.isolated.retries")
+                .description("Lotes gravados de novo sozinhos depois de uma falha na gravação conjunta")
+                .register(meterRegistry);
+        if (config.isEnabled()) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("order-write-behind-");
+            threadFactory.setDaemon(true);
+            this.flusher = Executors.newSingleThreadExecutor(threadFactory);
+            this.flusher.execute(this::flushLoop);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    // Bloqueia até a gravação do lote; uma falha na gravação é relançada para o listener
+    public void write(List<Order> orders) {
+        if (flusher == null) {
+            orderService.processOrders(orders);
+            return;
+        }
+        if (orders.isEmpty()) {
+            return;
+        }
+        int permits = Math.min(orders.size(), config.getMaxPending());
+        pendingOrders.acquireUninterruptibly(permits);
+        PendingWrite write = new PendingWrite(orders, permits);
+        queue.add(write);
+        if (!running) {
+            failQueued();
+        }
+        try {
+            write.future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private void flushLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (running) {
+            try {
+                PendingWrite first = queue.take();
+                batch.add(first);
+                int size = first.orders.size();
+                long deadline = first.enqueuedAt + config.getFlushInterval().toNanos();
+                while (size < config.getFlushSize()) {
+                    PendingWrite next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    size += next.orders.size();
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(batch, new IllegalStateException("Write-behind de pedidos encerrado"));
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        Map<Integer, Order> coalesced = new LinkedHashMap<>();
+        int received = 0;
+        for (PendingWrite write : batch) {
+            for (Order order : write.orders) {
+                coalesced.putIfAbsent(order.getOrderId(), order);
+            }
+            received += write.orders.size();
+        }
+        try {
+            orderService.processOrders(new ArrayList<>(coalesced.values()));
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao gravar {} pedidos do write-behind: {}", coalesced.size(), e.getMessage());
+            if (batch.size() == 1) {
+                fail(batch, e);
+            } else {
+                flushEach(batch);
+            }
+            return;
+        }
+        flushSizeSummary.record(coalesced.size());
+        if (received > coalesced.size()) {
+            coalescedCounter.increment(received - coalesced.size());
+        }
+        for (PendingWrite write : batch) {
+            pendingOrders.release(write.permits);
+            write.future.complete(null);
+        }
+    }
+
+    // A ingestão ignora pedidos já gravados, então regravar os lotes que entraram antes da falha não duplica nada
+    private void flushEach(List<PendingWrite> batch) {
+        isolatedRetryCounter.increment(batch.size());
+        for (PendingWrite write : batch) {
+            try {
+                orderService.processOrders(write.orders);
+            } catch (RuntimeException e) {
+                pendingOrders.release(write.permits);
+                write.future.completeExceptionally(e);
+                continue;
+            }
+            flushSizeSummary.record(write.orders.size());
+            pendingOrders.release(write.permits);
+            write.future.complete(null);
+        }
+    }
+
+    private void fail(List<PendingWrite> batch, RuntimeException cause) {
+        for (PendingWrite write : batch) {
+            pendingOrders.release(write.permits);
+            write.future.completeExceptionally(cause);
+        }
+    }
+
+    // Os containers do RabbitMQ param antes, então só sobram lotes de consumidores que não terminaram a tempo; eles
+    // falham e seguem o caminho de falha do listener
+    @Override
+    public void destroy() {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.shutdownNow();
+        failQueued();
+    }
+
+    private void failQueued() {
+        List<PendingWrite> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        fail(remaining, new IllegalStateException("Write-behind de pedidos encerrado"));
+    }
+
+    private static final class PendingWrite {
+
+        private final List<Order> orders;
+        private final int permits;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingWrite(List<Order> orders, int permits) {
+            this.orders = orders;
+            this.permits = permits;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO.Result;
+import com.example.orderproduction.dto.ProductionAnalyticsDTO;
+import com.example.orderproduction.model.OrderStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+// Análise de produção: pedidos que entraram em cada status e tempo que ficaram no status anterior, agregados em
+// buckets de analytics.bucket em um anel que cobre analytics.retention. Cada bucket guarda um LatencyHistogram por
+// status; a consulta de uma janela soma os buckets dela, sem ler pedidos. O horário de entrada no status fica no
+// repositório, então o tempo é medido mesmo quando o pedido chegou por outra instância.
+// Cada instância agrega as transições que executou e, com os pedidos no Redis, soma periodicamente o que acumulou
+// desde o último envio aos hashes order:analytics:<bucket>; a consulta lê esses hashes e mostra todas as instâncias,
+// com atraso de até analytics.flush-interval. Sem Redis (pedidos em memória) a instância é única e a consulta lê o anel.
+@Component
+public class ProductionAnalytics {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductionAnalytics.class);
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final String ENTERED_FIELD = "entered:";
+    private static final String TIME_FIELD = "time:";
+
+    private final long bucketMillis;
+    private final Bucket[] buckets;
+    private final LongSupplier clock;
+    private final Timer[] statusTimers = new Timer[STATUSES.length];
+    // Nulo com os pedidos em memória: a análise fica só no anel local
+    private final RedisOrderRepository redisRepository;
+    private final Duration sharedTtl;
+
+    @Autowired
+    public ProductionAnalytics(OrderProductionProperties properties, ObjectProvider<RedisOrderRepository> redisRepository,
+                               MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::currentTimeMillis, redisRepository.getIfAvailable());
+    }
+
+    public ProductionAnalytics(OrderProductionProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::currentTimeMillis, null);
+    }
+
+    ProductionAnalytics(OrderProductionProperties properties, MeterRegistry meterRegistry, LongSupplier clock,
+                        RedisOrderRepository redisRepository) {
+        OrderProductionProperties.Analytics analytics = properties.getAnalytics();
+        this.redisRepository = redisRepository;
+        // Um bucket a mais: o mais antigo da janela ainda é lido enquanto o atual recebe contagens
+        this.sharedTtl = analytics.getRetention().plus(analytics.getBucket());
+        this.bucketMillis = Math.max(1, analytics.getBucket().toMillis());
+        int bucketCount = (int) Math.max(1, analytics.getRetention().toMillis() / bucketMillis);
+        this.buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.clock = clock;
+        for (OrderStatus status : STATUSES) {
+            statusTimers[status.ordinal()] = Timer.builder("orders.status.time")
+                    .description("Tempo que o pedido ficou no status, medido quando ele passa para o seguinte")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    // Pedidos gravados pela ingestão entram no status com que chegaram
+    public void recordEntered(OrderStatus status, int count, long at) {
+        Bucket bucket = bucket(at);
+        if (bucket != null && count > 0) {
+            bucket.entered.addAndGet(status.ordinal(), count);
+        }
+    }
+
+    // Só atualizações efetivas; sem o horário de entrada (pedido gravado antes da análise) conta apenas a entrada
+    public void recordTransition(OrderStatusUpdateResultDTO result) {
+        if (result.getResult() != Result.UPDATED || result.getOrder() == null) {
+            return;
+        }
+        Bucket bucket = bucket(clock.getAsLong());
+        if (bucket == null) {
+            return;
+        }
+        bucket.entered.incrementAndGet(result.getOrder().getStatus().ordinal());
+        Long millis = result.getPreviousStatusMillis();
+        if (result.getPreviousStatus() != null && millis != null) {
+            int status = result.getPreviousStatus().ordinal();
+            bucket.timeCounts.incrementAndGet(status * LatencyHistogram.BUCKETS + LatencyHistogram.bucketOf(millis));
+            statusTimers[status].record(millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Buckets que cobrem a janela (no máximo a retenção), do mais antigo ao atual. Custa O(buckets), independente do
+    // número de pedidos; com Redis, um HGETALL por bucket em um único pipeline
+    public ProductionAnalyticsDTO snapshot(Duration window) {
+        long requested = (window.toMillis() + bucketMillis - 1) / bucketMillis;
+        int count = (int) Math.max(1, Math.min(requested, buckets.length));
+        long current = bucketStart(clock.getAsLong());
+        List<Long> starts = new ArrayList<>(count);
+        for (int i = count - 1; i >= 0; i--) {
+            starts.add(current - i * bucketMillis);
+        }
+        List<Map<String, Long>> shared = redisRepository == null ? null : redisRepository.findAnalyticsCounts(starts);
+        List<ProductionAnalyticsDTO.ThroughputBucket> throughput = new ArrayList<>(count);
+        long[][] timeCounts = new long[STATUSES.length][LatencyHistogram.BUCKETS];
+        for (int i = 0; i < count; i++) {
+            long start = starts.get(i);
+            Map<OrderStatus, Long> entered = new EnumMap<>(OrderStatus.class);
+            if (shared != null) {
+                addShared(shared.get(i), entered, timeCounts);
+            } else {
+                addLocal(start, entered, timeCounts);
+            }
+            throughput.add(new ProductionAnalyticsDTO.ThroughputBucket(start, entered));
+        }
+
+        // O último status não é deixado, então não tem tempo de permanência
+        Map<OrderStatus, ProductionAnalyticsDTO.StatusTime> timeInStatus = new EnumMap<>(OrderStatus.class);
+        for (int s = 0; s < STATUSES.length - 1; s++) {
+            long total = 0;
+            for (long value : timeCounts[s]) {
+                total += value;
+            }
+            timeInStatus.put(STATUSES[s], new ProductionAnalyticsDTO.StatusTime(total,
+                    LatencyHistogram.percentile(timeCounts[s], total, 0.50),
+                    LatencyHistogram.percentile(timeCounts[s], total, 0.95),
+                    LatencyHistogram.percentile(timeCounts[s], total, 0.99)));
+        }
+        return new ProductionAnalyticsDTO(current - (count - 1) * bucketMillis, current + bucketMillis, bucketMillis,
+                throughput, timeInStatus);
+    }
+
+    private void addLocal(long start, Map<OrderStatus, Long> entered, long[][] timeCounts) {
+        Bucket bucket = buckets[slot(start)];
+        boolean live = bucket.start == start;
+        for (OrderStatus status : STATUSES) {
+            entered.put(status, live ? bucket.entered.get(status.ordinal()) : 0L);
+            int offset = status.ordinal() * LatencyHistogram.BUCKETS;
+            for (int h = 0; live && h < LatencyHistogram.BUCKETS; h++) {
+                timeCounts[status.ordinal()][h] += bucket.timeCounts.get(offset + h);
+            }
+        }
+    }
+
+    // Campos entered:<status> e time:<status>:<faixa do histograma>
+    private static void addShared(Map<String, Long> fields, Map<OrderStatus, Long> entered, long[][] timeCounts) {
+        for (OrderStatus status : STATUSES) {
+            entered.put(status, fields.getOrDefault(ENTERED_FIELD + status.name(), 0L));
+        }
+        for (Map.Entry<String, Long> field : fields.entrySet()) {
+            if (!field.getKey().startsWith(TIME_FIELD)) {
+                continue;
+            }
+            int separator = field.getKey().lastIndexOf(':');
+            OrderStatus status = OrderStatus.valueOf(field.getKey().substring(TIME_FIELD.length(), separator));
+            timeCounts[status.ordinal()][Integer.parseInt(field.getKey().substring(separator + 1))] += field.getValue();
+        }
+    }
+
+    // Soma no Redis o que cada bucket acumulou desde o último envio. Uma falha mantém a diferença para o próximo
+    // ciclo; um bucket só é reaproveitado depois da retenção inteira, muito depois do envio das suas contagens
+    @Scheduled(fixedDelayString = "${order-production.analytics.flush-interval:5000}")
+    public void flush() {
+        if (redisRepository == null) {
+            return;
+        }
+        Map<Long, Map<String, Long>> counts = new HashMap<>();
+        List<Flushed> sent = new ArrayList<>();
+        for (Bucket bucket : buckets) {
+            long start = bucket.start;
+            if (start == Long.MIN_VALUE) {
+                continue;
+            }
+            long[] entered = snapshot(bucket.entered);
+            long[] times = snapshot(bucket.timeCounts);
+            Map<String, Long> fields = new HashMap<>();
+            for (OrderStatus status : STATUSES) {
+                long delta = entered[status.ordinal()] - bucket.flushedEntered[status.ordinal()];
+                if (delta != 0) {
+                    fields.put(ENTERED_FIELD + status.name(), delta);
+                }
+            }
+            for (int i = 0; i < times.length; i++) {
+                long delta = times[i] - bucket.flushedTimeCounts[i];
+                if (delta != 0) {
+                    fields.put(TIME_FIELD + STATUSES[i / LatencyHistogram.BUCKETS].name() + ":"
+                            + i % LatencyHistogram.BUCKETS, delta);
+                }
+            }
+            if (!fields.isEmpty() && bucket.start == start) {
+                counts.put(start, fields);
+                sent.add(new Flushed(bucket, start, entered, times));
+            }
+        }
+        if (counts.isEmpty()) {
+            return;
+        }
+        try {
+            redisRepository.addAnalyticsCounts(counts, sharedTtl);
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao enviar a análise de produção ao Redis; nova tentativa no próximo ciclo: {}",
+                    e.getMessage());
+            return;
+        }
+        for (Flushed flushed : sent) {
+            if (flushed.bucket.start == flushed.start) {
+                flushed.bucket.flushedEntered = flushed.entered;
+                flushed.bucket.flushedTimeCounts = flushed.timeCounts;
+            }
+        }
+    }
+
+    private static long[] snapshot(AtomicLongArray counters) {
+        long[] values = new long[counters.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = counters.get(i);
+        }
+        return values;
+    }
+
+    // Bucket do horário, zerado ao ser reaproveitado por um intervalo novo; null para horários já fora do anel
+    private Bucket bucket(long at) {
+        long start = bucketStart(at);
+        Bucket bucket = buckets[slot(start)];
+        if (bucket.start != start) {
+            synchronized (bucket) {
+                if (bucket.start > start) {
+                    return null;
+                }
+                if (bucket.start != start) {
+                    bucket.reset(start);
+                }
+            }
+        }
+        return bucket;
+    }
+
+    private long bucketStart(long at) {
+        return at - Math.floorMod(at, bucketMillis);
+    }
+
+    private int slot(long start) {
+        return (int) Math.floorMod(start / bucketMillis, (long) buckets.length);
+    }
+
+    // Contadores de um intervalo; uma gravação concorrente com o reaproveitamento do bucket pode cair no intervalo
+    // novo, o que só acontece com uma thread parada por toda a retenção
+    private static final class Bucket {
+
+        private volatile long start = Long.MIN_VALUE;
+        private final AtomicLongArray entered = new AtomicLongArray(STATUSES.length);
+        private final AtomicLongArray timeCounts = new AtomicLongArray(STATUSES.length * LatencyHistogram.BUCKETS);
+        // Contagens já somadas no Redis, alteradas só por flush
+        private volatile long[] flushedEntered = new long[STATUSES.length];
+        private volatile long[] flushedTimeCounts = new long[STATUSES.length * LatencyHistogram.BUCKETS];
+
+        private void reset(long newStart) {
+            for (int i = 0; i < entered.length(); i++) {
+                entered.set(i, 0);
+            }
+            for (int i = 0; i < timeCounts.length(); i++) {
+                timeCounts.set(i, 0);
+            }
+            flushedEntered = new long[STATUSES.length];
+            flushedTimeCounts = new long[STATUSES.length * LatencyHistogram.BUCKETS];
+            start = newStart;
+        }
+    }
+
+    // Contagens de um bucket enviadas ao Redis em um ciclo de flush
+    private static final class Flushed {
+
+        private final Bucket bucket;
+        private final long start;
+        private final long[] entered;
+        private final long[] timeCounts;
+
+        private Flushed(Bucket bucket, long start, long[] entered, long[] timeCounts) {
+            this.bucket = bucket;
+            this.start = start;
+            this.entered = entered;
+            this.timeCounts = timeCounts;
+        }
+    }
+}
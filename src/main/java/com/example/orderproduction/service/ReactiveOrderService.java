@@ -0,0 +1,338 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.config.OrderProductionProperties.StorageLayout;
+import com.example.orderproduction.config.ReactiveWebConfig;
+import com.example.orderproduction.config.RedisConfig;
+import com.example.orderproduction.dto.OrderStatusDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO.Result;
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderPage;
+import com.example.orderproduction.model.OrderStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisZSetCommands.Limit;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static com.example.orderproduction.service.OrderService.*;
+import static com.example.orderproduction.service.RedisOrderRepository.*;
+
+// Variante reativa das consultas e da atualização de status de OrderService (profile reactive), sobre as mesmas
+// chaves, índices, script e near-cache do RedisOrderRepository. A ingestão da fila continua em OrderService.processOrders, chamada pelo
+// listener do RabbitMQ, e a publicação dos pedidos atualizados continua no outbox gravado pelo script.
+@Service
+@Profile(ReactiveWebConfig.PROFILE)
+public class ReactiveOrderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveOrderService.class);
+    private static final RedisElementWriter<String> SCRIPT_ARGS_WRITER = RedisElementWriter.from(RedisSerializer.string());
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final RedisElementReader<List> SCRIPT_RESULT_READER =
+            (RedisElementReader) RedisElementReader.from(RedisSerializer.byteArray());
+
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+    // Leituras; com read-from configurado vão às réplicas
+    private final ReactiveRedisTemplate<String, Object> readRedisTemplate;
+    private final OrderProductionProperties properties;
+    private final OrderNearCache nearCache;
+    private final ProductionAnalytics analytics;
+    private final MeterRegistry meterRegistry;
+    private final SerializationPair<Object> valueSerialization;
+    private final SerializationPair<Object> hashValueSerialization;
+    private final Timer updateStatusTimer;
+    private final Timer bulkUpdateStatusTimer;
+    private final Timer getTimer;
+    private final Timer getStatusTimer;
+    private final Timer getManyTimer;
+    private final Timer getByStatusTimer;
+
+    @SuppressWarnings("unchecked")
+    public ReactiveOrderService(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate,
+                                @Qualifier(RedisConfig.READ_REACTIVE_REDIS_TEMPLATE)
+                                ReactiveRedisTemplate<String, Object> readRedisTemplate,
+                                OrderProductionProperties properties, OrderNearCache nearCache,
+                                ProductionAnalytics analytics, MeterRegistry meterRegistry) {
+        if (properties.getRepository() != OrderProductionProperties.RepositoryType.REDIS) {
+            throw new IllegalStateException("O profile reactive exige order-production.repository=redis");
+        }
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.readRedisTemplate = readRedisTemplate;
+        this.properties = properties;
+        this.nearCache = nearCache;
+        this.analytics = analytics;
+        this.meterRegistry = meterRegistry;
+        this.valueSerialization = reactiveRedisTemplate.getSerializationContext().getValueSerializationPair();
+        this.hashValueSerialization = (SerializationPair<Object>) reactiveRedisTemplate.getSerializationContext()
+                .getHashValueSerializationPair();
+        // Mesmos timers da variante bloqueante, para comparar as duas com a mesma carga
+        this.updateStatusTimer = redisTimer(meterRegistry, "update-status");
+        this.bulkUpdateStatusTimer = redisTimer(meterRegistry, "update-status-bulk");
+        this.getTimer = redisTimer(meterRegistry, "get");
+        this.getStatusTimer = redisTimer(meterRegistry, "get-status");
+        this.getManyTimer = redisTimer(meterRegistry, "get-many");
+        this.getByStatusTimer = redisTimer(meterRegistry, "get-by-status");
+    }
+
+    public Mono<Order> updateOrderStatus(int orderId, OrderStatus newStatus) {
+        if (newStatus == null) {
+            return Mono.error(new IllegalArgumentException("Status ausente na atualização do pedido " + orderId));
+        }
+
+        return timed(statusScript(orderId, newStatus), updateStatusTimer).flatMap(result -> {
+            long outcome = statusOutcome(orderId, result);
+            if (outcome == 0) {
+                return Mono.error(new RuntimeException("Pedido não encontrado com id: " + orderId));
+            }
+            if (outcome == 3) {
+                return Mono.error(new InvalidStatusTransitionException(orderId, newStatus));
+            }
+            Order order = statusScriptResult(orderId, outcome, result).getOrder();
+            if (outcome == 2) {
+                logger.info("Pedido {} já está com o status {}", orderId, newStatus);
+            } else {
+                logger.info("Pedido {} atualizado para o status {} e registrado no outbox de pedidos atualizados",
+                        order.getOrderId(), order.getStatus());
+            }
+            return Mono.just(order);
+        });
+    }
+
+    // Os scripts dos pedidos são enviados sem aguardar uns aos outros e seguem em pipeline na conexão compartilhada;
+    // os resultados voltam na ordem recebida, um por pedido
+    public Mono<List<OrderStatusUpdateResultDTO>> updateOrderStatuses(List<OrderStatusDTO> updates) {
+        try {
+            checkBulkSize(properties, updates);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+        Mono<List<OrderStatusUpdateResultDTO>> results = Flux.fromIterable(updates)
+                .flatMapSequential(this::bulkStatusUpdate)
+                .collectList();
+        return timed(results, bulkUpdateStatusTimer).doOnNext(response -> logger.info(
+                "{} de {} pedidos do lote atualizados e registrados no outbox de pedidos atualizados",
+                response.stream().filter(result -> result.getResult() == Result.UPDATED).count(), updates.size()));
+    }
+
+    private Mono<OrderStatusUpdateResultDTO> bulkStatusUpdate(OrderStatusDTO update) {
+        int orderId = update.getOrderId();
+        if (update.getStatus() == null) {
+            return Mono.just(new OrderStatusUpdateResultDTO(orderId, Result.INVALID_TRANSITION, null));
+        }
+        return statusScript(orderId, update.getStatus())
+                .map(result -> statusScriptResult(orderId, statusOutcome(orderId, result), result))
+                .onErrorResume(e -> {
+                    logger.warn("Falha ao atualizar o status do pedido {}: {}", orderId, e.getMessage());
+                    return Mono.just(new OrderStatusUpdateResultDTO(orderId, Result.FAILED, null));
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<List<Object>> statusScript(int orderId, OrderStatus newStatus) {
+        return reactiveRedisTemplate.execute(UPDATE_STATUS_SCRIPT,
+                        updateStatusKeys(properties.getRedis(), orderId), updateStatusArgs(orderId, newStatus),
+                        SCRIPT_ARGS_WRITER, SCRIPT_RESULT_READER)
+                .next()
+                .map(result -> (List<Object>) result);
+    }
+
+    // Código devolvido pelo script de status, já contado nas métricas; uma alteração invalida o near-cache local
+    private long statusOutcome(int orderId, List<Object> result) {
+        long outcome = result.isEmpty() ? 0 : (Long) result.get(0);
+        countStatusUpdate(meterRegistry, statusUpdateResult(outcome));
+        if (outcome == 0) {
+            countNotFound(meterRegistry, "update-status");
+        }
+        if (outcome == 1) {
+            nearCache.invalidate(orderId);
+        }
+        return outcome;
+    }
+
+    // Resultado com o pedido e, na atualização, o status anterior, levado à análise de produção
+    private OrderStatusUpdateResultDTO statusScriptResult(int orderId, long outcome, List<Object> result) {
+        OrderStatusUpdateResultDTO updateResult = new OrderStatusUpdateResultDTO(orderId, statusUpdateResult(outcome),
+                outcome == 0 ? null : statusScriptOrder(orderId, result));
+        readPreviousStatus(updateResult, result, isHashLayout() ? 3 : 2);
+        analytics.recordTransition(updateResult);
+        return updateResult;
+    }
+
+    private Order statusScriptOrder(int orderId, List<Object> result) {
+        return isHashLayout()
+                ? decodeHash(orderId, ByteBuffer.wrap((byte[]) result.get(1)),
+                result.get(2) == null ? null : ByteBuffer.wrap((byte[]) result.get(2)))
+                : (Order) valueSerialization.read(ByteBuffer.wrap((byte[]) result.get(1)));
+    }
+
+    public Mono<Order> getOrder(int orderId) {
+        return nearCache.getReactive(orderId, id -> timed(loadOrder(id), getTimer))
+                .switchIfEmpty(Mono.fromRunnable(() -> countNotFound(meterRegistry, "get")));
+    }
+
+    public Mono<OrderStatus> getOrderStatus(int orderId) {
+        if (!isHashLayout()) {
+            return getOrder(orderId).map(Order::getStatus);
+        }
+        String key = orderKey(orderId);
+        Mono<ByteBuffer> status = readRedisTemplate.createMono(connection ->
+                connection.hashCommands().hGet(rawKey(key), ByteBuffer.wrap(STATUS_FIELD)));
+        return timed(status, getStatusTimer)
+                .map(value -> OrderStatus.valueOf(StandardCharsets.UTF_8.decode(value).toString()))
+                .switchIfEmpty(Mono.fromRunnable(() -> countNotFound(meterRegistry, "get-status")));
+    }
+
+    public Flux<Order> getOrders(Collection<Integer> orderIds) {
+        try {
+            checkGetManySize(properties, orderIds);
+        } catch (IllegalArgumentException e) {
+            return Flux.error(e);
+        }
+        return timed(readOrders(Flux.fromIterable(new LinkedHashSet<>(orderIds))), getManyTimer);
+    }
+
+    // Página da listagem por status, com o mesmo cursor da variante bloqueante. O índice da página é lido antes de
+    // devolver a página, para que o cursor vá no cabeçalho; os pedidos são emitidos à medida que cada bloco é lido.
+    // Com pedidos particionados os índices das partições são lidos em paralelo e intercalados
+    public Mono<OrderPage<Flux<Order>>> getOrdersByStatus(OrderStatus status, Integer limit, String cursor) {
+        return Mono.defer(() -> {
+            StatusIndexPage page = new StatusIndexPage(cursor, pageLimit(properties, limit));
+            double minScore = page.minScore(System.currentTimeMillis() - OrderRepository.ORDER_TTL.toMillis());
+            Range<Double> range = Range.rightUnbounded(Range.Bound.inclusive(minScore));
+            int partitions = partitions();
+            Mono<Void> index = partitions == 1
+                    ? readStatusIndexPage(statusIndexKey(partitions, 0, status), range, page, 0)
+                    : Flux.range(0, partitions)
+                    .flatMap(partition -> {
+                        StatusIndexPage partitionPage = page.partition();
+                        return readStatusIndexPage(statusIndexKey(partitions, partition, status), range,
+                                partitionPage, 0).thenReturn(partitionPage);
+                    })
+                    .collectList()
+                    .doOnNext(page::merge)
+                    .then();
+            return timed(index, getByStatusTimer)
+                    .then(Mono.fromSupplier(() -> new OrderPage<>(timed(readOrders(Flux.fromIterable(page.orderIds()))
+                            .filter(order -> order.getStatus() == status), getManyTimer), page.nextCursor())));
+        });
+    }
+
+    // Continua no bloco seguinte enquanto o bloco lido só completou a página com entradas até o cursor
+    private Mono<Void> readStatusIndexPage(String indexKey, Range<Double> range, StatusIndexPage page, int offset) {
+        int fetchSize = page.fetchSize();
+        return readRedisTemplate.opsForZSet()
+                .rangeByScoreWithScores(indexKey, range, Limit.limit().offset(offset).count(fetchSize))
+                .collectList()
+                .flatMap(entries -> page.addBlock(entries)
+                        ? readStatusIndexPage(indexKey, range, page, offset + entries.size())
+                        : Mono.empty());
+    }
+
+    // Blocos de read-chunk-size chaves por MGET (ou um HMGET por pedido no layout em hash); os blocos seguem em
+    // paralelo na conexão compartilhada e os pedidos saem na ordem dos ids
+    private Flux<Order> readOrders(Flux<Integer> orderIds) {
+        if (isHashLayout()) {
+            return orderIds.flatMapSequential(this::readHash);
+        }
+        int chunkSize = Math.max(1, properties.getRedis().getReadChunkSize());
+        return orderIds.buffer(chunkSize)
+                .flatMapSequential(chunk -> {
+                    List<String> keys = new ArrayList<>(chunk.size());
+                    for (Integer orderId : chunk) {
+                        keys.add(orderKey(orderId));
+                    }
+                    return readRedisTemplate.opsForValue().multiGet(keys);
+                })
+                .flatMapIterable(values -> {
+                    List<Order> orders = new ArrayList<>(values.size());
+                    for (Object value : values) {
+                        if (value instanceof Order) {
+                            orders.add((Order) value);
+                        }
+                    }
+                    return orders;
+                });
+    }
+
+    private Mono<Order> readHash(int orderId) {
+        String key = orderKey(orderId);
+        return readRedisTemplate.createMono(connection -> connection.hashCommands().hMGet(rawKey(key), hashFields()))
+                .filter(fields -> fields.get(0) != null)
+                .map(fields -> decodeHash(orderId, fields.get(0), fields.get(1)));
+    }
+
+    // Pedido e TTL restante são enviados juntos na conexão compartilhada, como no pipeline da variante bloqueante
+    private Mono<OrderNearCache.CachedOrder> loadOrder(int orderId) {
+        String key = orderKey(orderId);
+        return readRedisTemplate.createMono(connection -> {
+            Mono<Order> order = isHashLayout()
+                    ? connection.hashCommands().hMGet(rawKey(key), hashFields())
+                    .filter(fields -> fields.get(0) != null)
+                    .map(fields -> decodeHash(orderId, fields.get(0), fields.get(1)))
+                    : connection.stringCommands().get(rawKey(key))
+                    .map(value -> (Order) valueSerialization.read(value));
+            Mono<Long> ttl = connection.keyCommands().pTtl(rawKey(key));
+            return Mono.zip(order, ttl, (loaded, ttlMillis) ->
+                    new OrderNearCache.CachedOrder(loaded, ttlMillis > 0 ? ttlMillis : OrderRepository.ORDER_TTL.toMillis()));
+        });
+    }
+
+    private Order decodeHash(int orderId, ByteBuffer status, ByteBuffer details) {
+        Object decodedDetails = details == null ? null : hashValueSerialization.read(details);
+        return new Order(orderId, OrderStatus.valueOf(StandardCharsets.UTF_8.decode(status).toString()), decodedDetails);
+    }
+
+    private <T> Mono<T> timed(Mono<T> mono, Timer timer) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return mono.doFinally(signal -> sample.stop(timer));
+        });
+    }
+
+    private <T> Flux<T> timed(Flux<T> flux, Timer timer) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return flux.doFinally(signal -> sample.stop(timer));
+        });
+    }
+
+    private boolean isHashLayout() {
+        return properties.getRedis().getLayout() == StorageLayout.HASH;
+    }
+
+    private String orderKey(int orderId) {
+        return RedisOrderRepository.orderKey(properties.getRedis(), orderId);
+    }
+
+    private int partitions() {
+        return Math.max(1, properties.getRedis().getPartitions());
+    }
+
+    private static ByteBuffer rawKey(String key) {
+        return ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<ByteBuffer> hashFields() {
+        return Arrays.asList(ByteBuffer.wrap(STATUS_FIELD), ByteBuffer.wrap(DETAILS_FIELD));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.config.OrderProductionProperties.OverflowPolicy;
+import com.example.orderproduction.config.ReactiveWebConfig;
+import com.example.orderproduction.dto.OrderStatusDTO;
+import com.example.orderproduction.model.OrderStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Stream SSE das mudanças de status no profile reactive. Uma única assinatura do canal order:status-changes é
+// compartilhada por todos os clientes da instância; cada cliente tem um buffer limitado com a mesma política de
+// overflow de OrderStatusPushService.
+@Component
+@Profile(ReactiveWebConfig.PROFILE)
+public class ReactiveOrderStatusPushService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveOrderStatusPushService.class);
+    private static final ChannelTopic STATUS_CHANGES_TOPIC = ChannelTopic.of(RedisOrderRepository.STATUS_CHANGES_CHANNEL);
+
+    private final OrderProductionProperties.Push config;
+    private final ObjectMapper objectMapper;
+    private final Duration heartbeatInterval;
+    private final Flux<OrderStatusDTO> changes;
+    private final Counter droppedEvents;
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    public ReactiveOrderStatusPushService(ReactiveRedisMessageListenerContainer listenerContainer,
+                                          OrderProductionProperties properties, ObjectMapper objectMapper,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${order-production.push.heartbeat-interval:15000}") long heartbeatInterval) {
+        this.config = properties.getPush();
+        this.objectMapper = objectMapper;
+        this.heartbeatInterval = Duration.ofMillis(heartbeatInterval);
+        this.changes = listenerContainer.receive(STATUS_CHANGES_TOPIC)
+                .map(ReactiveSubscription.Message::getMessage)
+                .concatMap(this::parse)
+                .share();
+        this.droppedEvents = meterRegistry.counter("orders.push.dropped");
+        meterRegistry.gauge("orders.push.subscribers", Tags.empty(), subscribers);
+    }
+
+    // Filtros nulos recebem todas as mudanças; com os dois informados o evento precisa atender a ambos
+    public Flux<ServerSentEvent<OrderStatusDTO>> subscribe(OrderStatus status, Integer orderId) {
+        // Um erro de overflow só chegaria ao cliente depois dos eventos pendentes; com DISCONNECT o stream é
+        // encerrado na hora pelo sinal de overflow, sem esperar o cliente consumir o buffer
+        Sinks.Empty<Void> overflow = Sinks.empty();
+        BufferOverflowStrategy overflowStrategy = config.getOverflowPolicy() == OverflowPolicy.DISCONNECT
+                ? BufferOverflowStrategy.DROP_LATEST : BufferOverflowStrategy.DROP_OLDEST;
+        Flux<ServerSentEvent<OrderStatusDTO>> events = changes
+                .filter(change -> (status == null || status == change.getStatus())
+                        && (orderId == null || orderId == change.getOrderId()))
+                .onBackpressureBuffer(config.getBufferSize(), dropped -> {
+                    droppedEvents.increment();
+                    if (config.getOverflowPolicy() == OverflowPolicy.DISCONNECT
+                            && overflow.tryEmitEmpty() == Sinks.EmitResult.OK) {
+                        logger.warn("Assinante do stream de status desconectado por não acompanhar os eventos");
+                    }
+                }, overflowStrategy)
+                .map(change -> ServerSentEvent.builder(change).event(OrderStatusPushService.EVENT_NAME).build());
+        // Comentário periódico para manter a conexão aberta em proxies e detectar clientes que já desconectaram
+        Flux<ServerSentEvent<OrderStatusDTO>> heartbeats = Flux.interval(heartbeatInterval)
+                .map(tick -> ServerSentEvent.<OrderStatusDTO>builder().comment("heartbeat").build())
+                .onBackpressureDrop();
+        // Prefetch 1 no merge: o limite de eventos pendentes por cliente fica no buffer configurado
+        return Flux.merge(1, events, heartbeats)
+                .takeUntilOther(overflow.asMono())
+                .take(config.getTimeout())
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    int subscriberCount() {
+        return subscribers.get();
+    }
+
+    private Mono<OrderStatusDTO> parse(String message) {
+        try {
+            return Mono.just(objectMapper.readValue(message, OrderStatusDTO.class));
+        } catch (IOException e) {
+            logger.warn("Mudança de status ignorada, conteúdo inválido: {}", e.getMessage());
+            return Mono.empty();
+        }
+    }
+}
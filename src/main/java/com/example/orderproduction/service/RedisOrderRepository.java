@@ -0,0 +1,609 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.config.OrderProductionProperties.StorageLayout;
+import com.example.orderproduction.config.RedisConfig;
+import com.example.orderproduction.dto.OrderStatusDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO.Result;
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderStatus;
+import io.lettuce.core.RedisNoScriptException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+// Pedidos no Redis: o pedido em order:{orderId} (ou hash em order:hash:{orderId}), os índices por status em sorted
+// sets pontuados pelo horário de recebimento, o horário de entrada no status atual em order:status-since e o outbox
+// em um stream, alterados juntos pelos scripts Lua.
+// Com mais de uma partição as chaves levam a hash tag da partição
+@Component
+@ConditionalOnProperty(prefix = "order-production", name = "repository", havingValue = "redis", matchIfMissing = true)
+public class RedisOrderRepository implements OrderRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisOrderRepository.class);
+    static final String ORDER_KEY_PREFIX = "order:";
+    static final String ORDER_HASH_KEY_PREFIX = "order:hash:";
+    private static final String STATUS_INDEX_KEY_PREFIX = "order:status:";
+    static final String OUTBOX_KEY = "order:outbox";
+    static final String STATUS_SINCE_KEY = "order:status-since";
+    static final String STATUS_CHANGES_CHANNEL = "order:status-changes";
+    static final String ANALYTICS_KEY_PREFIX = "order:analytics:";
+    static final byte[] STATUS_FIELD = "status".getBytes(StandardCharsets.UTF_8);
+    static final byte[] DETAILS_FIELD = "details".getBytes(StandardCharsets.UTF_8);
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> UPDATE_STATUS_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/update-order-status.lua"), List.class);
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> INGEST_ORDERS_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/ingest-orders.lua"), List.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    // Leituras (getOrder, getOrderStatus, getOrders e listagens); com read-from configurado vão às réplicas
+    private final RedisTemplate<String, Object> readRedisTemplate;
+    private final OrderProductionProperties properties;
+
+    public RedisOrderRepository(RedisTemplate<String, Object> redisTemplate,
+                                @Qualifier(RedisConfig.READ_REDIS_TEMPLATE) RedisTemplate<String, Object> readRedisTemplate,
+                                OrderProductionProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.readRedisTemplate = readRedisTemplate;
+        this.properties = properties;
+    }
+
+    // Grava o lote com o script de ingestão, uma execução por partição dos pedidos do lote (as chaves de um script
+    // precisam estar no mesmo slot do cluster); com mais de uma partição as execuções seguem juntas em um pipeline
+    @Override
+    public boolean[] insertAll(List<Order> orders, long receivedAt) {
+        Collection<List<Integer>> groups = groupByPartition(orders);
+        List<Object> results = ingest(orders, groups, receivedAt);
+        boolean[] written = new boolean[orders.size()];
+        int groupIndex = 0;
+        for (List<Integer> group : groups) {
+            Object result = results != null && groupIndex < results.size() ? results.get(groupIndex) : null;
+            groupIndex++;
+            for (int i = 0; i < group.size(); i++) {
+                written[group.get(i)] = !(result instanceof List && i < ((List<?>) result).size()
+                        && Long.valueOf(0).equals(((List<?>) result).get(i)));
+            }
+        }
+        return written;
+    }
+
+    // Um resultado do script por grupo, na ordem dos grupos
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<Object> ingest(List<Order> orders, Collection<List<Integer>> groups, long receivedAt) {
+        if (groups.size() == 1) {
+            List<Order> group = select(orders, groups.iterator().next());
+            List<Object> result = redisTemplate.execute(INGEST_ORDERS_SCRIPT, RedisSerializer.byteArray(),
+                    (RedisSerializer) RedisSerializer.byteArray(), ingestKeys(group), ingestArgs(group, receivedAt).toArray());
+            return Collections.singletonList(result);
+        }
+        byte[] script = rawKey(INGEST_ORDERS_SCRIPT.getScriptAsString());
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (List<Integer> indexes : groups) {
+                List<Order> group = select(orders, indexes);
+                List<String> keys = ingestKeys(group);
+                List<byte[]> keysAndArgs = new ArrayList<>(keys.size() + 4 + group.size() * 4);
+                for (String key : keys) {
+                    keysAndArgs.add(rawKey(key));
+                }
+                keysAndArgs.addAll(ingestArgs(group, receivedAt));
+                connection.scriptingCommands().eval(script, ReturnType.MULTI, keys.size(),
+                        keysAndArgs.toArray(new byte[0][]));
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+    }
+
+    // Posições dos pedidos agrupadas por partição, na ordem do lote
+    private Collection<List<Integer>> groupByPartition(List<Order> orders) {
+        int partitions = partitions();
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < orders.size(); i++) {
+            groups.computeIfAbsent(partitionOf(partitions, orders.get(i).getOrderId()),
+                    partition -> new ArrayList<>()).add(i);
+        }
+        return groups.values();
+    }
+
+    private static List<Order> select(List<Order> orders, List<Integer> indexes) {
+        if (indexes.size() == orders.size()) {
+            return orders;
+        }
+        List<Order> selected = new ArrayList<>(indexes.size());
+        for (Integer index : indexes) {
+            selected.add(orders.get(index));
+        }
+        return selected;
+    }
+
+    // KEYS e ARGV do script de ingestão, no formato descrito em ingest-orders.lua; os pedidos são da mesma partição
+    private List<String> ingestKeys(List<Order> orders) {
+        int partitions = partitions();
+        int partition = partitionOf(partitions, orders.get(0).getOrderId());
+        List<String> keys = new ArrayList<>(orders.size() + OrderStatus.values().length);
+        for (Order order : orders) {
+            keys.add(orderKey(order.getOrderId()));
+        }
+        for (OrderStatus status : OrderStatus.values()) {
+            keys.add(statusIndexKey(partitions, partition, status));
+        }
+        keys.add(statusSinceKey(partitions, partition));
+        return keys;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<byte[]> ingestArgs(List<Order> orders, long receivedAt) {
+        boolean hashLayout = isHashLayout();
+        List<byte[]> args = new ArrayList<>(4 + orders.size() * 4);
+        args.add(rawKey(String.valueOf(ORDER_TTL.toMillis())));
+        args.add(rawKey(String.valueOf(receivedAt)));
+        args.add(rawKey(hashLayout ? "hash" : "string"));
+        args.add(rawKey(String.valueOf(orders.size())));
+        for (Order order : orders) {
+            args.add(rawKey(String.valueOf(order.getOrderId())));
+            args.add(rawKey(String.valueOf(order.getStatus().ordinal() + 1)));
+            args.add(rawKey(order.getStatus().name()));
+            args.add(hashLayout
+                    ? ((RedisSerializer<Object>) redisTemplate.getHashValueSerializer()).serialize(order.getDetails())
+                    : ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(order));
+        }
+        return args;
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public OrderStatusUpdateResultDTO updateStatus(int orderId, OrderStatus newStatus) {
+        List<Object> result = redisTemplate.execute(UPDATE_STATUS_SCRIPT, redisTemplate.getStringSerializer(),
+                (RedisSerializer) RedisSerializer.byteArray(), updateStatusKeys(properties.getRedis(), orderId),
+                updateStatusArgs(orderId, newStatus).toArray());
+        return statusScriptResult(orderId, result);
+    }
+
+    // O script de updateStatus roda uma vez por pedido, na ordem recebida, no mesmo pipeline
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<OrderStatusUpdateResultDTO> updateStatuses(List<OrderStatusDTO> updates) {
+        List<Object> results = runStatusScripts(updates);
+        List<OrderStatusUpdateResultDTO> response = new ArrayList<>(updates.size());
+        for (int i = 0; i < updates.size(); i++) {
+            OrderStatusDTO update = updates.get(i);
+            Object result = results.get(i);
+            if (update.getStatus() == null) {
+                response.add(new OrderStatusUpdateResultDTO(update.getOrderId(), Result.INVALID_TRANSITION, null));
+            } else if (!(result instanceof List)) {
+                logger.warn("Falha ao atualizar o status do pedido {}: {}", update.getOrderId(), result);
+                response.add(new OrderStatusUpdateResultDTO(update.getOrderId(), Result.FAILED, null));
+            } else {
+                response.add(statusScriptResult(update.getOrderId(), (List<Object>) result));
+            }
+        }
+        return response;
+    }
+
+    // Um resultado por atualização, na ordem recebida; atualizações sem status não vão ao Redis. O pipeline usa
+    // EVALSHA e, se o script não está no cache do Redis (NOSCRIPT), é reenviado com EVAL. Um erro no pipeline não
+    // diz quais pedidos falharam, então cada pedido é reexecutado sozinho: o script é idempotente, e um pedido já
+    // alterado pelo pipeline volta como UNCHANGED
+    private List<Object> runStatusScripts(List<OrderStatusDTO> updates) {
+        List<Integer> pending = new ArrayList<>(updates.size());
+        for (int i = 0; i < updates.size(); i++) {
+            if (updates.get(i).getStatus() != null) {
+                pending.add(i);
+            }
+        }
+        List<Object> results = new ArrayList<>(Collections.nCopies(updates.size(), null));
+        if (pending.isEmpty()) {
+            return results;
+        }
+
+        List<Object> pipelined;
+        try {
+            byte[] sha = rawKey(UPDATE_STATUS_SCRIPT.getSha1());
+            pipelined = pipelineStatusScripts(updates, pending, (connection, keysAndArgs, numKeys) ->
+                    connection.scriptingCommands().evalSha(sha, ReturnType.MULTI, numKeys, keysAndArgs));
+        } catch (RedisPipelineException e) {
+            pipelined = null;
+            if (e.getCause() instanceof RedisNoScriptException) {
+                try {
+                    byte[] script = rawKey(UPDATE_STATUS_SCRIPT.getScriptAsString());
+                    pipelined = pipelineStatusScripts(updates, pending, (connection, keysAndArgs, numKeys) ->
+                            connection.scriptingCommands().eval(script, ReturnType.MULTI, numKeys, keysAndArgs));
+                } catch (RedisPipelineException retry) {
+                    e = retry;
+                }
+            }
+            if (pipelined == null) {
+                logger.warn("Pipeline de atualização de status falhou ({}); os pedidos serão atualizados um a um",
+                        e.getMessage());
+                for (Integer index : pending) {
+                    results.set(index, runStatusScript(updates.get(index)));
+                }
+                return results;
+            }
+        }
+        for (int i = 0; i < pending.size() && i < pipelined.size(); i++) {
+            results.set(pending.get(i), pipelined.get(i));
+        }
+        return results;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object runStatusScript(OrderStatusDTO update) {
+        try {
+            return redisTemplate.execute(UPDATE_STATUS_SCRIPT, redisTemplate.getStringSerializer(),
+                    (RedisSerializer) RedisSerializer.byteArray(), updateStatusKeys(properties.getRedis(),
+                            update.getOrderId()), updateStatusArgs(update.getOrderId(), update.getStatus()).toArray());
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    private List<Object> pipelineStatusScripts(List<OrderStatusDTO> updates, List<Integer> indexes,
+                                               StatusScriptCall call) {
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Integer index : indexes) {
+                OrderStatusDTO update = updates.get(index);
+                List<String> keys = updateStatusKeys(properties.getRedis(), update.getOrderId());
+                List<String> args = updateStatusArgs(update.getOrderId(), update.getStatus());
+                List<byte[]> keysAndArgs = new ArrayList<>(keys.size() + args.size());
+                for (String value : keys) {
+                    keysAndArgs.add(rawKey(value));
+                }
+                for (String value : args) {
+                    keysAndArgs.add(rawKey(value));
+                }
+                call.run(connection, keysAndArgs.toArray(new byte[0][]), keys.size());
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+    }
+
+    private interface StatusScriptCall {
+        void run(RedisConnection connection, byte[][] keysAndArgs, int numKeys);
+    }
+
+    // Código devolvido pelo script de status (0 = não encontrado, 1 = atualizado, 2 = sem alteração, 3 = transição
+    // inválida) e o pedido após a execução
+    private OrderStatusUpdateResultDTO statusScriptResult(int orderId, List<Object> result) {
+        long outcome = result == null || result.isEmpty() ? 0 : (Long) result.get(0);
+        Result statusResult = OrderService.statusUpdateResult(outcome);
+        if (statusResult == Result.NOT_FOUND) {
+            return new OrderStatusUpdateResultDTO(orderId, statusResult, null);
+        }
+        Order order = isHashLayout()
+                ? decodeHash(orderId, (byte[]) result.get(1), (byte[]) result.get(2))
+                : (Order) redisTemplate.getValueSerializer().deserialize((byte[]) result.get(1));
+        OrderStatusUpdateResultDTO updateResult = new OrderStatusUpdateResultDTO(orderId, statusResult, order);
+        readPreviousStatus(updateResult, result, isHashLayout() ? 3 : 2);
+        return updateResult;
+    }
+
+    // Status anterior e tempo nele, devolvidos pelo script depois do pedido quando a atualização acontece
+    static void readPreviousStatus(OrderStatusUpdateResultDTO updateResult, List<Object> result, int from) {
+        if (updateResult.getResult() != Result.UPDATED || result.size() <= from || result.get(from) == null) {
+            return;
+        }
+        updateResult.setPreviousStatus(OrderStatus.valueOf(new String((byte[]) result.get(from), StandardCharsets.UTF_8)));
+        if (result.size() > from + 1 && result.get(from + 1) instanceof Long) {
+            updateResult.setPreviousStatusMillis((Long) result.get(from + 1));
+        }
+    }
+
+    // Lê o pedido e o TTL restante da chave em um único pipeline
+    @Override
+    @SuppressWarnings("unchecked")
+    public OrderNearCache.CachedOrder find(int orderId) {
+        byte[] key = rawKey(orderKey(orderId));
+        boolean hashLayout = isHashLayout();
+        List<Object> results = readRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            if (hashLayout) {
+                connection.hashCommands().hMGet(key, STATUS_FIELD, DETAILS_FIELD);
+            } else {
+                connection.stringCommands().get(key);
+            }
+            connection.keyCommands().pTtl(key);
+            return null;
+        }, RedisSerializer.byteArray());
+        if (results == null || results.size() < 2 || results.get(0) == null) {
+            return null;
+        }
+
+        Order order;
+        if (hashLayout) {
+            List<byte[]> fields = (List<byte[]>) results.get(0);
+            if (fields.get(0) == null) {
+                return null;
+            }
+            order = decodeHash(orderId, fields.get(0), fields.get(1));
+        } else {
+            order = (Order) redisTemplate.getValueSerializer().deserialize((byte[]) results.get(0));
+        }
+        long ttlMillis = results.get(1) instanceof Long && (Long) results.get(1) > 0
+                ? (Long) results.get(1) : ORDER_TTL.toMillis();
+        return new OrderNearCache.CachedOrder(order, ttlMillis);
+    }
+
+    @Override
+    public List<Order> findAll(List<Integer> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Order> orders = new ArrayList<>(orderIds.size());
+        if (isHashLayout()) {
+            List<Object> rows = readRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Integer orderId : orderIds) {
+                    connection.hashCommands().hMGet(rawKey(orderKey(orderId)), STATUS_FIELD, DETAILS_FIELD);
+                }
+                return null;
+            }, RedisSerializer.byteArray());
+            for (int i = 0; i < rows.size(); i++) {
+                List<?> fields = (List<?>) rows.get(i);
+                if (fields != null && fields.get(0) != null) {
+                    orders.add(decodeHash(orderIds.get(i), (byte[]) fields.get(0), (byte[]) fields.get(1)));
+                }
+            }
+            return orders;
+        }
+
+        List<String> keys = new ArrayList<>(orderIds.size());
+        for (Integer orderId : orderIds) {
+            keys.add(orderKey(orderId));
+        }
+        for (Object value : multiGet(keys)) {
+            if (value instanceof Order) {
+                orders.add((Order) value);
+            }
+        }
+        return orders;
+    }
+
+    // No layout em hash o details do pedido não é transferido
+    @Override
+    public OrderStatus findStatus(int orderId) {
+        byte[] status = readRedisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.hashCommands().hGet(rawKey(orderKey(orderId)), STATUS_FIELD));
+        return status == null ? null : OrderStatus.valueOf(new String(status, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean readsStatusOnly() {
+        return isHashLayout();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void readStatusIndexPage(OrderStatus status, StatusIndexPage page) {
+        double minScore = page.minScore(System.currentTimeMillis() - ORDER_TTL.toMillis());
+        int partitions = partitions();
+        if (partitions == 1) {
+            String indexKey = statusIndexKey(partitions, 0, status);
+            long offset = 0;
+            boolean more = true;
+            while (more) {
+                Set<ZSetOperations.TypedTuple<Object>> entries = readRedisTemplate.opsForZSet()
+                        .rangeByScoreWithScores(indexKey, minScore, Double.POSITIVE_INFINITY, offset, page.fetchSize());
+                more = entries != null && page.addBlock(entries);
+                offset += page.fetchSize();
+            }
+            return;
+        }
+
+        // Fan-out: os índices das partições são lidos no mesmo pipeline (em paralelo nos nós do cluster) e só as
+        // partições com bloco inteiro descartado até o cursor voltam a ser lidas
+        List<StatusIndexPage> partitionPages = new ArrayList<>(partitions);
+        Map<Integer, Integer> offsets = new LinkedHashMap<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            partitionPages.add(page.partition());
+            offsets.put(partition, 0);
+        }
+        RedisZSetCommands.Range range = RedisZSetCommands.Range.range().gte(minScore);
+        while (!offsets.isEmpty()) {
+            List<Object> blocks = readRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                offsets.forEach((partition, offset) -> connection.zSetCommands().zRangeByScoreWithScores(
+                        rawKey(statusIndexKey(partitions, partition, status)), range,
+                        RedisZSetCommands.Limit.limit().offset(offset).count(page.fetchSize())));
+                return null;
+            }, RedisSerializer.string());
+            Iterator<Map.Entry<Integer, Integer>> pending = offsets.entrySet().iterator();
+            for (Object block : blocks) {
+                Map.Entry<Integer, Integer> partition = pending.next();
+                if (block instanceof Set && partitionPages.get(partition.getKey())
+                        .addBlock((Set<ZSetOperations.TypedTuple<?>>) block)) {
+                    partition.setValue(partition.getValue() + page.fetchSize());
+                } else {
+                    pending.remove();
+                }
+            }
+        }
+        page.merge(partitionPages);
+    }
+
+    // Conta só as entradas dentro do TTL: o índice é podado de forma preguiçosa
+    @Override
+    public double countActiveOrders(OrderStatus status) {
+        double minScore = System.currentTimeMillis() - ORDER_TTL.toMillis();
+        int partitions = partitions();
+        if (partitions == 1) {
+            Long count = readRedisTemplate.opsForZSet().count(statusIndexKey(partitions, 0, status),
+                    minScore, Double.POSITIVE_INFINITY);
+            return count == null ? Double.NaN : count;
+        }
+        List<Object> counts = readRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int partition = 0; partition < partitions; partition++) {
+                connection.zSetCommands().zCount(rawKey(statusIndexKey(partitions, partition, status)),
+                        minScore, Double.POSITIVE_INFINITY);
+            }
+            return null;
+        });
+        double total = 0;
+        for (Object count : counts) {
+            total += count instanceof Long ? (Long) count : 0;
+        }
+        return total;
+    }
+
+    static String statusIndexKey(int partitions, int partition, OrderStatus status) {
+        return STATUS_INDEX_KEY_PREFIX + partitionTag(partitions, partition) + status.name();
+    }
+
+    // Cada layout usa um prefixo próprio para que instâncias com layouts diferentes não disputem o tipo da chave
+    static String orderKey(OrderProductionProperties.Redis redis, int orderId) {
+        String prefix = redis.getLayout() == StorageLayout.HASH ? ORDER_HASH_KEY_PREFIX : ORDER_KEY_PREFIX;
+        return prefix + partitionTag(redis.getPartitions(), partitionOf(redis.getPartitions(), orderId)) + orderId;
+    }
+
+    static String outboxKey(int partitions, int partition) {
+        return partitions <= 1 ? OUTBOX_KEY : OUTBOX_KEY + ":{" + partition + "}";
+    }
+
+    static String statusSinceKey(int partitions, int partition) {
+        return partitions <= 1 ? STATUS_SINCE_KEY : STATUS_SINCE_KEY + ":{" + partition + "}";
+    }
+
+    static int partitionOf(int partitions, int orderId) {
+        return partitions <= 1 ? 0 : Math.floorMod(orderId, partitions);
+    }
+
+    // Hash tag da partição: só o trecho entre chaves decide o slot no Redis Cluster. Sem partições as chaves
+    // mantêm o formato original
+    private static String partitionTag(int partitions, int partition) {
+        return partitions <= 1 ? "" : "{" + partition + "}:";
+    }
+
+    // KEYS e ARGV do script de atualização de status, no formato descrito em update-order-status.lua. Todas as
+    // chaves são da partição do pedido
+    static List<String> updateStatusKeys(OrderProductionProperties.Redis redis, int orderId) {
+        int partitions = redis.getPartitions();
+        int partition = partitionOf(partitions, orderId);
+        List<String> keys = new ArrayList<>();
+        keys.add(orderKey(redis, orderId));
+        keys.add(outboxKey(partitions, partition));
+        for (OrderStatus status : OrderStatus.values()) {
+            keys.add(statusIndexKey(partitions, partition, status));
+        }
+        keys.add(statusSinceKey(partitions, partition));
+        return keys;
+    }
+
+    static List<String> updateStatusArgs(int orderId, OrderStatus newStatus) {
+        List<String> args = new ArrayList<>();
+        args.add(newStatus.name());
+        args.add(String.valueOf(ORDER_TTL.toMillis()));
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(String.valueOf(orderId));
+        args.add(STATUS_CHANGES_CHANNEL);
+        for (OrderStatus status : OrderStatus.values()) {
+            args.add(status.name());
+        }
+        return args;
+    }
+
+    private boolean isHashLayout() {
+        return properties.getRedis().getLayout() == StorageLayout.HASH;
+    }
+
+    private String orderKey(int orderId) {
+        return orderKey(properties.getRedis(), orderId);
+    }
+
+    // Soma os contadores da análise de produção ao hash de cada bucket (chave com o início do bucket em ms), comum a
+    // todas as instâncias; o hash expira junto com a retenção
+    public void addAnalyticsCounts(Map<Long, Map<String, Long>> counts, Duration ttl) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<Long, Map<String, Long>> bucket : counts.entrySet()) {
+                byte[] key = rawKey(ANALYTICS_KEY_PREFIX + bucket.getKey());
+                for (Map.Entry<String, Long> field : bucket.getValue().entrySet()) {
+                    connection.hashCommands().hIncrBy(key, rawKey(field.getKey()), field.getValue());
+                }
+                connection.keyCommands().pExpire(key, ttl.toMillis());
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+    }
+
+    // Contadores somados por todas as instâncias, um mapa por bucket na ordem recebida (vazio sem registros). O
+    // pipeline é aberto direto na conexão: executePipelined passaria os campos pelos serializers de hash do template
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Long>> findAnalyticsCounts(List<Long> bucketStarts) {
+        List<Object> hashes = readRedisTemplate.execute((RedisCallback<List<Object>>) connection -> {
+            connection.openPipeline();
+            for (Long start : bucketStarts) {
+                connection.hashCommands().hGetAll(rawKey(ANALYTICS_KEY_PREFIX + start));
+            }
+            return connection.closePipeline();
+        });
+        List<Map<String, Long>> counts = new ArrayList<>(bucketStarts.size());
+        for (int i = 0; i < bucketStarts.size(); i++) {
+            Map<String, Long> bucket = new HashMap<>();
+            Object hash = hashes != null && i < hashes.size() ? hashes.get(i) : null;
+            if (hash instanceof Map) {
+                for (Map.Entry<byte[], byte[]> field : ((Map<byte[], byte[]>) hash).entrySet()) {
+                    bucket.put(new String(field.getKey(), StandardCharsets.UTF_8),
+                            Long.parseLong(new String(field.getValue(), StandardCharsets.UTF_8)));
+                }
+            }
+            counts.add(bucket);
+        }
+        return counts;
+    }
+
+    private int partitions() {
+        return Math.max(1, properties.getRedis().getPartitions());
+    }
+
+    private static byte[] rawKey(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Order decodeHash(int orderId, byte[] status, byte[] details) {
+        Object decodedDetails = details == null ? null : redisTemplate.getHashValueSerializer().deserialize(details);
+        return new Order(orderId, OrderStatus.valueOf(new String(status, StandardCharsets.UTF_8)), decodedDetails);
+    }
+
+    // Lê as chaves com MGET em blocos de read-chunk-size; mais de um bloco é enviado em um único pipeline
+    private List<Object> multiGet(List<String> keys) {
+        int chunkSize = Math.max(1, properties.getRedis().getReadChunkSize());
+        if (keys.size() <= chunkSize) {
+            List<Object> values = readRedisTemplate.opsForValue().multiGet(keys);
+            return values != null ? values : Collections.emptyList();
+        }
+        List<Object> chunks = readRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                for (int from = 0; from < keys.size(); from += chunkSize) {
+                    operations.opsForValue().multiGet(keys.subList(from, Math.min(from + chunkSize, keys.size())));
+                }
+                return null;
+            }
+        });
+        List<Object> values = new ArrayList<>(keys.size());
+        for (Object chunk : chunks) {
+            if (chunk instanceof List) {
+                values.addAll((List<?>) chunk);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.orderproduction.service;
+
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.StreamOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Operações de consumer group comuns ao outbox de pedidos atualizados e à ingestão por stream
+final class RedisStreamGroups {
+
+    private RedisStreamGroups() {
+    }
+
+    // Cria o grupo (e o stream, se ainda não existe) lendo desde o início; um grupo já existente é mantido
+    static void createGroupIfMissing(StreamOperations<String, Object, Object> streams, String key, String group) {
+        try {
+            streams.createGroup(key, ReadOffset.from("0"), group);
+        } catch (RedisSystemException e) {
+            if (e.getRootCause() == null || !String.valueOf(e.getRootCause().getMessage()).contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    // NOGROUP: o stream foi removido (FLUSHDB, DEL, eviction) ou recriado sem o grupo, que precisa ser criado de novo
+    static boolean isMissingGroup(RuntimeException e) {
+        for (Throwable current = e; current != null; current = current.getCause()) {
+            if (String.valueOf(current.getMessage()).contains("NOGROUP")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Assume entradas pendentes há mais de idleTime em outros consumidores, que pararam sem confirmá-las
+    static void claimStaleEntries(StreamOperations<String, Object, Object> streams, String key, String group,
+                                  String consumerName, Duration idleTime, long count) {
+        PendingMessages pending = streams.pending(key, group, Range.unbounded(), count);
+        if (pending == null || pending.isEmpty()) {
+            return;
+        }
+        List<RecordId> stale = new ArrayList<>();
+        for (PendingMessage message : pending) {
+            if (!consumerName.equals(message.getConsumerName())
+                    && message.getElapsedTimeSinceLastDelivery().compareTo(idleTime) >= 0) {
+                stale.add(message.getId());
+            }
+        }
+        if (!stale.isEmpty()) {
+            streams.claim(key, group, consumerName, idleTime, stale.toArray(new RecordId[0]));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.orderproduction.service;
+
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+// Monta uma página do índice por status (sorted set pontuado pelo horário de recebimento), compartilhada pelas
+// variantes bloqueante e reativa. O cursor guarda a pontuação e o membro da última entrada devolvida: empates de
+// pontuação ficam em ordem lexicográfica do membro, então a página seguinte recomeça na mesma pontuação e descarta
+// as entradas até o cursor. Pedidos que mudam de status entre uma página e outra não deslocam a listagem.
+// Com pedidos particionados, cada partição monta a sua página com o mesmo cursor e merge as intercala na mesma
+// ordem do sorted set, de modo que o cursor vale para todas as partições.
+final class StatusIndexPage {
+
+    private static final Comparator<Entry> INDEX_ORDER =
+            Comparator.comparingLong((Entry entry) -> entry.receivedAt).thenComparing(entry -> entry.member);
+
+    private final long afterReceivedAt;
+    private final String afterMember;
+    private final int limit;
+    private final List<Entry> entries;
+
+    StatusIndexPage(String cursor, int limit) {
+        this.limit = limit;
+        this.entries = new ArrayList<>(limit + 1);
+        if (cursor == null || cursor.isEmpty()) {
+            this.afterReceivedAt = Long.MIN_VALUE;
+            this.afterMember = null;
+            return;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            this.afterReceivedAt = Long.parseLong(decoded.substring(0, separator));
+            this.afterMember = String.valueOf(Integer.parseInt(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    private StatusIndexPage(StatusIndexPage page) {
+        this.afterReceivedAt = page.afterReceivedAt;
+        this.afterMember = page.afterMember;
+        this.limit = page.limit;
+        this.entries = new ArrayList<>(limit + 1);
+    }
+
+    // Página vazia com o mesmo cursor e limite, para ler o índice de uma partição
+    StatusIndexPage partition() {
+        return new StatusIndexPage(this);
+    }
+
+    // Menor pontuação a ler: a do cursor, sem voltar além do TTL dos pedidos
+    double minScore(long minReceivedAt) {
+        return Math.max(afterReceivedAt, minReceivedAt);
+    }
+
+    // Uma entrada além do limite, para saber se existe próxima página sem outra ida ao Redis
+    int fetchSize() {
+        return limit + 1;
+    }
+
+    // Retorna false quando a página já está completa e não precisa de mais entradas
+    boolean add(Double score, Object member) {
+        long receivedAt = score == null ? 0 : score.longValue();
+        String value = String.valueOf(member);
+        if (afterMember != null && (receivedAt < afterReceivedAt
+                || receivedAt == afterReceivedAt && value.compareTo(afterMember) <= 0)) {
+            return true;
+        }
+        if (entries.size() < fetchSize()) {
+            entries.add(new Entry(receivedAt, value));
+        }
+        return entries.size() < fetchSize();
+    }
+
+    // Retorna true quando o bloco lido (de fetchSize entradas) só completou a página com entradas até o cursor e
+    // é preciso ler o bloco seguinte
+    boolean addBlock(Collection<? extends ZSetOperations.TypedTuple<?>> block) {
+        for (ZSetOperations.TypedTuple<?> entry : block) {
+            if (!add(entry.getScore(), entry.getValue())) {
+                return false;
+            }
+        }
+        return block.size() >= fetchSize();
+    }
+
+    // Intercala as páginas das partições; as primeiras fetchSize entradas depois do cursor estão entre as primeiras
+    // fetchSize de cada partição
+    void merge(Collection<StatusIndexPage> partitions) {
+        List<Entry> merged = new ArrayList<>();
+        for (StatusIndexPage partition : partitions) {
+            merged.addAll(partition.entries);
+        }
+        merged.sort(INDEX_ORDER);
+        for (Entry entry : merged) {
+            if (!add((double) entry.receivedAt, entry.member)) {
+                return;
+            }
+        }
+    }
+
+    List<Integer> orderIds() {
+        List<Integer> orderIds = new ArrayList<>(Math.min(limit, entries.size()));
+        for (Entry entry : entries.subList(0, Math.min(limit, entries.size()))) {
+            orderIds.add(Integer.valueOf(entry.member));
+        }
+        return orderIds;
+    }
+
+    String nextCursor() {
+        if (entries.size() <= limit) {
+            return null;
+        }
+        Entry last = entries.get(limit - 1);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((last.receivedAt + ":" + last.member).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class Entry {
+
+        private final long receivedAt;
+        private final String member;
+
+        private Entry(long receivedAt, String member) {
+            this.receivedAt = receivedAt;
+            this.member = member;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.config.PublisherConfirms;
+import com.example.orderproduction.config.RabbitMQConfig;
+import com.example.orderproduction.model.OrderStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.redis.connection.stream.*;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+// Publica no RabbitMQ os eventos gravados no outbox por OrderService.updateOrderStatus.
+// Cada instância lê o stream pelo mesmo consumer group; entradas só são removidas após o confirm do broker.
+// Com pedidos particionados há um stream por partição, lidos em sequência a cada ciclo. Com
+// order-production.repository=memory os eventos vêm do outbox do InMemoryOrderRepository, com o mesmo confirm.
+@Component
+public class UpdatedOrderOutboxPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpdatedOrderOutboxPublisher.class);
+    static final String CONSUMER_GROUP = "updated-order-publisher";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RabbitTemplate rabbitTemplate;
+    private final OrderProductionProperties properties;
+    // Presente apenas com order-production.repository=memory
+    private final InMemoryOrderRepository memoryRepository;
+    private final String consumerName = "publisher-" + UUID.randomUUID();
+    private final Timer publishTimer;
+    private final Timer lagTimer;
+    private final Counter unconfirmedCounter;
+    private final Set<String> groupsCreated = ConcurrentHashMap.newKeySet();
+
+    public UpdatedOrderOutboxPublisher(StringRedisTemplate stringRedisTemplate, RabbitTemplate rabbitTemplate,
+                                       OrderProductionProperties properties,
+                                       Optional<InMemoryOrderRepository> memoryRepository,
+                                       MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.rabbitTemplate = rabbitTemplate;
+        this.properties = properties;
+        this.memoryRepository = memoryRepository.orElse(null);
+        this.publishTimer = Timer.builder("orders.outbox.publish")
+                .description("Envio de um lote do outbox até o último publisher confirm")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("orders.outbox.lag")
+                .description("Tempo entre a gravação do evento no outbox e o confirm do broker")
+                .register(meterRegistry);
+        this.unconfirmedCounter = Counter.builder("orders.outbox.unconfirmed")
+                .description("Eventos recusados ou sem confirm do broker, mantidos para nova tentativa")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${order-production.outbox.poll-interval:200}")
+    public void publishPending() {
+        try {
+            if (memoryRepository != null) {
+                int published;
+                do {
+                    published = publishMemoryBatch();
+                } while (published >= properties.getOutbox().getBatchSize());
+                return;
+            }
+            int partitions = Math.max(1, properties.getRedis().getPartitions());
+            for (int partition = 0; partition < partitions; partition++) {
+                String outboxKey = RedisOrderRepository.outboxKey(partitions, partition);
+                int published;
+                do {
+                    published = publishBatch(outboxKey);
+                } while (published >= properties.getOutbox().getBatchSize());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao publicar eventos do outbox de pedidos atualizados: {}", e.getMessage());
+        }
+    }
+
+    int publishBatch(String outboxKey) {
+        try {
+            return publishStreamBatch(outboxKey);
+        } catch (RuntimeException e) {
+            if (RedisStreamGroups.isMissingGroup(e)) {
+                // O script recria o stream no próximo XADD, sem o grupo
+                groupsCreated.remove(outboxKey);
+            }
+            throw e;
+        }
+    }
+
+    private int publishStreamBatch(String outboxKey) {
+        StreamOperations<String, Object, Object> streams = stringRedisTemplate.opsForStream();
+        ensureGroup(streams, outboxKey);
+        RedisStreamGroups.claimStaleEntries(streams, outboxKey, CONSUMER_GROUP, consumerName,
+                properties.getOutbox().getClaimIdleTime(), properties.getOutbox().getBatchSize());
+
+        Consumer consumer = Consumer.from(CONSUMER_GROUP, consumerName);
+        StreamReadOptions options = StreamReadOptions.empty().count(properties.getOutbox().getBatchSize());
+        // Primeiro as entradas já entregues a este consumidor e ainda não confirmadas, depois as novas
+        List<MapRecord<String, Object, Object>> records = streams.read(consumer, options,
+                StreamOffset.create(outboxKey, ReadOffset.from("0")));
+        if (records == null || records.isEmpty()) {
+            records = streams.read(consumer, options,
+                    StreamOffset.create(outboxKey, ReadOffset.lastConsumed()));
+        }
+        if (records == null || records.isEmpty()) {
+            return 0;
+        }
+
+        Map<RecordId, Map<String, Object>> messages = new LinkedHashMap<>();
+        for (MapRecord<String, Object, Object> record : records) {
+            messages.put(record.getId(), toMessage(record.getValue()));
+        }
+        // O id da entrada no stream carrega o horário em ms em que o script a gravou
+        List<RecordId> confirmed = sendConfirmed(messages, RecordId::getValue, RecordId::getTimestamp);
+        if (!confirmed.isEmpty()) {
+            RecordId[] ids = confirmed.toArray(new RecordId[0]);
+            streams.acknowledge(outboxKey, CONSUMER_GROUP, ids);
+            streams.delete(outboxKey, ids);
+        }
+        return confirmed.size();
+    }
+
+    // Eventos confirmados saem do outbox em memória; os demais continuam no início para o próximo ciclo
+    int publishMemoryBatch() {
+        List<InMemoryOrderRepository.OutboxEvent> events =
+                memoryRepository.outboxBatch(properties.getOutbox().getBatchSize());
+        if (events.isEmpty()) {
+            return 0;
+        }
+        Map<InMemoryOrderRepository.OutboxEvent, Map<String, Object>> messages = new LinkedHashMap<>();
+        for (InMemoryOrderRepository.OutboxEvent event : events) {
+            messages.put(event, toMessage(event.getOrderId(), event.getStatus()));
+        }
+        List<InMemoryOrderRepository.OutboxEvent> confirmed = sendConfirmed(messages,
+                event -> event.getCreatedAt() + "-" + event.getOrderId(), InMemoryOrderRepository.OutboxEvent::getCreatedAt);
+        memoryRepository.removeFromOutbox(confirmed);
+        return confirmed.size();
+    }
+
+    // Envia as mensagens e aguarda os publisher confirms; devolve os eventos confirmados, na ordem de envio
+    private <K> List<K> sendConfirmed(Map<K, Map<String, Object>> messages, Function<K, String> correlationId,
+                                      ToLongFunction<K> createdAt) {
+        Timer.Sample publishSample = Timer.start();
+        Map<K, CorrelationData> sent = new LinkedHashMap<>();
+        for (Map.Entry<K, Map<String, Object>> message : messages.entrySet()) {
+            CorrelationData correlationData = new CorrelationData(correlationId.apply(message.getKey()));
+            rabbitTemplate.convertAndSend(RabbitMQConfig.UPDATED_ORDER_EXCHANGE,
+                    RabbitMQConfig.UPDATED_ORDER_ROUTING_KEY, message.getValue(), correlationData);
+            sent.put(message.getKey(), correlationData);
+        }
+
+        List<K> confirmed = new ArrayList<>(sent.size());
+        for (Map.Entry<K, CorrelationData> entry : sent.entrySet()) {
+            if (isConfirmed(entry.getValue())) {
+                confirmed.add(entry.getKey());
+                lagTimer.record(Math.max(0, System.currentTimeMillis() - createdAt.applyAsLong(entry.getKey())),
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+        publishSample.stop(publishTimer);
+        if (confirmed.size() < sent.size()) {
+            unconfirmedCounter.increment(sent.size() - confirmed.size());
+            logger.warn("{} eventos de pedidos atualizados sem confirmação do broker serão reenviados",
+                    sent.size() - confirmed.size());
+        }
+        logger.info("Publicados {} eventos do outbox na fila de pedidos atualizados", confirmed.size());
+        return confirmed;
+    }
+
+    private Map<String, Object> toMessage(Map<Object, Object> fields) {
+        return toMessage(Integer.parseInt(String.valueOf(fields.get("orderId"))),
+                OrderStatus.valueOf(String.valueOf(fields.get("orderStatus"))));
+    }
+
+    private Map<String, Object> toMessage(int orderId, OrderStatus status) {
+        Map<String, Object> updatedOrderMessage = new HashMap<>();
+        updatedOrderMessage.put("orderId", orderId);
+        updatedOrderMessage.put("orderStatus", status);
+        return updatedOrderMessage;
+    }
+
+    private boolean isConfirmed(CorrelationData correlationData) {
+        CorrelationData.Confirm confirm =
+                PublisherConfirms.await(correlationData, properties.getOutbox().getConfirmTimeout());
+        if (!confirm.isAck()) {
+            logger.warn("Evento {} não confirmado pelo broker: {}", correlationData.getId(), confirm.getReason());
+        }
+        return confirm.isAck();
+    }
+
+    private void ensureGroup(StreamOperations<String, Object, Object> streams, String outboxKey) {
+        if (!groupsCreated.contains(outboxKey)) {
+            RedisStreamGroups.createGroupIfMissing(streams, outboxKey, CONSUMER_GROUP);
+            groupsCreated.add(outboxKey);
+        }
+    }
+}
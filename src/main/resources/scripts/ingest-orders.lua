@@ -0,0 +1,62 @@
+-- Ingestão idempotente de um lote de pedidos confirmados, executada em uma única ida ao Redis.
+-- Cada pedido só é gravado se a chave ainda não existir: uma mensagem reentregue ou duplicada custa um SET NX
+-- (EXISTS no layout em hash) e não sobrescreve o status já avançado pela cozinha nem move o pedido de índice.
+-- KEYS[1..n]: chaves dos pedidos; KEYS[n+1..m-1]: índices por status, na ordem de OrderStatus
+-- KEYS[m]: sorted set com o horário em que cada pedido entrou no status atual (análise de produção)
+-- ARGV[1]: TTL em ms; ARGV[2]: horário de recebimento em ms; ARGV[3]: layout (string ou hash); ARGV[4]: n
+-- ARGV[5..]: quatro valores por pedido: orderId, posição do status em OrderStatus (a partir de 1), nome do status
+-- e valor (o pedido serializado no layout em string, o details serializado no layout em hash)
+-- Retorno: um código por pedido, 1 = gravado, 0 = já existia
+local ttl = ARGV[1]
+local receivedAt = ARGV[2]
+local hashLayout = ARGV[3] == 'hash'
+local count = tonumber(ARGV[4])
+local statusCount = #KEYS - count - 1
+local statusSince = KEYS[#KEYS]
+local touched = {}
+local result = {}
+
+for i = 1, count do
+    local key = KEYS[i]
+    local arg = 4 + (i - 1) * 4
+    local member, rank, status, value = ARGV[arg + 1], tonumber(ARGV[arg + 2]), ARGV[arg + 3], ARGV[arg + 4]
+
+    local written
+    if hashLayout then
+        written = redis.call('EXISTS', key) == 0
+        if written then
+            redis.call('HSET', key, 'status', status, 'details', value)
+            redis.call('PEXPIRE', key, ttl)
+        end
+    else
+        written = redis.call('SET', key, value, 'PX', ttl, 'NX') ~= false
+    end
+
+    if written then
+        -- Entradas de um pedido anterior com o mesmo id, já expirado, saem dos outros índices
+        for s = 1, statusCount do
+            if s ~= rank then
+                redis.call('ZREM', KEYS[count + s], member)
+            end
+        end
+        redis.call('ZADD', KEYS[count + rank], receivedAt, member)
+        redis.call('ZADD', statusSince, receivedAt, member)
+        touched[rank] = true
+        result[i] = 1
+    else
+        result[i] = 0
+    end
+end
+
+-- Entradas mais antigas que o TTL do pedido são descartadas e o próprio índice expira junto com o último pedido
+for rank in pairs(touched) do
+    local index = KEYS[count + rank]
+    redis.call('ZREMRANGEBYSCORE', index, '-inf', '(' .. (tonumber(receivedAt) - tonumber(ttl)))
+    redis.call('PEXPIRE', index, ttl)
+end
+if next(touched) then
+    redis.call('ZREMRANGEBYSCORE', statusSince, '-inf', '(' .. (tonumber(receivedAt) - tonumber(ttl)))
+    redis.call('PEXPIRE', statusSince, ttl)
+end
+
+return result
@@ -0,0 +1,98 @@
+-- Transição atômica de status de um pedido, executada em uma única ida ao Redis.
+-- O evento de pedido atualizado é gravado no outbox (stream) na mesma execução e publicado no canal de
+-- mudanças de status, que alimenta o push (SSE) de todas as instâncias.
+-- KEYS[1]: chave do pedido; KEYS[2]: stream do outbox; KEYS[3..n-1]: índices por status, na ordem de OrderStatus
+-- KEYS[n]: sorted set com o horário em que cada pedido entrou no status atual (análise de produção)
+-- ARGV[1]: novo status; ARGV[2]: TTL em ms, aplicado apenas se a chave estiver sem expiração
+-- ARGV[3]: horário atual em ms; ARGV[4]: orderId; ARGV[5]: canal de mudanças de status
+-- ARGV[6..n]: nomes dos status, na ordem de OrderStatus
+-- Retorno: {código, pedido} no layout em string e {código, status, details} no layout em hash,
+-- com código 0 = não encontrado, 1 = atualizado, 2 = sem alteração, 3 = transição inválida (o status só avança
+-- para o seguinte na ordem de OrderStatus: retroceder ou pular etapas é recusado). Na atualização
+-- seguem o status anterior e o tempo em ms que o pedido ficou nele (nil se o horário de entrada não é conhecido)
+local keyType = redis.call('TYPE', KEYS[1]).ok
+if keyType == 'none' then
+    return {0}
+end
+
+local target = ARGV[1]
+
+local function rankOf(status)
+    for i = 6, #ARGV do
+        if ARGV[i] == status then return i - 5 end
+    end
+end
+local targetRank = rankOf(target)
+
+local currentRank, writeStatus, reply
+if keyType == 'hash' then
+    -- Layout em hash: apenas o campo status é lido e reescrito
+    currentRank = rankOf(redis.call('HGET', KEYS[1], 'status'))
+    writeStatus = function()
+        redis.call('HSET', KEYS[1], 'status', target)
+    end
+    reply = function(code)
+        return {code, redis.call('HGET', KEYS[1], 'status'), redis.call('HGET', KEYS[1], 'details')}
+    end
+else
+    local raw = redis.call('GET', KEYS[1])
+    local updated = raw
+    if string.byte(raw, 1) == 192 then
+        -- Formato binário (CompactOrderRedisSerializer): o ordinal do status fica no terceiro byte
+        currentRank = string.byte(raw, 3) + 1
+        writeStatus = function()
+            updated = string.sub(raw, 1, 2) .. string.char(targetRank - 1) .. string.sub(raw, 4)
+            redis.call('SET', KEYS[1], updated, 'KEEPTTL')
+        end
+    else
+        -- Formato JSON: os campos são serializados na ordem orderId, status, details,
+        -- então a primeira ocorrência é o status do pedido
+        local first, last, current = string.find(raw, '"status":"([%w_]+)"')
+        if not first then
+            return redis.error_reply('status ausente no pedido ' .. KEYS[1])
+        end
+        currentRank = rankOf(current)
+        writeStatus = function()
+            updated = string.sub(raw, 1, first - 1) .. '"status":"' .. target .. '"' .. string.sub(raw, last + 1)
+            redis.call('SET', KEYS[1], updated, 'KEEPTTL')
+        end
+    end
+    reply = function(code)
+        return {code, updated}
+    end
+end
+
+if currentRank == targetRank then
+    return reply(2)
+end
+if not currentRank or not targetRank or not ARGV[currentRank + 5] or targetRank ~= currentRank + 1 then
+    return reply(3)
+end
+
+writeStatus()
+if redis.call('PTTL', KEYS[1]) < 0 then
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+
+local member = ARGV[4]
+local fromIndex = KEYS[currentRank + 2]
+local toIndex = KEYS[targetRank + 2]
+local receivedAt = redis.call('ZSCORE', fromIndex, member) or ARGV[3]
+redis.call('ZREM', fromIndex, member)
+redis.call('ZADD', toIndex, receivedAt, member)
+redis.call('ZREMRANGEBYSCORE', toIndex, '-inf', '(' .. (tonumber(ARGV[3]) - tonumber(ARGV[2])))
+redis.call('PEXPIRE', toIndex, ARGV[2])
+
+local statusSince = KEYS[#KEYS]
+local since = redis.call('ZSCORE', statusSince, member)
+redis.call('ZADD', statusSince, ARGV[3], member)
+redis.call('ZREMRANGEBYSCORE', statusSince, '-inf', '(' .. (tonumber(ARGV[3]) - tonumber(ARGV[2])))
+redis.call('PEXPIRE', statusSince, ARGV[2])
+
+redis.call('XADD', KEYS[2], '*', 'orderId', member, 'orderStatus', target)
+redis.call('PUBLISH', ARGV[5], cjson.encode({orderId = tonumber(member), status = target}))
+
+local result = reply(1)
+table.insert(result, ARGV[currentRank + 5])
+table.insert(result, since and math.max(0, tonumber(ARGV[3]) - tonumber(since)) or false)
+return result
@@ -0,0 +1,130 @@
+package com.example.orderproduction.config;
+
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderStatus;
+import com.example.orderproduction.model.RawJson;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactOrderRedisSerializerTest {
+
+    private Jackson2JsonRedisSerializer<Object> jsonSerializer;
+    private CompactOrderRedisSerializer serializer;
+
+    @BeforeEach
+    public void setUp() {
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        mapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        jsonSerializer = new Jackson2JsonRedisSerializer<>(Object.class);
+        jsonSerializer.setObjectMapper(mapper);
+
+        serializer = new CompactOrderRedisSerializer(jsonSerializer, new ObjectMapper());
+    }
+
+    @Test
+    public void testRoundTrip_TextDetails() {
+
+        Order order = new Order(123, OrderStatus.READY, "Lanche: Sanduíche de Soja");
+
+        byte[] bytes = serializer.serialize(order);
+
+        assertEquals(CompactOrderRedisSerializer.FORMAT_MARKER, bytes[0]);
+        assertEquals(CompactOrderRedisSerializer.VERSION, bytes[1]);
+        assertEquals(OrderStatus.READY.ordinal(), bytes[CompactOrderRedisSerializer.STATUS_OFFSET]);
+        assertEquals(order, serializer.deserialize(bytes));
+    }
+
+    @Test
+    public void testRoundTrip_StructuredDetails() {
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("items", Arrays.asList("X-Burger", "Suco"));
+        details.put("total", 42.5);
+        Order order = new Order(7, OrderStatus.RECEIVED, details);
+
+        Order result = (Order) serializer.deserialize(serializer.serialize(order));
+
+        assertEquals(RawJson.of("{\"items\":[\"X-Burger\",\"Suco\"],\"total\":42.5}"), result.getDetails());
+    }
+
+    @Test
+    public void testRoundTrip_RawJsonDetailsKeepsBytes() {
+
+        RawJson details = RawJson.of("{\"items\": [\"X-Burger\"], \"total\": 42.50}");
+        Order order = new Order(7, OrderStatus.RECEIVED, details);
+
+        byte[] bytes = serializer.serialize(order);
+        Order result = (Order) serializer.deserialize(bytes);
+
+        assertEquals(order, result);
+        assertEquals(details.toString(), result.getDetails().toString());
+    }
+
+    @Test
+    public void testRoundTrip_StandaloneRawJson() {
+
+        RawJson details = RawJson.of("[1,2,3]");
+
+        byte[] bytes = serializer.serialize(details);
+
+        assertEquals(CompactOrderRedisSerializer.RAW_JSON_MARKER, bytes[0]);
+        assertEquals(details.length() + 1, bytes.length);
+        assertEquals(details, serializer.deserialize(bytes));
+    }
+
+    @Test
+    public void testRoundTrip_NullStatusAndDetails() {
+
+        Order order = new Order(1, null, null);
+
+        assertEquals(order, serializer.deserialize(serializer.serialize(order)));
+    }
+
+    @Test
+    public void testReadsLegacyJsonValues() {
+
+        Order order = new Order(5, OrderStatus.IN_PREPARATION, Collections.singletonMap("items", Collections.emptyList()));
+
+        byte[] legacy = jsonSerializer.serialize(order);
+
+        assertEquals(order, serializer.deserialize(legacy));
+    }
+
+    @Test
+    public void testNonOrderValuesUseFallback() {
+
+        assertArrayEquals(jsonSerializer.serialize(123), serializer.serialize(123));
+        assertEquals(123, serializer.deserialize(serializer.serialize(123)));
+    }
+
+    @Test
+    public void testRejectsUnknownVersion() {
+
+        byte[] bytes = serializer.serialize(new Order(1, OrderStatus.RECEIVED, "x"));
+        bytes[1] = 99;
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(bytes));
+    }
+
+    @Test
+    public void testSmallerThanJson() {
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("items", Arrays.asList("X-Burger", "Batata", "Suco"));
+        Order order = new Order(123, OrderStatus.IN_PREPARATION, details);
+
+        assertTrue(serializer.serialize(order).length < jsonSerializer.serialize(order).length / 2);
+    }
+}
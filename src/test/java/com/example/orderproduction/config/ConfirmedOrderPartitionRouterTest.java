@@ -0,0 +1,109 @@
+package com.example.orderproduction.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ConfirmedOrderPartitionRouterTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private final OrderProductionProperties properties = new OrderProductionProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ConfirmedOrderPartitionRouter router;
+
+    @BeforeEach
+    public void setUp() {
+
+        properties.getListener().setPartitions(4);
+        properties.getRetry().setConfirmTimeout(Duration.ofMillis(100));
+        router = new ConfirmedOrderPartitionRouter(rabbitTemplate, new Jackson2JsonMessageConverter(), properties,
+                meterRegistry);
+    }
+
+    @Test
+    public void testOnMessageBatch_RepublishesWithOrderIdHeader() {
+
+        confirmWith(true);
+        Message first = order(7);
+        Message second = order(12);
+
+        router.onMessageBatch(Arrays.asList(first, second));
+
+        verify(rabbitTemplate).send(eq(RabbitMQConfig.CONFIRMED_ORDER_PARTITION_EXCHANGE), eq(""), eq(first),
+                any(CorrelationData.class));
+        verify(rabbitTemplate).send(eq(RabbitMQConfig.CONFIRMED_ORDER_PARTITION_EXCHANGE), eq(""), eq(second),
+                any(CorrelationData.class));
+        assertEquals("7", first.getMessageProperties().getHeader(RabbitMQConfig.PARTITION_HASH_HEADER));
+        assertEquals("12", second.getMessageProperties().getHeader(RabbitMQConfig.PARTITION_HASH_HEADER));
+        assertEquals(2, meterRegistry.get("orders.partition.rerouted").counter().count());
+    }
+
+    @Test
+    public void testOnMessageBatch_UnreadableOrderGoesToDeadLetterQueue() {
+
+        confirmWith(true);
+        Message valid = order(1);
+        Message poison = message("{\"orderId\":");
+
+        router.onMessageBatch(Arrays.asList(valid, poison));
+
+        verify(rabbitTemplate).send(eq(""), eq(RabbitMQConfig.CONFIRMED_ORDER_DLQ), eq(poison), any(CorrelationData.class));
+        verify(rabbitTemplate).send(eq(RabbitMQConfig.CONFIRMED_ORDER_PARTITION_EXCHANGE), eq(""), eq(valid),
+                any(CorrelationData.class));
+        assertEquals(1, meterRegistry.get("orders.partition.dead.lettered").counter().count());
+    }
+
+    @Test
+    public void testOnMessageBatch_NackRequeuesBatch() {
+
+        confirmWith(false);
+        List<Message> batch = Collections.singletonList(order(1));
+
+        assertThrows(ImmediateRequeueAmqpException.class, () -> router.onMessageBatch(batch));
+        assertEquals(0, meterRegistry.get("orders.partition.rerouted").counter().count());
+    }
+
+    private void confirmWith(boolean ack) {
+        doAnswer(invocation -> {
+            CorrelationData correlationData = invocation.getArgument(3);
+            correlationData.getFuture().set(new CorrelationData.Confirm(ack, ack ? null : "nack"));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    private static Message order(int orderId) {
+        return message("{\"orderId\":" + orderId + ",\"status\":\"RECEIVED\",\"details\":\"Pedido\"}");
+    }
+
+    private static Message message(String json) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        return new Message(json.getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
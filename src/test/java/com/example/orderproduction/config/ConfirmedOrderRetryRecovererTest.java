@@ -0,0 +1,159 @@
+package com.example.orderproduction.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ConfirmedOrderRetryRecovererTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private final OrderProductionProperties properties = new OrderProductionProperties();
+
+    private ConfirmedOrderRetryRecoverer recoverer;
+
+    @BeforeEach
+    public void setUp() {
+
+        properties.getRetry().setMaxAttempts(3);
+        properties.getRetry().setConfirmTimeout(Duration.ofMillis(100));
+        recoverer = new ConfirmedOrderRetryRecoverer(rabbitTemplate, new Jackson2JsonMessageConverter(), properties);
+    }
+
+    @Test
+    public void testRetryDelay_GrowsExponentiallyUpToMaxInterval() {
+
+        OrderProductionProperties.Retry retry = new OrderProductionProperties.Retry();
+
+        assertEquals(Duration.ofSeconds(1), RabbitMQConfig.retryDelay(retry, 1));
+        assertEquals(Duration.ofSeconds(8), RabbitMQConfig.retryDelay(retry, 4));
+        assertEquals(Duration.ofMinutes(1), RabbitMQConfig.retryDelay(retry, 10));
+        assertEquals("confirmed.order.retry.2000ms", RabbitMQConfig.retryQueueName(retry, 2));
+    }
+
+    @Test
+    public void testRecover_SendsToRetryQueueAndCountsAttempt() {
+
+        confirmWith(true);
+        Message message = order(1);
+        message.getMessageProperties().setHeader(ConfirmedOrderRetryRecoverer.ATTEMPTS_HEADER, 1);
+
+        recoverer.recover(Collections.singletonList(message), new IllegalStateException("Redis fora do ar"));
+
+        verify(rabbitTemplate).send(eq(""), eq(RabbitMQConfig.retryQueueName(properties.getRetry(), 2)), eq(message),
+                any(CorrelationData.class));
+        assertEquals(2, ConfirmedOrderRetryRecoverer.attempts(message));
+        assertEquals("IllegalStateException: Redis fora do ar",
+                message.getMessageProperties().getHeader(ConfirmedOrderRetryRecoverer.LAST_ERROR_HEADER));
+    }
+
+    @Test
+    public void testRecover_SendsToDeadLetterQueueAfterMaxAttempts() {
+
+        confirmWith(true);
+        Message message = order(1);
+        message.getMessageProperties().setHeader(ConfirmedOrderRetryRecoverer.ATTEMPTS_HEADER, 2);
+
+        recoverer.recover(Collections.singletonList(message), new IllegalStateException("falha"));
+
+        verify(rabbitTemplate).send(eq(""), eq(RabbitMQConfig.CONFIRMED_ORDER_DLQ), eq(message), any(CorrelationData.class));
+        assertEquals(3, ConfirmedOrderRetryRecoverer.attempts(message));
+    }
+
+    @Test
+    public void testRecover_ConversionFailureDeadLettersOnlyPoisonMessages() {
+
+        confirmWith(true);
+        Message valid = order(1);
+        Message poison = message("{\"orderId\":");
+
+        recoverer.recover(Arrays.asList(valid, poison), new MessageConversionException("JSON inválido"));
+
+        ArgumentCaptor<String> queues = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Message> messages = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate, times(2)).send(eq(""), queues.capture(), messages.capture(), any(CorrelationData.class));
+        assertEquals(Arrays.asList(RabbitMQConfig.CONFIRMED_ORDER_QUEUE, RabbitMQConfig.CONFIRMED_ORDER_DLQ),
+                queues.getAllValues());
+        assertEquals(Arrays.asList(valid, poison), messages.getAllValues());
+        assertEquals(0, ConfirmedOrderRetryRecoverer.attempts(valid));
+    }
+
+    @Test
+    public void testRecover_PartitionedUsesPartitionedRetryQueuesAndConsumerQueue() {
+
+        confirmWith(true);
+        properties.getListener().setPartitions(4);
+        Message failed = order(1);
+        Message valid = order(2);
+        valid.getMessageProperties().setConsumerQueue(RabbitMQConfig.partitionQueueName(3));
+
+        recoverer.recover(Collections.singletonList(failed), new IllegalStateException("falha"));
+        recoverer.recover(Arrays.asList(valid, message("{")), new MessageConversionException("JSON inválido"));
+
+        verify(rabbitTemplate).send(eq(""), eq("confirmed.order.partitioned.retry.1000ms"), eq(failed),
+                any(CorrelationData.class));
+        verify(rabbitTemplate).send(eq(""), eq("confirmed.order.partition.3"), eq(valid), any(CorrelationData.class));
+    }
+
+    @Test
+    public void testRecover_NackRequeuesBatch() {
+
+        confirmWith(false);
+        List<Message> batch = Collections.singletonList(order(1));
+
+        assertThrows(ImmediateRequeueAmqpException.class,
+                () -> recoverer.recover(batch, new IllegalStateException("falha")));
+    }
+
+    @Test
+    public void testRecover_MissingConfirmRequeuesBatch() {
+
+        List<Message> batch = Collections.singletonList(order(1));
+
+        assertThrows(ImmediateRequeueAmqpException.class,
+                () -> recoverer.recover(batch, new IllegalStateException("falha")));
+    }
+
+    private void confirmWith(boolean ack) {
+        doAnswer(invocation -> {
+            CorrelationData correlationData = invocation.getArgument(3);
+            correlationData.getFuture().set(new CorrelationData.Confirm(ack, ack ? null : "nack"));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    private static Message order(int orderId) {
+        return message("{\"orderId\":" + orderId + ",\"status\":\"RECEIVED\",\"details\":\"Pedido\"}");
+    }
+
+    private static Message message(String json) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        return new Message(json.getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
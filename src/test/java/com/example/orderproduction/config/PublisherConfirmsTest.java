@@ -0,0 +1,49 @@
+package com.example.orderproduction.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PublisherConfirmsTest {
+
+    @Test
+    public void testAwait_ReturnsBrokerConfirm() {
+
+        CorrelationData correlationData = new CorrelationData("1");
+        correlationData.getFuture().set(new CorrelationData.Confirm(false, "nack"));
+
+        CorrelationData.Confirm confirm = PublisherConfirms.await(correlationData, Duration.ofSeconds(1));
+
+        assertFalse(confirm.isAck());
+        assertEquals("nack", confirm.getReason());
+    }
+
+    @Test
+    public void testAwait_TimeoutIsNack() {
+
+        CorrelationData.Confirm confirm = PublisherConfirms.await(new CorrelationData("1"), Duration.ofMillis(10));
+
+        assertFalse(confirm.isAck());
+        assertTrue(confirm.getReason().startsWith("Sem confirm do broker"));
+    }
+
+    @Test
+    public void testAwaitAll_RequeuesBatchWhenAnyMessageIsNotAcked() {
+
+        CorrelationData acked = new CorrelationData("1");
+        acked.getFuture().set(new CorrelationData.Confirm(true, null));
+        CorrelationData refused = new CorrelationData("2");
+        refused.getFuture().set(new CorrelationData.Confirm(false, "nack"));
+
+        PublisherConfirms.awaitAll(Arrays.asList(acked), Duration.ofSeconds(1), "Recusada");
+        ImmediateRequeueAmqpException exception = assertThrows(ImmediateRequeueAmqpException.class, () ->
+                PublisherConfirms.awaitAll(Arrays.asList(acked, refused), Duration.ofSeconds(1), "Recusada"));
+
+        assertEquals("Recusada: nack", exception.getMessage());
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.orderproduction.config;
+
+import com.example.orderproduction.service.OrderEventListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.MethodRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class RabbitMQConfigTest {
+
+    private final RabbitMQConfig config = new RabbitMQConfig();
+    private final SimpleRabbitListenerContainerFactory containerFactory = new SimpleRabbitListenerContainerFactory();
+    private final SimpleRabbitListenerContainerFactory routerContainerFactory = new SimpleRabbitListenerContainerFactory();
+    private final OrderEventListener listener = mock(OrderEventListener.class);
+    private final ConfirmedOrderPartitionRouter partitionRouter = mock(ConfirmedOrderPartitionRouter.class);
+    private OrderProductionProperties properties;
+    private List<SimpleRabbitListenerEndpoint> routerEndpoints;
+
+    @BeforeEach
+    public void setUp() {
+
+        properties = new OrderProductionProperties();
+    }
+
+    @Test
+    public void testPaidOrderRouting_SingleQueueByDefault() {
+
+        Declarables routing = config.paidOrderRouting(config.paidOrderQueue(), config.paidOrderExchange(), properties);
+
+        List<Binding> bindings = routing.getDeclarablesByType(Binding.class);
+        assertEquals(1, bindings.size());
+        assertEquals(RabbitMQConfig.CONFIRMED_ORDER_QUEUE, bindings.get(0).getDestination());
+    }
+
+    @Test
+    public void testPaidOrderRouting_PartitionsBehindConsistentHashExchange() {
+
+        properties.getListener().setPartitions(3);
+
+        Declarables routing = config.paidOrderRouting(config.paidOrderQueue(), config.paidOrderExchange(), properties);
+
+        Exchange exchange = routing.getDeclarablesByType(CustomExchange.class).get(0);
+        assertEquals("x-consistent-hash", exchange.getType());
+        assertEquals(RabbitMQConfig.PARTITION_HASH_HEADER, exchange.getArguments().get("hash-header"));
+        assertEquals(RabbitMQConfig.CONFIRMED_ORDER_UNPARTITIONED_EXCHANGE,
+                exchange.getArguments().get("alternate-exchange"));
+        List<Queue> queues = routing.getDeclarablesByType(Queue.class);
+        assertEquals(Arrays.asList("confirmed.order.partition.0", "confirmed.order.partition.1",
+                "confirmed.order.partition.2"), queues.stream().map(Queue::getName).collect(Collectors.toList()));
+        assertEquals(true, queues.get(0).getArguments().get("x-single-active-consumer"));
+        assertEquals(RabbitMQConfig.CONFIRMED_ORDER_DLQ, queues.get(0).getArguments().get("x-dead-letter-routing-key"));
+        List<Binding> bindings = routing.getDeclarablesByType(Binding.class);
+        assertEquals(5, bindings.size());
+        // A fila única só recebe, pela alternate-exchange, pedidos sem o cabeçalho da partição
+        assertEquals(Arrays.asList(RabbitMQConfig.CONFIRMED_ORDER_UNPARTITIONED_EXCHANGE), bindings.stream()
+                .filter(binding -> RabbitMQConfig.CONFIRMED_ORDER_QUEUE.equals(binding.getDestination()))
+                .map(Binding::getExchange).collect(Collectors.toList()));
+        assertEquals(ExchangeTypes.FANOUT, routing.getDeclarablesByType(FanoutExchange.class).get(0).getType());
+        assertTrue(bindings.stream().anyMatch(binding -> binding.isDestinationQueue()
+                && "1".equals(binding.getRoutingKey())
+                && RabbitMQConfig.CONFIRMED_ORDER_PARTITION_EXCHANGE.equals(binding.getExchange())));
+    }
+
+    @Test
+    public void testPaidOrderRetryQueues_PartitionedReturnToPartitionExchange() {
+
+        properties.getListener().setPartitions(2);
+
+        List<Queue> queues = config.paidOrderRetryQueues(properties).getDeclarablesByType(Queue.class);
+
+        assertFalse(queues.isEmpty());
+        for (Queue queue : queues) {
+            assertTrue(queue.getName().startsWith(RabbitMQConfig.CONFIRMED_ORDER_PARTITION_RETRY_QUEUE_PREFIX));
+            assertEquals(RabbitMQConfig.CONFIRMED_ORDER_PARTITION_EXCHANGE,
+                    queue.getArguments().get("x-dead-letter-exchange"));
+        }
+    }
+
+    @Test
+    public void testAssignedPartitions() {
+
+        OrderProductionProperties.Listener listenerProperties = properties.getListener();
+        listenerProperties.setPartitions(4);
+        assertEquals(Arrays.asList(0, 1, 2, 3), RabbitMQConfig.assignedPartitions(listenerProperties));
+
+        listenerProperties.setAssignedPartitions(Arrays.asList(3, 1, 3));
+        assertEquals(Arrays.asList(3, 1), RabbitMQConfig.assignedPartitions(listenerProperties));
+
+        listenerProperties.setAssignedPartitions(Arrays.asList(4));
+        assertThrows(IllegalStateException.class, () -> RabbitMQConfig.assignedPartitions(listenerProperties));
+    }
+
+    @Test
+    public void testConfirmedOrderListeners_SingleQueue() {
+
+        properties.getListener().setConcurrency(2);
+
+        List<MethodRabbitListenerEndpoint> endpoints = registeredEndpoints(Optional.of(listener));
+
+        assertEquals(1, endpoints.size());
+        assertTrue(routerEndpoints.isEmpty());
+        assertEquals(Arrays.asList(RabbitMQConfig.CONFIRMED_ORDER_QUEUE), endpoints.get(0).getQueueNames());
+        assertNull(endpoints.get(0).getConcurrency());
+        assertTrue(endpoints.get(0).isBatchListener());
+        assertSame(listener, endpoints.get(0).getBean());
+        assertEquals("receiveOrders", endpoints.get(0).getMethod().getName());
+    }
+
+    @Test
+    public void testConfirmedOrderListeners_OneSingleConsumerContainerPerAssignedPartition() {
+
+        properties.getListener().setPartitions(4);
+        properties.getListener().setAssignedPartitions(Arrays.asList(1, 3));
+
+        List<MethodRabbitListenerEndpoint> endpoints = registeredEndpoints(Optional.of(listener));
+
+        assertEquals(Arrays.asList("confirmedOrderListener-1", "confirmedOrderListener-3"),
+                endpoints.stream().map(MethodRabbitListenerEndpoint::getId).collect(Collectors.toList()));
+        assertEquals(Arrays.asList("confirmed.order.partition.3"), endpoints.get(1).getQueueNames());
+        assertEquals("1", endpoints.get(1).getConcurrency());
+    }
+
+    @Test
+    public void testConfirmedOrderListeners_PartitionedDrainsSingleQueueThroughRouter() {
+
+        properties.getListener().setPartitions(4);
+
+        registeredEndpoints(Optional.of(listener));
+
+        // Pedidos que ficaram na fila única na troca para partições continuam tendo consumidor
+        assertEquals(1, routerEndpoints.size());
+        SimpleRabbitListenerEndpoint router = routerEndpoints.get(0);
+        assertEquals(Arrays.asList(RabbitMQConfig.CONFIRMED_ORDER_QUEUE), router.getQueueNames());
+        assertEquals("1", router.getConcurrency());
+        assertTrue(router.isExclusive());
+        assertTrue(router.isBatchListener());
+        assertSame(partitionRouter, router.getMessageListener());
+    }
+
+    @Test
+    public void testConfirmedOrderListeners_NoneWithoutListener() {
+
+        properties.getListener().setPartitions(4);
+
+        assertTrue(registeredEndpoints(Optional.empty()).isEmpty());
+        assertTrue(routerEndpoints.isEmpty());
+    }
+
+    private List<MethodRabbitListenerEndpoint> registeredEndpoints(Optional<OrderEventListener> orderEventListener) {
+        RabbitListenerEndpointRegistrar registrar = mock(RabbitListenerEndpointRegistrar.class);
+        config.confirmedOrderListeners(containerFactory, routerContainerFactory, partitionRouter, orderEventListener,
+                properties, new DefaultListableBeanFactory()).configureRabbitListeners(registrar);
+        ArgumentCaptor<MethodRabbitListenerEndpoint> endpoints = ArgumentCaptor.forClass(MethodRabbitListenerEndpoint.class);
+        verify(registrar, atLeast(0)).registerEndpoint(endpoints.capture(), eq(containerFactory));
+        ArgumentCaptor<SimpleRabbitListenerEndpoint> routers = ArgumentCaptor.forClass(SimpleRabbitListenerEndpoint.class);
+        verify(registrar, atLeast(0)).registerEndpoint(routers.capture(), eq(routerContainerFactory));
+        verify(registrar, never()).registerEndpoint(any());
+        routerEndpoints = routers.getAllValues();
+        return endpoints.getAllValues();
+    }
+}
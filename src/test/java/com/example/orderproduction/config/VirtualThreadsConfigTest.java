@@ -0,0 +1,55 @@
+package com.example.orderproduction.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+public class VirtualThreadsConfigTest {
+
+    @Test
+    public void testTaskExecutor_RunsOnNamedVirtualThread() throws Exception {
+
+        assumeTrue(Runtime.version().feature() >= 21);
+        SimpleAsyncTaskExecutor executor = VirtualThreadsConfig.taskExecutor("test-vt-");
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+
+        executor.execute(() -> thread.complete(Thread.currentThread()));
+
+        Thread executed = thread.get(5, TimeUnit.SECONDS);
+        assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(executed));
+        assertEquals("test-vt-0", executed.getName());
+    }
+
+    @Test
+    public void testTaskExecutor_FailsBeforeJava21() {
+
+        assumeTrue(Runtime.version().feature() < 21);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> VirtualThreadsConfig.taskExecutor("test-vt-"));
+        assertTrue(exception.getMessage().contains("Java 21"));
+    }
+
+    @Test
+    public void testListenerFactory_KeepsDefaultExecutorWhenDisabled() {
+
+        OrderProductionProperties properties = new OrderProductionProperties();
+
+        SimpleRabbitListenerContainerFactory factory = new RabbitMQConfig().confirmedOrderListenerContainerFactory(
+                new SimpleRabbitListenerContainerFactoryConfigurer(new RabbitProperties()),
+                mock(ConnectionFactory.class), properties, mock(ConfirmedOrderRetryRecoverer.class));
+
+        assertNull(ReflectionTestUtils.getField(factory, "taskExecutor"));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.orderproduction.controller;
+
+import com.example.orderproduction.config.RabbitMQConfig;
+import com.example.orderproduction.dto.DeadLetterDTO;
+import com.example.orderproduction.service.DeadLetterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Collections;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class DeadLetterAdminControllerTest {
+
+    private MockMvc mockMvc;
+    private DeadLetterService deadLetterService;
+
+    @BeforeEach
+    public void setUp() {
+
+        deadLetterService = Mockito.mock(DeadLetterService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new DeadLetterAdminController(deadLetterService)).build();
+    }
+
+    @Test
+    public void testPeek() throws Exception {
+        String queue = RabbitMQConfig.CONFIRMED_ORDER_QUEUE;
+        when(deadLetterService.hasDeadLetterQueue(queue)).thenReturn(true);
+        when(deadLetterService.peek(queue, 50)).thenReturn(Collections.singletonList(
+                new DeadLetterDTO("m1", 5, "IllegalStateException: falha", Collections.emptyMap(), "{}")));
+
+        MvcResult result = mockMvc.perform(get("/order-production/admin/dead-letters/" + queue)).andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].messageId").value("m1"))
+                .andExpect(jsonPath("$[0].attempts").value(5));
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        String queue = RabbitMQConfig.CONFIRMED_ORDER_QUEUE;
+        when(deadLetterService.hasDeadLetterQueue(queue)).thenReturn(true);
+        when(deadLetterService.replay(queue, 10)).thenReturn(3);
+
+        MvcResult result = mockMvc.perform(post("/order-production/admin/dead-letters/" + queue + "/replay")
+                .param("limit", "10")).andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.queue").value(queue))
+                .andExpect(jsonPath("$.replayed").value(3));
+    }
+
+    @Test
+    public void testUnknownQueue() throws Exception {
+        MvcResult result = mockMvc.perform(get("/order-production/admin/dead-letters/outra.fila")).andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+}
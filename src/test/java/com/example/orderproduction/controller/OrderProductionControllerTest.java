@@ -1,9 +1,15 @@
 package com.example.orderproduction.controller;
 
+import com.example.orderproduction.dto.OrderStatusDTO;
 import com.example.orderproduction.dto.OrderStatusUpdateDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO;
 import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderPage;
 import com.example.orderproduction.model.OrderStatus;
+import com.example.orderproduction.service.InvalidCursorException;
+import com.example.orderproduction.service.InvalidStatusTransitionException;
 import com.example.orderproduction.service.OrderService;
+import com.example.orderproduction.service.OrderStatusPushService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,6 +17,7 @@ import org.mockito.Mockito;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -19,21 +26,26 @@ import java.util.List;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 public class OrderProductionControllerTest {
 
     private MockMvc mockMvc;
     private OrderService orderService;
+    private OrderStatusPushService pushService;
     private ObjectMapper objectMapper;
 
     @BeforeEach
     public void setUp() {
 
         orderService = Mockito.mock(OrderService.class);
+        pushService = Mockito.mock(OrderStatusPushService.class);
 
-        OrderProductionController orderProductionController = new OrderProductionController(orderService);
+        OrderProductionController orderProductionController = new OrderProductionController(orderService, pushService);
 
         mockMvc = MockMvcBuilders.standaloneSetup(orderProductionController).build();
 
@@ -61,6 +73,65 @@ public class OrderProductionControllerTest {
                 .andExpect(jsonPath("$.status").value(newStatus.toString()));
     }
 
+    @Test
+    public void testUpdateStatusInvalidTransition() throws Exception {
+        int orderId = 123;
+        OrderStatus newStatus = OrderStatus.RECEIVED;
+
+        when(orderService.updateOrderStatus(orderId, newStatus))
+                .thenThrow(new InvalidStatusTransitionException(orderId, newStatus));
+
+        OrderStatusUpdateDTO request = new OrderStatusUpdateDTO();
+        request.setStatus(newStatus);
+
+        mockMvc.perform(put("/order-production/orders/" + orderId + "/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void testUpdateStatusMissingStatus() throws Exception {
+        int orderId = 123;
+
+        when(orderService.updateOrderStatus(orderId, null))
+                .thenThrow(new IllegalArgumentException("Status ausente na atualização do pedido " + orderId));
+
+        mockMvc.perform(put("/order-production/orders/" + orderId + "/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testUpdateStatuses() throws Exception {
+        List<OrderStatusDTO> updates = Arrays.asList(new OrderStatusDTO(1, OrderStatus.READY),
+                new OrderStatusDTO(2, OrderStatus.READY));
+        when(orderService.updateOrderStatuses(Mockito.anyList())).thenReturn(Arrays.asList(
+                new OrderStatusUpdateResultDTO(1, OrderStatusUpdateResultDTO.Result.UPDATED,
+                        new Order(1, OrderStatus.READY, "Order 1")),
+                new OrderStatusUpdateResultDTO(2, OrderStatusUpdateResultDTO.Result.NOT_FOUND, null)));
+
+        mockMvc.perform(put("/order-production/orders/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updates)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].result").value("UPDATED"))
+                .andExpect(jsonPath("$[0].order.status").value("READY"))
+                .andExpect(jsonPath("$[1].orderId").value(2))
+                .andExpect(jsonPath("$[1].result").value("NOT_FOUND"));
+    }
+
+    @Test
+    public void testUpdateStatusesTooLarge() throws Exception {
+        when(orderService.updateOrderStatuses(Mockito.anyList())).thenThrow(new IllegalArgumentException("limite"));
+
+        mockMvc.perform(put("/order-production/orders/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void testGetOrderFound() throws Exception {
         int orderId = 123;
@@ -84,6 +155,28 @@ public class OrderProductionControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void testGetOrderStatusFound() throws Exception {
+        int orderId = 123;
+
+        when(orderService.getOrderStatus(orderId)).thenReturn(OrderStatus.READY);
+
+        mockMvc.perform(get("/order-production/orders/" + orderId + "/status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderId").value(orderId))
+                .andExpect(jsonPath("$.status").value(OrderStatus.READY.toString()));
+    }
+
+    @Test
+    public void testGetOrderStatusNotFound() throws Exception {
+        int orderId = 123;
+
+        when(orderService.getOrderStatus(orderId)).thenReturn(null);
+
+        mockMvc.perform(get("/order-production/orders/" + orderId + "/status"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     public void testGetOrdersByStatusFound() throws Exception {
         OrderStatus status = OrderStatus.RECEIVED;
@@ -91,23 +184,84 @@ public class OrderProductionControllerTest {
         Order order2 = new Order(2, status, "Details 2");
         List<Order> orders = Arrays.asList(order1, order2);
 
-        when(orderService.getOrdersByStatus(status)).thenReturn(orders);
+        when(orderService.getOrdersByStatus(status, 2, "abc")).thenReturn(new OrderPage<>(orders.iterator(), "next"));
 
         mockMvc.perform(get("/order-production/orders/status")
-                        .param("status", status.toString()))
+                        .param("status", status.toString())
+                        .param("limit", "2")
+                        .param("cursor", "abc"))
                 .andExpect(status().isOk())
+                .andExpect(header().string(OrderPage.NEXT_CURSOR_HEADER, "next"))
                 .andExpect(jsonPath("$[0].orderId").value("1"))
                 .andExpect(jsonPath("$[1].orderId").value("2"));
     }
 
     @Test
-    public void testGetOrdersByStatusNotFound() throws Exception {
+    public void testGetOrdersByStatusEmptyPage() throws Exception {
         OrderStatus status = OrderStatus.IN_PREPARATION;
 
-        when(orderService.getOrdersByStatus(status)).thenReturn(Collections.emptyList());
+        when(orderService.getOrdersByStatus(status, null, null))
+                .thenReturn(new OrderPage<>(Collections.<Order>emptyIterator(), null));
 
         mockMvc.perform(get("/order-production/orders/status")
                         .param("status", status.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(OrderPage.NEXT_CURSOR_HEADER))
+                .andExpect(content().json("[]"));
+    }
+
+    @Test
+    public void testGetOrdersByStatusInvalidCursor() throws Exception {
+        OrderStatus status = OrderStatus.READY;
+
+        when(orderService.getOrdersByStatus(status, null, "x")).thenThrow(new InvalidCursorException("x"));
+
+        mockMvc.perform(get("/order-production/orders/status")
+                        .param("status", status.toString())
+                        .param("cursor", "x"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testGetOrdersByIdsFound() throws Exception {
+        Order order1 = new Order(1, OrderStatus.RECEIVED, "Details 1");
+        Order order3 = new Order(3, OrderStatus.READY, "Details 3");
+
+        when(orderService.getOrders(Arrays.asList(1, 2, 3))).thenReturn(Arrays.asList(order1, order3));
+
+        mockMvc.perform(get("/order-production/orders")
+                        .param("ids", "1,2,3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].orderId").value("1"))
+                .andExpect(jsonPath("$[1].orderId").value("3"));
+    }
+
+    @Test
+    public void testGetOrdersByIdsNotFound() throws Exception {
+        when(orderService.getOrders(Arrays.asList(7, 8))).thenReturn(Collections.emptyList());
+
+        mockMvc.perform(get("/order-production/orders")
+                        .param("ids", "7", "8"))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetOrdersByIdsTooMany() throws Exception {
+        when(orderService.getOrders(Arrays.asList(1, 2))).thenThrow(new IllegalArgumentException("limite"));
+
+        mockMvc.perform(get("/order-production/orders")
+                        .param("ids", "1,2"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testStreamStatusChanges() throws Exception {
+        when(pushService.subscribe(OrderStatus.READY, null)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/order-production/orders/stream")
+                        .param("status", "READY")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.orderproduction.controller;
+
+import com.example.orderproduction.dto.OrderStatusDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO;
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderPage;
+import com.example.orderproduction.model.OrderStatus;
+import com.example.orderproduction.service.InvalidCursorException;
+import com.example.orderproduction.service.InvalidStatusTransitionException;
+import com.example.orderproduction.service.ReactiveOrderService;
+import com.example.orderproduction.service.ReactiveOrderStatusPushService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+public class ReactiveOrderProductionControllerTest {
+
+    private WebTestClient webTestClient;
+    private ReactiveOrderService orderService;
+    private ReactiveOrderStatusPushService pushService;
+
+    @BeforeEach
+    public void setUp() {
+
+        orderService = Mockito.mock(ReactiveOrderService.class);
+        pushService = Mockito.mock(ReactiveOrderStatusPushService.class);
+
+        webTestClient = WebTestClient.bindToController(new ReactiveOrderProductionController(orderService, pushService))
+                .build();
+    }
+
+    @Test
+    public void testUpdateStatus() {
+        Order updatedOrder = new Order(123, OrderStatus.IN_PREPARATION, "Order details");
+        when(orderService.updateOrderStatus(123, OrderStatus.IN_PREPARATION)).thenReturn(Mono.just(updatedOrder));
+
+        webTestClient.put().uri("/order-production/orders/123/status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(statusUpdate(OrderStatus.IN_PREPARATION))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.orderId").isEqualTo(123)
+                .jsonPath("$.status").isEqualTo("IN_PREPARATION");
+    }
+
+    @Test
+    public void testUpdateStatusInvalidTransition() {
+        when(orderService.updateOrderStatus(123, OrderStatus.RECEIVED))
+                .thenReturn(Mono.error(new InvalidStatusTransitionException(123, OrderStatus.RECEIVED)));
+
+        webTestClient.put().uri("/order-production/orders/123/status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(statusUpdate(OrderStatus.RECEIVED))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @Test
+    public void testUpdateStatusMissingStatus() {
+        when(orderService.updateOrderStatus(123, null))
+                .thenReturn(Mono.error(new IllegalArgumentException("Status ausente na atualização do pedido 123")));
+
+        webTestClient.put().uri("/order-production/orders/123/status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{}")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testUpdateStatusOrderNotFound() {
+        when(orderService.updateOrderStatus(123, OrderStatus.READY))
+                .thenReturn(Mono.error(new RuntimeException("Pedido não encontrado com id: 123")));
+
+        webTestClient.put().uri("/order-production/orders/123/status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(statusUpdate(OrderStatus.READY))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testUpdateStatuses() {
+        when(orderService.updateOrderStatuses(Mockito.anyList())).thenReturn(Mono.just(Arrays.asList(
+                new OrderStatusUpdateResultDTO(1, OrderStatusUpdateResultDTO.Result.UPDATED,
+                        new Order(1, OrderStatus.READY, "Order 1")),
+                new OrderStatusUpdateResultDTO(2, OrderStatusUpdateResultDTO.Result.INVALID_TRANSITION,
+                        new Order(2, OrderStatus.FINISHED, "Order 2")))));
+
+        webTestClient.put().uri("/order-production/orders/status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Arrays.asList(new OrderStatusDTO(1, OrderStatus.READY), new OrderStatusDTO(2, OrderStatus.READY)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].result").isEqualTo("UPDATED")
+                .jsonPath("$[1].result").isEqualTo("INVALID_TRANSITION")
+                .jsonPath("$[1].order.status").isEqualTo("FINISHED");
+    }
+
+    @Test
+    public void testUpdateStatusesTooLarge() {
+        when(orderService.updateOrderStatuses(Mockito.anyList()))
+                .thenReturn(Mono.error(new IllegalArgumentException("limite")));
+
+        webTestClient.put().uri("/order-production/orders/status")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Arrays.asList(new OrderStatusDTO(1, OrderStatus.READY)))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testGetOrderFound() {
+        when(orderService.getOrder(123)).thenReturn(Mono.just(new Order(123, OrderStatus.READY, "Order details")));
+
+        webTestClient.get().uri("/order-production/orders/123")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("READY");
+    }
+
+    @Test
+    public void testGetOrderNotFound() {
+        when(orderService.getOrder(123)).thenReturn(Mono.empty());
+
+        webTestClient.get().uri("/order-production/orders/123")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testGetOrderStatusFound() {
+        when(orderService.getOrderStatus(123)).thenReturn(Mono.just(OrderStatus.READY));
+
+        webTestClient.get().uri("/order-production/orders/123/status")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.orderId").isEqualTo(123)
+                .jsonPath("$.status").isEqualTo("READY");
+    }
+
+    @Test
+    public void testGetOrdersByStatusFound() {
+        when(orderService.getOrdersByStatus(OrderStatus.READY, 2, "abc")).thenReturn(Mono.just(new OrderPage<>(Flux.just(
+                new Order(1, OrderStatus.READY, "Order 1"), new Order(2, OrderStatus.READY, "Order 2")), "next")));
+
+        webTestClient.get().uri("/order-production/orders/status?status=READY&limit=2&cursor=abc")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(OrderPage.NEXT_CURSOR_HEADER, "next")
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[1].orderId").isEqualTo(2);
+    }
+
+    @Test
+    public void testGetOrdersByStatusStreamsNdjson() {
+        when(orderService.getOrdersByStatus(OrderStatus.READY, null, null)).thenReturn(Mono.just(new OrderPage<>(Flux.just(
+                new Order(1, OrderStatus.READY, "Order 1"), new Order(2, OrderStatus.READY, "Order 2")), null)));
+
+        webTestClient.get().uri("/order-production/orders/status?status=READY")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectHeader().doesNotExist(OrderPage.NEXT_CURSOR_HEADER)
+                .expectBodyList(Order.class).hasSize(2);
+    }
+
+    @Test
+    public void testGetOrdersByStatusEmptyPage() {
+        when(orderService.getOrdersByStatus(OrderStatus.FINISHED, null, null))
+                .thenReturn(Mono.just(new OrderPage<>(Flux.empty(), null)));
+
+        webTestClient.get().uri("/order-production/orders/status?status=FINISHED")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .json("[]");
+    }
+
+    @Test
+    public void testGetOrdersByStatusInvalidCursor() {
+        when(orderService.getOrdersByStatus(OrderStatus.READY, null, "x"))
+                .thenReturn(Mono.error(new InvalidCursorException("x")));
+
+        webTestClient.get().uri("/order-production/orders/status?status=READY&cursor=x")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testGetOrdersByIdsFound() {
+        when(orderService.getOrders(Arrays.asList(1, 2))).thenReturn(Flux.just(new Order(1, OrderStatus.READY, "Order 1")));
+
+        webTestClient.get().uri("/order-production/orders?ids=1,2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].orderId").isEqualTo(1);
+    }
+
+    @Test
+    public void testGetOrdersByIdsTooMany() {
+        when(orderService.getOrders(Arrays.asList(1, 2))).thenReturn(Flux.error(new IllegalArgumentException("limite")));
+
+        webTestClient.get().uri("/order-production/orders?ids=1,2")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testStreamStatusChanges() {
+        when(pushService.subscribe(OrderStatus.READY, null)).thenReturn(Flux.just(
+                ServerSentEvent.builder(new OrderStatusDTO(7, OrderStatus.READY)).event("order-status").build()));
+
+        Flux<ServerSentEvent<OrderStatusDTO>> events = webTestClient.get()
+                .uri("/order-production/orders/stream?status=READY")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<OrderStatusDTO>>() {
+                })
+                .getResponseBody();
+
+        ServerSentEvent<OrderStatusDTO> event = events.blockFirst();
+        assertEquals("order-status", event.event());
+        assertEquals(7, event.data().getOrderId());
+    }
+
+    private static OrderStatusUpdateDTO statusUpdate(OrderStatus status) {
+        OrderStatusUpdateDTO request = new OrderStatusUpdateDTO();
+        request.setStatus(status);
+        return request;
+    }
+}
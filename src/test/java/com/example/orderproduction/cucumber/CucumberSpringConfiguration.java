@@ -4,7 +4,10 @@ import io.cucumber.spring.CucumberContextConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
 
 @CucumberContextConfiguration
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+// Redis local por padrão, para exercitar os scripts Lua; a execução integration-tests-memory do failsafe repete os
+// cenários com it.repository=memory
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "order-production.repository=${it.repository:redis}")
 public class CucumberSpringConfiguration {
 
 }
\ No newline at end of file
@@ -10,38 +10,42 @@ import com.example.orderproduction.config.RabbitMQConfig;
 import com.example.orderproduction.dto.OrderStatusUpdateDTO;
 import com.example.orderproduction.model.Order;
 import com.example.orderproduction.model.OrderStatus;
+import com.example.orderproduction.service.OrderRepository;
 import io.cucumber.java.Before;
 import io.cucumber.java.en.And;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.boot.test.web.client.TestRestTemplate;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 
 public class OrderStatusUpdateSteps {
 
     private final TestRestTemplate restTemplate;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final OrderRepository orderRepository;
 
     @Mock
     private RabbitTemplate rabbitTemplate;
 
     private int orderId;
+    private ResponseEntity<Order> updateResponse;
     private ResponseEntity<Order> queryResponse;
 
-    public OrderStatusUpdateSteps(TestRestTemplate restTemplate, RedisTemplate<String, Object> redisTemplate) {
+    public OrderStatusUpdateSteps(TestRestTemplate restTemplate, OrderRepository orderRepository) {
         this.restTemplate = restTemplate;
-        this.redisTemplate = redisTemplate;
+        this.orderRepository = orderRepository;
     }
 
     @Before
@@ -51,14 +55,16 @@ public class OrderStatusUpdateSteps {
 
     @Given("que recebo um pedido com status {string}")
     public void iReceiveAnOrderWithStatus(String status) {
-        orderId = 123;
+        // Id novo a cada cenário: a gravação ignora pedidos existentes, e no Redis os de execuções anteriores
+        // continuam lá até o TTL
+        orderId = ThreadLocalRandom.current().nextInt(1_000_000, Integer.MAX_VALUE);
         Order order = new Order();
         order.setOrderId(orderId);
         order.setStatus(OrderStatus.valueOf(status));
         order.setDetails("{Lanche: Sanduiche de Soja, Bebida : Suco de Limão com Abacaxi}");
 
-        redisTemplate.opsForValue().set("order:" + orderId, order, 10, TimeUnit.SECONDS);
-        System.out.println("Pedido " + orderId + " pré-carregado com status " + status + " no Redis.");
+        orderRepository.insertAll(Collections.singletonList(order), System.currentTimeMillis());
+        System.out.println("Pedido " + orderId + " pré-carregado com status " + status + " no repositório.");
     }
 
     @When("atualizo o status do pedido para {string}")
@@ -66,10 +72,17 @@ public class OrderStatusUpdateSteps {
         OrderStatusUpdateDTO dto = new OrderStatusUpdateDTO();
         dto.setStatus(OrderStatus.valueOf(newStatus));
 
-        restTemplate.put("/order-production/orders/" + orderId + "/status", dto);
+        updateResponse = restTemplate.exchange("/order-production/orders/" + orderId + "/status", HttpMethod.PUT,
+                new HttpEntity<>(dto), Order.class);
         queryResponse = restTemplate.getForEntity("/order-production/orders/" + orderId, Order.class);
     }
 
+    @Then("a atualização é recusada com o código {int}")
+    public void theUpdateIsRejectedWith(int statusCode) {
+        assertThat(updateResponse.getStatusCodeValue())
+                .isEqualTo(statusCode);
+    }
+
     @Then("o pedido é enviado para a fila de pedidos atualizados")
     public void theOrderIsPublishedToTheQueue() {
 
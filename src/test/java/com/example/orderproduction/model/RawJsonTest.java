@@ -0,0 +1,79 @@
+package com.example.orderproduction.model;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RawJsonTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testDeserialize_KeepsStructuredDetailsAsRawJson() throws Exception {
+
+        Order order = mapper.readValue(
+                "{\"orderId\":1,\"status\":\"RECEIVED\",\"details\":{\"items\":[\"X-Burger\"],\"total\":42.50,\"id\":12345678901234567890}}",
+                Order.class);
+
+        assertEquals(RawJson.of("{\"items\":[\"X-Burger\"],\"total\":42.50,\"id\":12345678901234567890}"),
+                order.getDetails());
+    }
+
+    @Test
+    public void testDeserialize_TextAndNullDetails() throws Exception {
+
+        assertEquals("Lanche", mapper.readValue("{\"orderId\":1,\"details\":\"Lanche\"}", Order.class).getDetails());
+        assertNull(mapper.readValue("{\"orderId\":1,\"details\":null}", Order.class).getDetails());
+        assertEquals(RawJson.of("7"), mapper.readValue("{\"orderId\":1,\"details\":7}", Order.class).getDetails());
+    }
+
+    @Test
+    public void testSerialize_WritesBytesAsJsonValue() throws Exception {
+
+        byte[] value = "xx{\"a\":[1,\"é\"]}yy".getBytes(StandardCharsets.UTF_8);
+        Order order = new Order(1, OrderStatus.READY, new RawJson(value, 2, value.length - 4));
+
+        assertEquals("{\"orderId\":1,\"status\":\"READY\",\"details\":{\"a\":[1,\"é\"]}}",
+                new String(mapper.writeValueAsBytes(order), StandardCharsets.UTF_8));
+        assertEquals("{\"orderId\":1,\"status\":\"READY\",\"details\":{\"a\":[1,\"é\"]}}",
+                mapper.writeValueAsString(order));
+    }
+
+    @Test
+    public void testAmqpMessageConverter_RoundTrip() {
+
+        Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+        Order order = new Order(3, OrderStatus.IN_PREPARATION, RawJson.of("{\"items\":[\"Suco\"]}"));
+
+        MessageProperties messageProperties = new MessageProperties();
+        Message message = converter.toMessage(order, messageProperties);
+
+        assertEquals(order, converter.fromMessage(message, Order.class));
+    }
+
+    @Test
+    public void testTypedRedisJson_RoundTrip() {
+
+        ObjectMapper typedMapper = new ObjectMapper();
+        typedMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        typedMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        Jackson2JsonRedisSerializer<Object> serializer = new Jackson2JsonRedisSerializer<>(Object.class);
+        serializer.setObjectMapper(typedMapper);
+
+        RawJson details = RawJson.of("{\"items\":[\"Suco\"]}");
+        Order order = new Order(3, OrderStatus.IN_PREPARATION, details);
+
+        assertEquals(order, serializer.deserialize(serializer.serialize(order)));
+        assertEquals(details, serializer.deserialize(serializer.serialize(details)));
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.stream.*;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ConfirmedOrderStreamConsumerTest {
+
+    private static final String STREAM_KEY = "order:confirmed";
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private StreamOperations<String, Object, Object> streamOperations;
+
+    @Mock
+    private OrderWriteBehindBuffer writeBehind;
+
+    private final Consumer consumer = Consumer.from(ConfirmedOrderStreamConsumer.CONSUMER_GROUP, "consumer-1");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ConfirmedOrderStreamConsumer streamConsumer;
+
+    @BeforeEach
+    public void setUp() {
+
+        when(stringRedisTemplate.opsForStream()).thenReturn(streamOperations);
+        OrderProductionProperties properties = new OrderProductionProperties();
+        properties.getIngestionStream().setMaxDeliveries(3);
+        streamConsumer = new ConfirmedOrderStreamConsumer(stringRedisTemplate, writeBehind, new ObjectMapper(),
+                properties, meterRegistry);
+    }
+
+    @Test
+    public void testConsumeBatch_AcksAfterWrite() {
+
+        mockRead(Collections.emptyList(), Arrays.asList(
+                record("1-0", "{\"orderId\":10,\"details\":{\"itens\":[1,2]}}"),
+                record("2-0", "{\"orderId\":11,\"status\":\"RECEIVED\"}")));
+
+        int read = streamConsumer.consumeBatch(consumer);
+
+        assertEquals(2, read);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Order>> written = ArgumentCaptor.forClass(List.class);
+        verify(writeBehind).write(written.capture());
+        assertEquals(10, written.getValue().get(0).getOrderId());
+        assertEquals("{\"itens\":[1,2]}", String.valueOf(written.getValue().get(0).getDetails()));
+        assertEquals(OrderStatus.RECEIVED, written.getValue().get(1).getStatus());
+        verify(streamOperations).acknowledge(STREAM_KEY, ConfirmedOrderStreamConsumer.CONSUMER_GROUP,
+                RecordId.of("1-0"), RecordId.of("2-0"));
+        verify(streamOperations).delete(STREAM_KEY, RecordId.of("1-0"), RecordId.of("2-0"));
+        assertEquals(2, meterRegistry.get("orders.listener.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    public void testConsumeBatch_InvalidEntriesGoToDeadLetterStream() {
+
+        mockRead(Collections.emptyList(), Arrays.asList(record("1-0", "{nao e json"),
+                record("2-0", "{\"orderId\":11}")));
+
+        streamConsumer.consumeBatch(consumer);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<MapRecord<String, Object, Object>> deadLetter = ArgumentCaptor.forClass(MapRecord.class);
+        verify(streamOperations).add(deadLetter.capture());
+        assertEquals(STREAM_KEY + ConfirmedOrderStreamConsumer.DEAD_LETTER_SUFFIX, deadLetter.getValue().getStream());
+        assertEquals("{nao e json", deadLetter.getValue().getValue().get(ConfirmedOrderStreamConsumer.ORDER_FIELD));
+        verify(streamOperations).acknowledge(STREAM_KEY, ConfirmedOrderStreamConsumer.CONSUMER_GROUP, RecordId.of("1-0"));
+        verify(writeBehind).write(argThat(orders -> orders.size() == 1 && orders.get(0).getOrderId() == 11));
+        verify(streamOperations).acknowledge(STREAM_KEY, ConfirmedOrderStreamConsumer.CONSUMER_GROUP, RecordId.of("2-0"));
+        assertEquals(1, meterRegistry.get("orders.stream.dead-lettered").counter().count());
+    }
+
+    @Test
+    public void testConsumeBatch_FailedWriteKeepsEntriesPending() {
+
+        mockRead(Arrays.asList(record("1-0", "{\"orderId\":10}"), record("2-0", "{\"orderId\":11}")),
+                Collections.emptyList());
+        doThrow(new IllegalStateException("Redis indisponível")).when(writeBehind).write(anyList());
+        when(streamOperations.pending(eq(STREAM_KEY), eq(consumer), any(Range.class), anyLong()))
+                .thenReturn(new PendingMessages(ConfirmedOrderStreamConsumer.CONSUMER_GROUP, Arrays.asList(
+                        pending("1-0", 3), pending("2-0", 2))));
+
+        assertThrows(IllegalStateException.class, () -> streamConsumer.consumeBatch(consumer));
+
+        // Só a entrada que atingiu max-deliveries sai do stream
+        verify(streamOperations).add(any(MapRecord.class));
+        verify(streamOperations).acknowledge(STREAM_KEY, ConfirmedOrderStreamConsumer.CONSUMER_GROUP, RecordId.of("1-0"));
+        verify(streamOperations, never()).acknowledge(STREAM_KEY, ConfirmedOrderStreamConsumer.CONSUMER_GROUP,
+                RecordId.of("2-0"));
+    }
+
+    @Test
+    public void testConsume_RecreatesGroupAfterNoGroup() {
+
+        OrderProductionProperties properties = new OrderProductionProperties();
+        properties.getIngestionStream().setRetryInterval(Duration.ofMillis(10));
+        streamConsumer = new ConfirmedOrderStreamConsumer(stringRedisTemplate, writeBehind, new ObjectMapper(),
+                properties, meterRegistry);
+        // O stream some depois que o grupo foi criado; as leituras seguintes não encontram entradas
+        when(streamOperations.read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class)))
+                .thenThrow(new RedisSystemException("NOGROUP", new RedisCommandExecutionException(
+                        "NOGROUP No such key 'order:confirmed' or consumer group 'order-production' in XREADGROUP")))
+                .thenReturn(Collections.emptyList());
+
+        streamConsumer.start();
+        try {
+            verify(streamOperations, timeout(2000).times(2)).createGroup(eq(STREAM_KEY), any(ReadOffset.class),
+                    eq(ConfirmedOrderStreamConsumer.CONSUMER_GROUP));
+        } finally {
+            streamConsumer.stop();
+        }
+    }
+
+    private void mockRead(List<MapRecord<String, Object, Object>> pending, List<MapRecord<String, Object, Object>> fresh) {
+        when(streamOperations.read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class)))
+                .thenAnswer(invocation -> {
+                    StreamOffset<String> offset = invocation.getArgument(2);
+                    return ReadOffset.lastConsumed().equals(offset.getOffset()) ? fresh : pending;
+                });
+    }
+
+    private PendingMessage pending(String id, long deliveries) {
+        return new PendingMessage(RecordId.of(id), consumer, Duration.ofSeconds(1), deliveries);
+    }
+
+    private MapRecord<String, Object, Object> record(String id, String json) {
+        Map<Object, Object> fields = new HashMap<>();
+        fields.put(ConfirmedOrderStreamConsumer.ORDER_FIELD, json);
+        return StreamRecords.<String, Object, Object>mapBacked(fields).withStreamKey(STREAM_KEY)
+                .withId(RecordId.of(id));
+    }
+}
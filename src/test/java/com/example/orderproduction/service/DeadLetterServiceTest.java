@@ -0,0 +1,140 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.ConfirmedOrderRetryRecoverer;
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.config.RabbitMQConfig;
+import com.example.orderproduction.dto.DeadLetterDTO;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import com.rabbitmq.client.impl.LongStringHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DeadLetterServiceTest {
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private Channel channel;
+
+    private final OrderProductionProperties properties = new OrderProductionProperties();
+    private DeadLetterService deadLetterService;
+
+    @BeforeEach
+    public void setUp() {
+
+        lenient().when(rabbitTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<ChannelCallback<?>>getArgument(0).doInRabbit(channel));
+        lenient().when(channel.isOpen()).thenReturn(true);
+        deadLetterService = new DeadLetterService(rabbitTemplate, properties);
+    }
+
+    @Test
+    public void testPeek_ReturnsMessagesAndRequeuesThem() throws Exception {
+
+        when(channel.basicGet(RabbitMQConfig.CONFIRMED_ORDER_DLQ, false))
+                .thenReturn(response(1, "{\"orderId\":1}", 5), response(2, "{\"orderId\":2}", 5), null);
+
+        List<DeadLetterDTO> deadLetters = deadLetterService.peek(RabbitMQConfig.CONFIRMED_ORDER_QUEUE, 10);
+
+        assertEquals(2, deadLetters.size());
+        assertEquals(5, deadLetters.get(0).getAttempts());
+        assertEquals("IllegalStateException: falha", deadLetters.get(0).getLastError());
+        assertEquals("{\"orderId\":2}", deadLetters.get(1).getBody());
+        verify(channel).basicNack(2, true, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    public void testPeek_StopsAtLimit() throws Exception {
+
+        when(channel.basicGet(RabbitMQConfig.CONFIRMED_ORDER_DLQ, false))
+                .thenReturn(response(1, "{}", 5), response(2, "{}", 5));
+
+        assertEquals(1, deadLetterService.peek(RabbitMQConfig.CONFIRMED_ORDER_QUEUE, 1).size());
+        verify(channel, times(1)).basicGet(anyString(), anyBoolean());
+        verify(channel).basicNack(1, true, true);
+    }
+
+    @Test
+    public void testReplay_PublishesWithoutAttemptsAndAcksAfterConfirm() throws Exception {
+
+        when(channel.basicGet(RabbitMQConfig.CONFIRMED_ORDER_DLQ, false))
+                .thenReturn(response(1, "{\"orderId\":1}", 5), response(2, "{\"orderId\":2}", 5), null);
+
+        int replayed = deadLetterService.replay(RabbitMQConfig.CONFIRMED_ORDER_QUEUE, 100);
+
+        assertEquals(2, replayed);
+        ArgumentCaptor<AMQP.BasicProperties> props = ArgumentCaptor.forClass(AMQP.BasicProperties.class);
+        verify(channel, times(2)).basicPublish(eq(""), eq(RabbitMQConfig.CONFIRMED_ORDER_QUEUE), props.capture(),
+                any(byte[].class));
+        assertFalse(props.getValue().getHeaders().containsKey(ConfirmedOrderRetryRecoverer.ATTEMPTS_HEADER));
+        verify(channel).waitForConfirmsOrDie(5000);
+        verify(channel).basicAck(2, true);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    public void testReplay_PartitionedPublishesToPartitionExchange() throws Exception {
+
+        properties.getListener().setPartitions(4);
+        when(channel.basicGet(RabbitMQConfig.CONFIRMED_ORDER_DLQ, false)).thenReturn(response(1, "{\"orderId\":1}", 1), (GetResponse) null);
+
+        deadLetterService.replay(RabbitMQConfig.CONFIRMED_ORDER_QUEUE, 100);
+
+        verify(channel).basicPublish(eq(RabbitMQConfig.CONFIRMED_ORDER_PARTITION_EXCHANGE), eq(""),
+                any(AMQP.BasicProperties.class), any(byte[].class));
+        verify(channel).basicAck(1, true);
+    }
+
+    @Test
+    public void testReplay_MissingConfirmKeepsMessagesInDeadLetterQueue() throws Exception {
+
+        when(channel.basicGet(RabbitMQConfig.CONFIRMED_ORDER_DLQ, false)).thenReturn(response(1, "{}", 5), (GetResponse) null);
+        doThrow(new TimeoutException()).when(channel).waitForConfirmsOrDie(anyLong());
+
+        assertThrows(Exception.class, () -> deadLetterService.replay(RabbitMQConfig.CONFIRMED_ORDER_QUEUE, 100));
+
+        verify(channel).basicNack(1, true, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    public void testUnknownQueue() {
+
+        assertFalse(deadLetterService.hasDeadLetterQueue("outra.fila"));
+        assertThrows(IllegalArgumentException.class, () -> deadLetterService.peek("outra.fila", 10));
+        verifyNoInteractions(rabbitTemplate);
+    }
+
+    private static GetResponse response(long deliveryTag, String body, int attempts) throws IOException {
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(ConfirmedOrderRetryRecoverer.ATTEMPTS_HEADER, attempts);
+        headers.put(ConfirmedOrderRetryRecoverer.LAST_ERROR_HEADER,
+                LongStringHelper.asLongString("IllegalStateException: falha"));
+        AMQP.BasicProperties props = new AMQP.BasicProperties.Builder().headers(headers).build();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        return new GetResponse(new Envelope(deliveryTag, false, "", RabbitMQConfig.CONFIRMED_ORDER_DLQ), props, bytes, 0);
+    }
+}
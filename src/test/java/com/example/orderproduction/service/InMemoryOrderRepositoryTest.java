@@ -0,0 +1,184 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.dto.OrderStatusDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO.Result;
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryOrderRepositoryTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(START);
+    private final List<Object> events = new ArrayList<>();
+    private InMemoryOrderRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+
+        repository = new InMemoryOrderRepository(events::add, clock::get);
+    }
+
+    @Test
+    public void testInsertAll_IgnoresExistingOrders() {
+
+        repository.insertAll(Collections.singletonList(new Order(1, OrderStatus.RECEIVED, "Lanche")), START);
+        repository.updateStatus(1, OrderStatus.IN_PREPARATION);
+
+        boolean[] written = repository.insertAll(Arrays.asList(new Order(1, OrderStatus.RECEIVED, "Lanche"),
+                new Order(2, OrderStatus.RECEIVED, null), new Order(2, OrderStatus.RECEIVED, null)), START);
+
+        assertArrayEquals(new boolean[]{false, true, false}, written);
+        assertEquals(OrderStatus.IN_PREPARATION, repository.findStatus(1));
+        assertEquals(1, repository.countActiveOrders(OrderStatus.RECEIVED));
+    }
+
+    @Test
+    public void testUpdateStatus_FollowsScriptRules() {
+
+        repository.insertAll(Collections.singletonList(new Order(1, OrderStatus.RECEIVED, "Lanche")), START);
+        repository.updateStatus(1, OrderStatus.IN_PREPARATION);
+        events.clear();
+        repository.removeFromOutbox(repository.outboxBatch(10));
+
+        OrderStatusUpdateResultDTO updated = repository.updateStatus(1, OrderStatus.READY);
+
+        assertEquals(Result.UPDATED, updated.getResult());
+        assertEquals(new Order(1, OrderStatus.READY, "Lanche"), updated.getOrder());
+        assertEquals(Result.UNCHANGED, repository.updateStatus(1, OrderStatus.READY).getResult());
+        assertEquals(Result.INVALID_TRANSITION, repository.updateStatus(1, OrderStatus.RECEIVED).getResult());
+        assertEquals(Result.NOT_FOUND, repository.updateStatus(2, OrderStatus.READY).getResult());
+        assertEquals(0, repository.countActiveOrders(OrderStatus.RECEIVED));
+        assertEquals(1, repository.countActiveOrders(OrderStatus.READY));
+
+        List<InMemoryOrderRepository.OutboxEvent> outbox = repository.outboxBatch(10);
+        assertEquals(1, outbox.size());
+        assertEquals(OrderStatus.READY, outbox.get(0).getStatus());
+        assertEquals(1, events.size());
+        assertEquals(OrderStatus.READY, ((OrderStatusDTO) events.get(0)).getStatus());
+    }
+
+    @Test
+    public void testRemoveFromOutbox_KeepsUnconfirmedEventsInOrder() {
+
+        repository.insertAll(Arrays.asList(new Order(1, OrderStatus.RECEIVED, null),
+                new Order(2, OrderStatus.RECEIVED, null), new Order(3, OrderStatus.RECEIVED, null),
+                new Order(4, OrderStatus.RECEIVED, null)), START);
+        for (int orderId = 1; orderId <= 4; orderId++) {
+            repository.updateStatus(orderId, OrderStatus.IN_PREPARATION);
+        }
+        List<InMemoryOrderRepository.OutboxEvent> batch = repository.outboxBatch(3);
+
+        // O evento do pedido 2 não foi confirmado e volta no próximo lote, antes do pedido 4, que não estava no lote
+        repository.removeFromOutbox(Arrays.asList(batch.get(0), batch.get(2)));
+
+        List<InMemoryOrderRepository.OutboxEvent> remaining = repository.outboxBatch(10);
+        assertEquals(Arrays.asList(2, 4), remaining.stream()
+                .map(InMemoryOrderRepository.OutboxEvent::getOrderId).collect(Collectors.toList()));
+        assertSame(batch.get(1), remaining.get(0));
+    }
+
+    @Test
+    public void testUpdateStatus_RejectsSkippedSteps() {
+
+        repository.insertAll(Collections.singletonList(new Order(1, OrderStatus.RECEIVED, "Lanche")), START);
+
+        OrderStatusUpdateResultDTO skipped = repository.updateStatus(1, OrderStatus.READY);
+
+        assertEquals(Result.INVALID_TRANSITION, skipped.getResult());
+        assertEquals(OrderStatus.RECEIVED, skipped.getOrder().getStatus());
+        assertEquals(Result.INVALID_TRANSITION, repository.updateStatus(1, OrderStatus.FINISHED).getResult());
+        assertEquals(OrderStatus.RECEIVED, repository.findStatus(1));
+        assertTrue(repository.outboxBatch(10).isEmpty());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void testUpdateStatus_ReportsTimeInPreviousStatus() {
+
+        repository.insertAll(Collections.singletonList(new Order(1, OrderStatus.RECEIVED, "Lanche")), START);
+        clock.addAndGet(3000);
+        OrderStatusUpdateResultDTO preparing = repository.updateStatus(1, OrderStatus.IN_PREPARATION);
+        clock.addAndGet(500);
+
+        OrderStatusUpdateResultDTO ready = repository.updateStatus(1, OrderStatus.READY);
+
+        assertEquals(OrderStatus.RECEIVED, preparing.getPreviousStatus());
+        assertEquals(3000, preparing.getPreviousStatusMillis());
+        assertEquals(OrderStatus.IN_PREPARATION, ready.getPreviousStatus());
+        assertEquals(500, ready.getPreviousStatusMillis());
+        assertNull(repository.updateStatus(1, OrderStatus.READY).getPreviousStatus());
+    }
+
+    @Test
+    public void testUpdateStatuses_OneResultPerUpdate() {
+
+        repository.insertAll(Collections.singletonList(new Order(1, OrderStatus.RECEIVED, null)), START);
+
+        List<OrderStatusUpdateResultDTO> results = repository.updateStatuses(Arrays.asList(
+                new OrderStatusDTO(1, OrderStatus.IN_PREPARATION), new OrderStatusDTO(1, null),
+                new OrderStatusDTO(2, OrderStatus.READY)));
+
+        assertEquals(Result.UPDATED, results.get(0).getResult());
+        assertEquals(Result.INVALID_TRANSITION, results.get(1).getResult());
+        assertEquals(Result.NOT_FOUND, results.get(2).getResult());
+        assertNull(results.get(2).getOrder());
+    }
+
+    @Test
+    public void testReadStatusIndexPage_ReceivedOrderAndCursor() {
+
+        repository.insertAll(Arrays.asList(new Order(10, OrderStatus.RECEIVED, null),
+                new Order(9, OrderStatus.RECEIVED, null)), START);
+        repository.insertAll(Collections.singletonList(new Order(3, OrderStatus.RECEIVED, null)), START + 5);
+        repository.insertAll(Collections.singletonList(new Order(4, OrderStatus.RECEIVED, null)), START + 7);
+        // A entrada mantém a posição de recebimento no índice do novo status
+        repository.updateStatus(3, OrderStatus.IN_PREPARATION);
+        repository.updateStatus(3, OrderStatus.RECEIVED);
+
+        StatusIndexPage first = new StatusIndexPage(null, 2);
+        repository.readStatusIndexPage(OrderStatus.RECEIVED, first);
+        StatusIndexPage second = new StatusIndexPage(first.nextCursor(), 2);
+        repository.readStatusIndexPage(OrderStatus.RECEIVED, second);
+        StatusIndexPage preparing = new StatusIndexPage(null, 2);
+        repository.readStatusIndexPage(OrderStatus.IN_PREPARATION, preparing);
+
+        // Empates no horário de recebimento seguem a ordem do orderId como texto, como no sorted set
+        assertEquals(Arrays.asList(10, 9), first.orderIds());
+        assertEquals(Collections.singletonList(4), second.orderIds());
+        assertNull(second.nextCursor());
+        assertEquals(Collections.singletonList(3), preparing.orderIds());
+    }
+
+    @Test
+    public void testExpiry_RemovesOrdersAfterTtl() {
+
+        repository.insertAll(Collections.singletonList(new Order(1, OrderStatus.RECEIVED, "Lanche")), START);
+        clock.addAndGet(OrderRepository.ORDER_TTL.toMillis() - 1000);
+
+        assertEquals(1000, repository.find(1).getTtlMillis());
+        assertEquals(1, repository.findAll(Arrays.asList(1, 2)).size());
+
+        clock.addAndGet(1000);
+        assertNull(repository.find(1));
+        assertNull(repository.findStatus(1));
+        assertEquals(Result.NOT_FOUND, repository.updateStatus(1, OrderStatus.READY).getResult());
+
+        clock.addAndGet(1000);
+        repository.expireOrders();
+        assertEquals(0, repository.countActiveOrders(OrderStatus.RECEIVED));
+
+        assertTrue(repository.insertAll(Collections.singletonList(new Order(1, OrderStatus.RECEIVED, null)),
+                clock.get())[0]);
+        assertEquals(OrderStatus.RECEIVED, repository.findStatus(1));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.orderproduction.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntObjectHashMapTest {
+
+    @Test
+    public void testPutGetRemove_MatchesHashMap() {
+
+        IntObjectHashMap<String> map = new IntObjectHashMap<>(4);
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            // Poucas chaves e muitas remoções, para exercitar colisões e o deslocamento após remoção
+            int key = random.nextInt(5_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = "v" + i;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = -1_000; key < 4_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    public void testPut_RejectsNullValues() {
+
+        assertThrows(IllegalArgumentException.class, () -> new IntObjectHashMap<String>(4).put(1, null));
+    }
+}
@@ -2,32 +2,50 @@ package com.example.orderproduction.service;
 
 import com.example.orderproduction.model.Order;
 import com.example.orderproduction.model.OrderStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
 
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.verify;
 
 public class OrderEventListenerTest {
 
-    private OrderService orderService;
+    private OrderWriteBehindBuffer writeBehind;
     private OrderEventListener orderEventListener;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     public void setUp() {
 
-        orderService = Mockito.mock(OrderService.class);
+        writeBehind = Mockito.mock(OrderWriteBehindBuffer.class);
+        meterRegistry = new SimpleMeterRegistry();
 
-        orderEventListener = new OrderEventListener(orderService);
+        orderEventListener = new OrderEventListener(writeBehind, meterRegistry);
     }
 
     @Test
-    public void testReceiveOrder() {
+    public void testReceiveOrders() {
 
-        Order order = new Order(1, OrderStatus.RECEIVED, "Detalhes do pedido");
+        Order order1 = new Order(1, OrderStatus.RECEIVED, "Detalhes do pedido");
+        Order order2 = new Order(2, OrderStatus.RECEIVED, "Detalhes do pedido");
+        List<Message<Order>> messages = Arrays.asList(
+                MessageBuilder.withPayload(order1).setHeader(AmqpHeaders.TIMESTAMP, new Date()).build(),
+                MessageBuilder.withPayload(order2).build());
 
-        orderEventListener.receiveOrder(order);
+        orderEventListener.receiveOrders(messages);
 
-        verify(orderService).processOrder(order);
+        verify(writeBehind).write(Arrays.asList(order1, order2));
+        // Só a mensagem com timestamp entra no lag de consumo
+        assertEquals(1, meterRegistry.get("orders.listener.lag").timer().count());
+        assertEquals(2, meterRegistry.get("orders.listener.batch.size").summary().totalAmount());
     }
 }
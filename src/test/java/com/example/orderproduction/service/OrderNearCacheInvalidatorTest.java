@@ -0,0 +1,54 @@
+package com.example.orderproduction.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderNearCacheInvalidatorTest {
+
+    @Mock
+    private OrderNearCache nearCache;
+
+    @InjectMocks
+    private OrderNearCacheInvalidator invalidator;
+
+    @Test
+    public void testOnMessage_InvalidatesStringAndHashKeys() {
+
+        invalidator.onMessage(message("__keyspace@0__:order:123", "set"), null);
+        invalidator.onMessage(message("__keyspace@0__:order:hash:124", "expired"), null);
+
+        verify(nearCache).invalidate(123);
+        verify(nearCache).invalidate(124);
+    }
+
+    @Test
+    public void testOnMessage_InvalidatesPartitionedKeys() {
+
+        invalidator.onMessage(message("__keyspace@0__:order:{3}:125", "set"), null);
+        invalidator.onMessage(message("__keyspace@0__:order:hash:{4}:126", "del"), null);
+
+        verify(nearCache).invalidate(125);
+        verify(nearCache).invalidate(126);
+    }
+
+    @Test
+    public void testOnMessage_IgnoresNonOrderKeys() {
+
+        invalidator.onMessage(message("__keyspace@0__:order:12ab", "set"), null);
+
+        verifyNoInteractions(nearCache);
+    }
+
+    private static DefaultMessage message(String channel, String event) {
+        return new DefaultMessage(channel.getBytes(StandardCharsets.UTF_8), event.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderNearCacheTest {
+
+    private OrderProductionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() {
+
+        properties = new OrderProductionProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        loads.set(0);
+    }
+
+    @Test
+    public void testGet_CachesLoadedOrderAndRecordsHitsAndMisses() {
+
+        OrderNearCache nearCache = new OrderNearCache(properties, meterRegistry);
+
+        nearCache.get(123, this::load);
+        Order result = nearCache.get(123, this::load);
+
+        assertEquals(new Order(123, OrderStatus.RECEIVED, "Test details"), result);
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", OrderNearCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", OrderNearCache.CACHE_NAME)
+                .tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    public void testGet_ResubscriptionDiscardsCachedOrders() {
+
+        OrderNearCache nearCache = new OrderNearCache(properties, meterRegistry);
+        OrderNearCacheInvalidator invalidator = new OrderNearCacheInvalidator(nearCache);
+        nearCache.get(123, this::load);
+
+        // Reconexão: as notificações do período sem assinatura se perderam
+        invalidator.onPatternSubscribed("__keyspace@*__:order:[0-9]*".getBytes(StandardCharsets.UTF_8), 1);
+        nearCache.get(123, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testGet_DisabledWithRedisCluster() {
+
+        RedisProperties redisProperties = new RedisProperties();
+        RedisProperties.Cluster cluster = new RedisProperties.Cluster();
+        cluster.setNodes(Arrays.asList("node-1:7000", "node-2:7001"));
+        redisProperties.setCluster(cluster);
+        OrderNearCache nearCache = new OrderNearCache(properties, redisProperties, meterRegistry);
+
+        nearCache.get(123, this::load);
+        nearCache.get(123, this::load);
+
+        assertFalse(nearCache.isEnabled());
+        assertEquals(2, loads.get());
+        assertTrue(new OrderNearCache(properties, new RedisProperties(), meterRegistry).isEnabled());
+    }
+
+    @Test
+    public void testGet_DoesNotCacheMissingOrders() {
+
+        OrderNearCache nearCache = new OrderNearCache(properties, meterRegistry);
+
+        assertNull(nearCache.get(123, orderId -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        nearCache.get(123, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testInvalidate_ReloadsOrder() {
+
+        OrderNearCache nearCache = new OrderNearCache(properties, meterRegistry);
+
+        nearCache.get(123, this::load);
+        nearCache.invalidate(123);
+        nearCache.get(123, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testInvalidate_WithReplicaReadsSkipsCacheDuringReplicaLag() throws InterruptedException {
+
+        properties.getRedis().setReadFrom("REPLICA_PREFERRED");
+        properties.getNearCache().setReplicaLag(Duration.ofMillis(200));
+        OrderNearCache nearCache = new OrderNearCache(properties, meterRegistry);
+
+        nearCache.get(123, this::load);
+        nearCache.invalidate(123);
+        nearCache.get(123, this::load);
+        nearCache.getReactive(123, orderId -> Mono.fromCallable(() -> load(orderId))).block();
+        assertEquals(3, loads.get());
+
+        Thread.sleep(300);
+        nearCache.get(123, this::load);
+        nearCache.get(123, this::load);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void testGet_ExpiresWithRedisTtl() throws InterruptedException {
+
+        OrderNearCache nearCache = new OrderNearCache(properties, meterRegistry);
+
+        nearCache.get(123, orderId -> {
+            loads.incrementAndGet();
+            return new OrderNearCache.CachedOrder(new Order(orderId, OrderStatus.RECEIVED, null), 1);
+        });
+        Thread.sleep(20);
+        nearCache.get(123, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testGet_TimeToLiveCapsRedisTtl() throws InterruptedException {
+
+        properties.getNearCache().setTimeToLive(Duration.ofMillis(1));
+        OrderNearCache nearCache = new OrderNearCache(properties, meterRegistry);
+
+        nearCache.get(123, this::load);
+        Thread.sleep(20);
+        nearCache.get(123, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testGet_DisabledAlwaysLoads() {
+
+        properties.getNearCache().setEnabled(false);
+        OrderNearCache nearCache = new OrderNearCache(properties, meterRegistry);
+
+        nearCache.get(123, this::load);
+        nearCache.get(123, this::load);
+
+        assertEquals(2, loads.get());
+        assertTrue(meterRegistry.getMeters().isEmpty());
+    }
+
+    @Test
+    public void testGetReactive_CachesLoadedOrder() {
+
+        OrderNearCache nearCache = new OrderNearCache(properties, meterRegistry);
+
+        nearCache.getReactive(123, orderId -> Mono.fromCallable(() -> load(orderId))).block();
+        Order result = nearCache.getReactive(123, orderId -> Mono.fromCallable(() -> load(orderId))).block();
+
+        assertEquals(new Order(123, OrderStatus.RECEIVED, "Test details"), result);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testGetReactive_DiscardsLoadConcurrentWithInvalidation() {
+
+        OrderNearCache nearCache = new OrderNearCache(properties, meterRegistry);
+
+        // O pedido é alterado enquanto a leitura está em andamento: o valor lido não pode ficar no cache
+        Order stale = nearCache.getReactive(123, orderId -> Mono.fromCallable(() -> {
+            nearCache.invalidate(orderId);
+            return load(orderId);
+        })).block();
+        nearCache.getReactive(123, orderId -> Mono.fromCallable(() -> load(orderId))).block();
+
+        assertNotNull(stale);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testGetReactive_DoesNotCacheMissingOrders() {
+
+        OrderNearCache nearCache = new OrderNearCache(properties, meterRegistry);
+
+        assertNull(nearCache.getReactive(123, orderId -> Mono.<OrderNearCache.CachedOrder>empty()).block());
+        nearCache.getReactive(123, orderId -> Mono.fromCallable(() -> load(orderId))).block();
+        nearCache.getReactive(123, orderId -> Mono.fromCallable(() -> load(orderId))).block();
+
+        assertEquals(1, loads.get());
+    }
+
+    private OrderNearCache.CachedOrder load(int orderId) {
+        loads.incrementAndGet();
+        return new OrderNearCache.CachedOrder(new Order(orderId, OrderStatus.RECEIVED, "Test details"), 60_000);
+    }
+}
@@ -1,22 +1,48 @@
 package com.example.orderproduction.service;
 
-import com.example.orderproduction.config.RabbitMQConfig;
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.dto.OrderStatusDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO.Result;
 import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderPage;
 import com.example.orderproduction.model.OrderStatus;
+import io.lettuce.core.RedisNoScriptException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,19 +53,51 @@ public class OrderServiceTest {
     @Mock
     private RedisTemplate<String, Object> redisTemplate;
 
-    @Mock
-    private RabbitTemplate rabbitTemplate;
+    private OrderProductionProperties properties;
 
-    @InjectMocks
     private OrderService orderService;
 
+    private SimpleMeterRegistry meterRegistry;
+
     @Mock
     private ValueOperations<String, Object> valueOperations;
 
+    @Mock
+    private ZSetOperations<String, Object> zSetOperations;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisHashCommands hashCommands;
+
+    @Mock
+    private RedisKeyCommands keyCommands;
+
+    @Mock
+    private RedisStringCommands stringCommands;
+
+    private final GenericJackson2JsonRedisSerializer valueSerializer = new GenericJackson2JsonRedisSerializer();
+
     @BeforeEach
+    @SuppressWarnings({"unchecked", "rawtypes"})
     public void setUp() {
 
+        properties = new OrderProductionProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        orderService = new OrderService(new RedisOrderRepository(redisTemplate, redisTemplate, properties), properties, new OrderNearCache(properties, meterRegistry), new ProductionAnalytics(properties, meterRegistry), meterRegistry);
+
         lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        lenient().when(redisTemplate.getValueSerializer()).thenReturn((RedisSerializer) valueSerializer);
+        lenient().when(redisTemplate.getHashValueSerializer()).thenReturn((RedisSerializer) valueSerializer);
+        lenient().when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0, RedisCallback.class).doInRedis(connection));
+        lenient().when(connection.hashCommands()).thenReturn(hashCommands);
+        lenient().when(connection.keyCommands()).thenReturn(keyCommands);
+        lenient().when(connection.stringCommands()).thenReturn(stringCommands);
+        lenient().when(redisTemplate.execute(any(SessionCallback.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0, SessionCallback.class).execute(redisTemplate));
     }
 
 
@@ -47,62 +105,116 @@ public class OrderServiceTest {
     public void testProcessOrder_SetsStatusIfNull() {
 
         Order order = new Order(123, null, "Test details");
+        mockIngestScript(1L);
 
         orderService.processOrder(order);
 
         assertEquals(OrderStatus.RECEIVED, order.getStatus());
-
-        verify(valueOperations, times(1))
-                .set("order:" + order.getOrderId(), order, 30, TimeUnit.MINUTES);
+        List<byte[]> args = ingestArgs();
+        assertEquals(Arrays.asList("1800000", "string", "1", "123", "1", "RECEIVED"),
+                Arrays.asList(string(args.get(0)), string(args.get(2)), string(args.get(3)),
+                        string(args.get(4)), string(args.get(5)), string(args.get(6))));
+        assertEquals(order, valueSerializer.deserialize(args.get(7)));
+        verifyNoInteractions(valueOperations, zSetOperations);
     }
 
     @Test
     public void testProcessOrder_KeepsExistingStatus() {
 
         Order order = new Order(124, OrderStatus.IN_PREPARATION, "Test details");
+        mockIngestScript(1L);
 
         orderService.processOrder(order);
 
         assertEquals(OrderStatus.IN_PREPARATION, order.getStatus());
-        verify(valueOperations).set("order:" + order.getOrderId(), order, 30, TimeUnit.MINUTES);
+        List<byte[]> args = ingestArgs();
+        assertEquals("2", string(args.get(5)));
+        assertEquals("IN_PREPARATION", string(args.get(6)));
+    }
+
+    @Test
+    public void testProcessOrders_WritesBatchInSingleScript() {
+
+        Order order1 = new Order(1, null, "Details 1");
+        Order order2 = new Order(2, OrderStatus.READY, "Details 2");
+        Order order3 = new Order(3, null, "Details 3");
+        mockIngestScript(1L, 1L, 1L);
+
+        orderService.processOrders(Arrays.asList(order1, order2, order3));
+
+        assertEquals(OrderStatus.RECEIVED, order1.getStatus());
+        assertEquals(OrderStatus.RECEIVED, order3.getStatus());
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate, times(1)).execute(eq(RedisOrderRepository.INGEST_ORDERS_SCRIPT), any(RedisSerializer.class),
+                any(RedisSerializer.class), keys.capture(), any());
+        assertEquals(Arrays.asList("order:1", "order:2", "order:3", "order:status:RECEIVED", "order:status:IN_PREPARATION",
+                "order:status:READY", "order:status:FINISHED", "order:status-since"), keys.getValue());
+        assertEquals(4 + 3 * 4, ingestArgs().size());
+        verify(redisTemplate, never()).multi();
+    }
+
+    @Test
+    public void testProcessOrders_IgnoresExistingOrders() {
+        // Arrange: O pedido 1 já foi gravado por uma entrega anterior
+        Order order1 = new Order(1, OrderStatus.RECEIVED, "Details 1");
+        Order order2 = new Order(2, OrderStatus.RECEIVED, "Details 2");
+        OrderNearCache nearCache = mock(OrderNearCache.class);
+        orderService = new OrderService(new RedisOrderRepository(redisTemplate, redisTemplate, properties), properties, nearCache, new ProductionAnalytics(properties, meterRegistry), meterRegistry);
+        mockIngestScript(0L, 1L);
+
+        // Act: A mensagem é reentregue junto com um pedido novo
+        orderService.processOrders(Arrays.asList(order1, order2));
+
+        // Assert: Só o pedido novo é invalidado e a duplicata é contada
+        verify(nearCache, never()).invalidate(1);
+        verify(nearCache).invalidate(2);
+        assertEquals(1, meterRegistry.get("orders.ingest.duplicates").counter().count());
+    }
+
+    @Test
+    public void testProcessOrders_EmptyBatch() {
+
+        orderService.processOrders(Collections.emptyList());
+
+        verify(redisTemplate, never()).execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                anyList(), any());
     }
 
     @Test
     public void testUpdateOrderStatus_Success() {
 
         int orderId = 123;
-        Order order = new Order(orderId, OrderStatus.RECEIVED, "Test details");
         OrderStatus newStatus = OrderStatus.IN_PREPARATION;
+        Order order = new Order(orderId, newStatus, "Test details");
         String key = ORDER_KEY_PREFIX + orderId;
-        when(valueOperations.get(key)).thenReturn(order);
+        mockStatusScript(Arrays.asList(1L, order));
 
         Order updatedOrder = orderService.updateOrderStatus(orderId, newStatus);
 
-        Map<String, Object> updatedOrderMessage = new HashMap<>();
-        updatedOrderMessage.put("orderId", order.getOrderId());
-        updatedOrderMessage.put("orderStatus", order.getStatus());
-
         assertEquals(newStatus, updatedOrder.getStatus());
+        assertEquals(1, meterRegistry.get("orders.status.updates").tag("outcome", "updated").counter().count());
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate).execute(any(RedisScript.class), nullable(RedisSerializer.class), nullable(RedisSerializer.class), keys.capture(),
+                eq("IN_PREPARATION"), eq("1800000"), anyString(), eq("123"), eq("order:status-changes"),
+                eq("RECEIVED"), eq("IN_PREPARATION"), eq("READY"), eq("FINISHED"));
+        assertEquals(Arrays.asList(key, "order:outbox", "order:status:RECEIVED", "order:status:IN_PREPARATION",
+                "order:status:READY", "order:status:FINISHED", "order:status-since"), keys.getValue());
+        verify(valueOperations, never()).get(any());
+        verify(valueOperations, never()).set(any(), any());
+    }
 
+    @Test
+    public void testUpdateOrderStatus_RecordsTimeInPreviousStatus() {
 
-        assertNotNull(updatedOrderMessage);
-
-        assertTrue(updatedOrderMessage instanceof Map);
-
-        assertEquals(2, updatedOrderMessage.size());
-
-        assertTrue(updatedOrderMessage.containsKey("orderId"));
-        assertEquals(123, updatedOrderMessage.get("orderId"));
+        mockStatusScript(Arrays.asList(1L, new Order(123, OrderStatus.IN_PREPARATION, "Test details"),
+                bytes("RECEIVED"), 4200L));
 
-        assertTrue(updatedOrderMessage.containsKey("orderStatus"));
-        assertEquals(OrderStatus.IN_PREPARATION, updatedOrderMessage.get("orderStatus"));
+        orderService.updateOrderStatus(123, OrderStatus.IN_PREPARATION);
 
-        verify(valueOperations).get(key);
-        verify(valueOperations).set(key, order);
-        verify(rabbitTemplate).convertAndSend(
-                RabbitMQConfig.UPDATED_ORDER_EXCHANGE,
-                RabbitMQConfig.UPDATED_ORDER_ROUTING_KEY,
-                updatedOrderMessage);
+        Timer timer = meterRegistry.get("orders.status.time").tag("status", "RECEIVED").timer();
+        assertEquals(1, timer.count());
+        assertEquals(4200, timer.totalTime(TimeUnit.MILLISECONDS));
     }
 
     @Test
@@ -110,8 +222,7 @@ public class OrderServiceTest {
 
         int orderId = 123;
         OrderStatus newStatus = OrderStatus.IN_PREPARATION;
-        String key = ORDER_KEY_PREFIX + orderId;
-        when(valueOperations.get(key)).thenReturn(null);
+        mockStatusScript(Collections.singletonList(0L));
 
         RuntimeException exception = assertThrows(RuntimeException.class, () ->
                 orderService.updateOrderStatus(orderId, newStatus)
@@ -119,116 +230,591 @@ public class OrderServiceTest {
         assertEquals("Pedido não encontrado com id: " + orderId, exception.getMessage());
     }
 
+    @Test
+    public void testUpdateOrderStatus_InvalidTransition() {
+
+        int orderId = 123;
+        mockStatusScript(Arrays.asList(3L, new Order(orderId, OrderStatus.READY, "Test details")));
+
+        assertThrows(InvalidStatusTransitionException.class, () ->
+                orderService.updateOrderStatus(orderId, OrderStatus.IN_PREPARATION)
+        );
+        assertEquals(1, meterRegistry.get("orders.status.updates").tag("outcome", "invalid").counter().count());
+    }
+
+    @Test
+    public void testUpdateOrderStatus_SameStatus() {
+
+        int orderId = 123;
+        Order order = new Order(orderId, OrderStatus.READY, "Test details");
+        mockStatusScript(Arrays.asList(2L, order));
+
+        Order result = orderService.updateOrderStatus(orderId, OrderStatus.READY);
+
+        assertEquals(order, result);
+    }
+
+    @Test
+    public void testUpdateOrderStatus_NullStatus() {
+
+        assertThrows(IllegalArgumentException.class, () ->
+                orderService.updateOrderStatus(123, null)
+        );
+        verify(redisTemplate, never()).execute(any(RedisScript.class), nullable(RedisSerializer.class), nullable(RedisSerializer.class), anyList(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockIngestScript(Long... result) {
+        when(redisTemplate.execute(eq(RedisOrderRepository.INGEST_ORDERS_SCRIPT), any(RedisSerializer.class), any(RedisSerializer.class),
+                anyList(), any())).thenReturn(Arrays.asList(result));
+    }
+
+    // ARGV da última execução do script de ingestão
+    @SuppressWarnings("unchecked")
+    private List<byte[]> ingestArgs() {
+        ArgumentCaptor<Object> args = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).execute(eq(RedisOrderRepository.INGEST_ORDERS_SCRIPT), any(RedisSerializer.class),
+                any(RedisSerializer.class), anyList(), args.capture());
+        List<byte[]> raw = new ArrayList<>();
+        for (Object arg : args.getAllValues()) {
+            raw.add((byte[]) arg);
+        }
+        return raw;
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockStatusScript(List<Object> result) {
+        List<Object> raw = new ArrayList<>();
+        for (Object element : result) {
+            raw.add(element instanceof Order ? valueSerializer.serialize(element) : element);
+        }
+        when(redisTemplate.execute(any(RedisScript.class), nullable(RedisSerializer.class), nullable(RedisSerializer.class), anyList(), any()))
+                .thenReturn(raw);
+    }
+
 
     @Test
     public void testGetOrder_Found() {
 
         int orderId = 123;
         Order order = new Order(orderId, OrderStatus.RECEIVED, "Test details");
-        when(valueOperations.get("order:" + orderId)).thenReturn(order);
+        mockOrderLoad(valueSerializer.serialize(order), 60_000L);
 
         Order result = orderService.getOrder(orderId);
 
         assertNotNull(result);
         assertEquals(orderId, result.getOrderId());
+        verify(stringCommands).get(aryEq(bytes("order:123")));
+        verify(keyCommands).pTtl(aryEq(bytes("order:123")));
     }
 
     @Test
     public void testGetOrder_NotFound() {
         int orderId = 123;
-        when(valueOperations.get("order:" + orderId)).thenReturn(null);
+        mockOrderLoad(null, -2L);
 
         Order result = orderService.getOrder(orderId);
 
         assertNull(result);
+        assertEquals(1, meterRegistry.get("orders.not.found").tag("operation", "get").counter().count());
+    }
+
+    @Test
+    public void testGetOrder_ServedFromNearCache() {
+
+        mockOrderLoad(valueSerializer.serialize(new Order(123, OrderStatus.RECEIVED, "Test details")), 60_000L);
+
+        orderService.getOrder(123);
+        Order result = orderService.getOrder(123);
+
+        assertEquals(OrderStatus.RECEIVED, result.getStatus());
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class), any(RedisSerializer.class));
+    }
+
+    @Test
+    public void testUpdateOrderStatus_InvalidatesNearCache() {
+
+        mockOrderLoad(valueSerializer.serialize(new Order(123, OrderStatus.RECEIVED, "Test details")), 60_000L);
+        orderService.getOrder(123);
+        mockStatusScript(Arrays.asList(1L, new Order(123, OrderStatus.IN_PREPARATION, "Test details")));
+
+        orderService.updateOrderStatus(123, OrderStatus.IN_PREPARATION);
+        orderService.getOrder(123);
+
+        verify(redisTemplate, times(2)).executePipelined(any(RedisCallback.class), any(RedisSerializer.class));
     }
 
+    @Test
+    public void testGetOrder_HashLayoutReadsFieldsAndTtl() {
+
+        properties.getRedis().setLayout(OrderProductionProperties.StorageLayout.HASH);
+        mockOrderLoad(Arrays.asList(bytes("READY"), valueSerializer.serialize("Test details")), 60_000L);
+
+        assertEquals(new Order(123, OrderStatus.READY, "Test details"), orderService.getOrder(123));
+        verify(hashCommands).hMGet(aryEq(bytes("order:hash:123")), any());
+        verify(keyCommands).pTtl(aryEq(bytes("order:hash:123")));
+    }
 
     @Test
     public void testGetOrdersByStatus_Found() {
 
         OrderStatus desiredStatus = OrderStatus.RECEIVED;
         Order order1 = new Order(1, OrderStatus.RECEIVED, "Details 1");
-        Order order2 = new Order(2, OrderStatus.IN_PREPARATION, "Details 2");
         Order order3 = new Order(3, OrderStatus.RECEIVED, "Details 3");
 
-        Set<String> keys = new HashSet<>(Arrays.asList("order:1", "order:2", "order:3"));
-        when(redisTemplate.keys("order:*")).thenReturn(keys);
-        when(valueOperations.get("order:1")).thenReturn(order1);
-        when(valueOperations.get("order:2")).thenReturn(order2);
-        when(valueOperations.get("order:3")).thenReturn(order3);
+        when(zSetOperations.rangeByScoreWithScores(eq("order:status:RECEIVED"), anyDouble(), eq(Double.POSITIVE_INFINITY),
+                eq(0L), eq(101L))).thenReturn(index(1, 1000, 3, 1001));
+        when(valueOperations.multiGet(Arrays.asList("order:1", "order:3"))).thenReturn(Arrays.asList(order1, order3));
 
-        List<Order> orders = orderService.getOrdersByStatus(desiredStatus);
+        OrderPage<Iterator<Order>> page = orderService.getOrdersByStatus(desiredStatus, null, null);
 
-        assertEquals(2, orders.size());
-        assertTrue(orders.contains(order1));
-        assertTrue(orders.contains(order3));
+        assertEquals(Arrays.asList(order1, order3), toList(page.getOrders()));
+        assertNull(page.getNextCursor());
+        verify(redisTemplate, never()).keys(anyString());
+        verify(valueOperations, never()).get(any());
     }
 
     @Test
-    public void testGetOrdersByStatus_NoMatchingOrders() {
-        // Arrange: Cria pedidos que não possuem o status desejado
+    public void testGetOrdersByStatus_IgnoresStaleIndexEntries() {
+        // Arrange: O índice ainda aponta para um pedido que já mudou de status
         OrderStatus desiredStatus = OrderStatus.RECEIVED;
         Order order1 = new Order(1, OrderStatus.IN_PREPARATION, "Details 1");
-        Order order2 = new Order(2, OrderStatus.IN_PREPARATION, "Details 2");
 
-        Set<String> keys = new HashSet<>(Arrays.asList("order:1", "order:2"));
-        when(redisTemplate.keys("order:*")).thenReturn(keys);
-        when(valueOperations.get("order:1")).thenReturn(order1);
-        when(valueOperations.get("order:2")).thenReturn(order2);
+        when(zSetOperations.rangeByScoreWithScores(eq("order:status:RECEIVED"), anyDouble(), eq(Double.POSITIVE_INFINITY),
+                anyLong(), anyLong())).thenReturn(index(1, 1000));
+        when(valueOperations.multiGet(Collections.singletonList("order:1"))).thenReturn(Collections.singletonList(order1));
 
         // Act: Busca os pedidos com o status desejado
-        List<Order> orders = orderService.getOrdersByStatus(desiredStatus);
+        OrderPage<Iterator<Order>> page = orderService.getOrdersByStatus(desiredStatus, null, null);
 
-        // Assert: Como nenhum pedido possui o status RECEBIDO, a lista deve estar vazia
-        assertTrue(orders.isEmpty());
+        // Assert: O pedido fora do status não deve ser retornado
+        assertFalse(page.getOrders().hasNext());
     }
 
     @Test
-    public void testGetOrdersByStatus_NullKeys() {
-        // Arrange: Simula que redisTemplate.keys(...) retorna null
+    public void testGetOrdersByStatus_NullIndex() {
+        // Arrange: Simula que o índice do status não existe
         OrderStatus desiredStatus = OrderStatus.RECEIVED;
-        when(redisTemplate.keys("order:*")).thenReturn(null);
+        when(zSetOperations.rangeByScoreWithScores(eq("order:status:RECEIVED"), anyDouble(), eq(Double.POSITIVE_INFINITY),
+                anyLong(), anyLong())).thenReturn(null);
 
         // Act: Chama o método
-        List<Order> orders = orderService.getOrdersByStatus(desiredStatus);
+        OrderPage<Iterator<Order>> page = orderService.getOrdersByStatus(desiredStatus, null, null);
 
-        // Assert: A lista retornada deve ser vazia (mas não nula)
-        assertNotNull(orders);
-        assertTrue(orders.isEmpty());
+        // Assert: A página retornada deve ser vazia (mas não nula) e sem próxima página
+        assertNotNull(page.getOrders());
+        assertFalse(page.getOrders().hasNext());
+        assertNull(page.getNextCursor());
+        verify(valueOperations, never()).multiGet(any());
     }
 
     @Test
-    public void testGetOrdersByStatus_EmptyKeys() {
-        // Arrange: Simula que redisTemplate.keys(...) retorna um conjunto vazio
+    public void testGetOrdersByStatus_EmptyIndex() {
+        // Arrange: Simula que o índice do status está vazio
         OrderStatus desiredStatus = OrderStatus.RECEIVED;
-        when(redisTemplate.keys("order:*")).thenReturn(Collections.emptySet());
+        when(zSetOperations.rangeByScoreWithScores(eq("order:status:RECEIVED"), anyDouble(), eq(Double.POSITIVE_INFINITY),
+                anyLong(), anyLong())).thenReturn(Collections.emptySet());
 
         // Act: Chama o método
-        List<Order> orders = orderService.getOrdersByStatus(desiredStatus);
+        OrderPage<Iterator<Order>> page = orderService.getOrdersByStatus(desiredStatus, null, null);
 
-        // Assert: A lista retornada deve ser vazia
-        assertNotNull(orders);
-        assertTrue(orders.isEmpty());
+        // Assert: A página retornada deve ser vazia
+        assertFalse(page.getOrders().hasNext());
+        assertNull(page.getNextCursor());
     }
 
     @Test
     public void testGetOrdersByStatus_SomeNullOrders() {
-        // Arrange: Cria um cenário onde algumas chaves retornam pedidos nulos
+        // Arrange: Cria um cenário onde algumas entradas do índice apontam para pedidos expirados
         OrderStatus desiredStatus = OrderStatus.RECEIVED;
         Order order1 = new Order(1, OrderStatus.RECEIVED, "Details 1");
-        Order order2 = null;  // Simula pedido não encontrado
-        Set<String> keys = new HashSet<>(Arrays.asList("order:1", "order:2"));
-        when(redisTemplate.keys("order:*")).thenReturn(keys);
-        when(valueOperations.get("order:1")).thenReturn(order1);
-        when(valueOperations.get("order:2")).thenReturn(order2);
+        when(zSetOperations.rangeByScoreWithScores(eq("order:status:RECEIVED"), anyDouble(), eq(Double.POSITIVE_INFINITY),
+                anyLong(), anyLong())).thenReturn(index(1, 1000, 2, 1001));
+        when(valueOperations.multiGet(Arrays.asList("order:1", "order:2"))).thenReturn(Arrays.asList(order1, null));
 
         // Act: Chama o método
-        List<Order> orders = orderService.getOrdersByStatus(desiredStatus);
+        List<Order> orders = toList(orderService.getOrdersByStatus(desiredStatus, null, null).getOrders());
+
+        // Assert: Apenas order1 deve ser retornado
+        assertEquals(Collections.singletonList(order1), orders);
+    }
+
+    @Test
+    public void testGetOrdersByStatus_PagesWithCursorAcrossTies() {
+        // Arrange: Pedidos 10 e 9 foram recebidos no mesmo milissegundo (empate ordenado pelo membro: "10" < "9")
+        OrderStatus desiredStatus = OrderStatus.READY;
+        long receivedAt = System.currentTimeMillis();
+        when(zSetOperations.rangeByScoreWithScores(eq("order:status:READY"), anyDouble(), eq(Double.POSITIVE_INFINITY),
+                eq(0L), eq(2L))).thenReturn(index(7, receivedAt - 1, 10, receivedAt));
+        when(valueOperations.multiGet(Collections.singletonList("order:7")))
+                .thenReturn(Collections.singletonList(new Order(7, desiredStatus, null)));
+
+        // Act: Primeira página com um pedido
+        OrderPage<Iterator<Order>> first = orderService.getOrdersByStatus(desiredStatus, 1, null);
+
+        // Assert: Há próxima página
+        assertEquals(Collections.singletonList(7), ids(first.getOrders()));
+        assertNotNull(first.getNextCursor());
+
+        // Arrange: A segunda página recomeça na pontuação do cursor, que é relida e descartada
+        when(zSetOperations.rangeByScoreWithScores(eq("order:status:READY"), eq((double) receivedAt - 1),
+                eq(Double.POSITIVE_INFINITY), eq(0L), eq(3L))).thenReturn(index(7, receivedAt - 1, 10, receivedAt, 9, receivedAt));
+        when(valueOperations.multiGet(Arrays.asList("order:10", "order:9"))).thenReturn(Arrays.asList(
+                new Order(10, desiredStatus, null), new Order(9, desiredStatus, null)));
+        properties.getPagination().setDefaultLimit(2);
+        properties.getRedis().setReadChunkSize(5);
+
+        // Act: Segunda página, com o limite padrão
+        OrderPage<Iterator<Order>> second = orderService.getOrdersByStatus(desiredStatus, null, first.getNextCursor());
+
+        // Assert: Empates seguem a ordem do índice e não há próxima página
+        assertEquals(Arrays.asList(10, 9), ids(second.getOrders()));
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    public void testGetOrdersByStatus_ReadsNextIndexBlockWhenCursorEntriesFillIt() {
+        // Arrange: O primeiro bloco lido só tem entradas até o cursor (pedido 5 recebido em 1000)
+        OrderStatus desiredStatus = OrderStatus.READY;
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString("1000:5".getBytes(StandardCharsets.UTF_8));
+        when(zSetOperations.rangeByScoreWithScores(eq("order:status:READY"), anyDouble(), eq(Double.POSITIVE_INFINITY),
+                eq(0L), eq(2L))).thenReturn(index(3, 1000, 5, 1000));
+        when(zSetOperations.rangeByScoreWithScores(eq("order:status:READY"), anyDouble(), eq(Double.POSITIVE_INFINITY),
+                eq(2L), eq(2L))).thenReturn(index(8, 1000));
+        when(valueOperations.multiGet(Collections.singletonList("order:8")))
+                .thenReturn(Collections.singletonList(new Order(8, desiredStatus, null)));
+
+        // Act
+        OrderPage<Iterator<Order>> page = orderService.getOrdersByStatus(desiredStatus, 1, cursor);
+
+        // Assert
+        assertEquals(Collections.singletonList(8), ids(page.getOrders()));
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testGetOrdersByStatus_ClampsLimit() {
+
+        properties.getPagination().setMaxLimit(50);
+        when(zSetOperations.rangeByScoreWithScores(anyString(), anyDouble(), anyDouble(), anyLong(), anyLong()))
+                .thenReturn(Collections.emptySet());
+
+        orderService.getOrdersByStatus(OrderStatus.READY, 10_000, null);
+        orderService.getOrdersByStatus(OrderStatus.READY, 0, null);
+
+        verify(zSetOperations).rangeByScoreWithScores(anyString(), anyDouble(), anyDouble(), eq(0L), eq(51L));
+        verify(zSetOperations).rangeByScoreWithScores(anyString(), anyDouble(), anyDouble(), eq(0L), eq(2L));
+    }
+
+    @Test
+    public void testGetOrdersByStatus_InvalidCursor() {
+
+        assertThrows(InvalidCursorException.class,
+                () -> orderService.getOrdersByStatus(OrderStatus.READY, null, "não-é-um-cursor"));
+        assertThrows(InvalidCursorException.class, () -> orderService.getOrdersByStatus(OrderStatus.READY, null,
+                Base64.getUrlEncoder().encodeToString("1000-5".getBytes(StandardCharsets.UTF_8))));
+        verify(zSetOperations, never()).rangeByScoreWithScores(anyString(), anyDouble(), anyDouble(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void testGetOrders_SingleMultiGet() {
+
+        Order order1 = new Order(1, OrderStatus.RECEIVED, "Details 1");
+        Order order3 = new Order(3, OrderStatus.READY, "Details 3");
+        when(valueOperations.multiGet(Arrays.asList("order:1", "order:2", "order:3")))
+                .thenReturn(Arrays.asList(order1, null, order3));
+
+        List<Order> orders = orderService.getOrders(Arrays.asList(1, 2, 3, 1));
+
+        assertEquals(Arrays.asList(order1, order3), orders);
+        verify(redisTemplate, never()).executePipelined(any(SessionCallback.class));
+    }
+
+    @Test
+    public void testGetOrders_PipelinesChunks() {
+
+        properties.getRedis().setReadChunkSize(2);
+        Order order1 = new Order(1, OrderStatus.RECEIVED, "Details 1");
+        Order order2 = new Order(2, OrderStatus.RECEIVED, "Details 2");
+        Order order3 = new Order(3, OrderStatus.RECEIVED, "Details 3");
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, SessionCallback.class).execute(redisTemplate);
+            return Arrays.asList(Arrays.asList(order1, order2), Collections.singletonList(order3));
+        });
+
+        List<Order> orders = orderService.getOrders(Arrays.asList(1, 2, 3));
+
+        assertEquals(Arrays.asList(order1, order2, order3), orders);
+        verify(valueOperations).multiGet(Arrays.asList("order:1", "order:2"));
+        verify(valueOperations).multiGet(Collections.singletonList("order:3"));
+    }
+
+    @Test
+    public void testGetOrders_EmptyIds() {
+
+        List<Order> orders = orderService.getOrders(Collections.emptyList());
+
+        assertTrue(orders.isEmpty());
+        verifyNoInteractions(valueOperations);
+    }
+
+    @Test
+    public void testGetOrders_TooManyIds() {
+
+        properties.getRedis().setGetManyMaxSize(2);
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrders(Arrays.asList(1, 2, 3)));
+        verifyNoInteractions(valueOperations);
+    }
+
+    @Test
+    public void testProcessOrder_HashLayoutWritesFields() {
+
+        properties.getRedis().setLayout(OrderProductionProperties.StorageLayout.HASH);
+        Order order = new Order(123, null, "Test details");
+        mockIngestScript(1L);
+
+        orderService.processOrder(order);
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate).execute(eq(RedisOrderRepository.INGEST_ORDERS_SCRIPT), any(RedisSerializer.class),
+                any(RedisSerializer.class), keys.capture(), any());
+        assertEquals("order:hash:123", keys.getValue().get(0));
+        List<byte[]> args = ingestArgs();
+        assertEquals("hash", string(args.get(2)));
+        assertEquals("RECEIVED", string(args.get(6)));
+        assertEquals("Test details", valueSerializer.deserialize(args.get(7)));
+    }
+
+    @Test
+    public void testUpdateOrderStatus_HashLayout() {
+
+        properties.getRedis().setLayout(OrderProductionProperties.StorageLayout.HASH);
+        mockStatusScript(Arrays.asList(1L, bytes("READY"), valueSerializer.serialize("Test details")));
+
+        Order order = orderService.updateOrderStatus(123, OrderStatus.READY);
+
+        assertEquals(new Order(123, OrderStatus.READY, "Test details"), order);
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate).execute(any(RedisScript.class), nullable(RedisSerializer.class), nullable(RedisSerializer.class),
+                keys.capture(), any());
+        assertEquals("order:hash:123", keys.getValue().get(0));
+    }
+
+    @Test
+    public void testGetOrderStatus_HashLayoutReadsOnlyStatus() {
+
+        properties.getRedis().setLayout(OrderProductionProperties.StorageLayout.HASH);
+        when(hashCommands.hGet(aryEq(bytes("order:hash:123")), aryEq(bytes("status")))).thenReturn(bytes("IN_PREPARATION"));
+
+        assertEquals(OrderStatus.IN_PREPARATION, orderService.getOrderStatus(123));
+        verify(hashCommands, never()).hMGet(any(), any());
+    }
+
+    @Test
+    public void testGetOrderStatus_StringLayout() {
+
+        mockOrderLoad(valueSerializer.serialize(new Order(123, OrderStatus.READY, "Test details")), 60_000L);
+
+        assertEquals(OrderStatus.READY, orderService.getOrderStatus(123));
+    }
+
+    @Test
+    public void testGetOrders_HashLayoutPipelinesFieldReads() {
+
+        properties.getRedis().setLayout(OrderProductionProperties.StorageLayout.HASH);
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return Arrays.asList(
+                    Arrays.asList(bytes("RECEIVED"), valueSerializer.serialize("Details 1")),
+                    Arrays.asList(null, null));
+        });
+
+        List<Order> orders = orderService.getOrders(Arrays.asList(1, 2));
+
+        assertEquals(Collections.singletonList(new Order(1, OrderStatus.RECEIVED, "Details 1")), orders);
+        verify(hashCommands).hMGet(aryEq(bytes("order:hash:1")), any());
+        verify(hashCommands).hMGet(aryEq(bytes("order:hash:2")), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockOrderLoad(Object value, long ttlMillis) {
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return Arrays.asList(value, ttlMillis);
+        });
+    }
+
+    @Test
+    public void testUpdateOrderStatus_PartitionedKeysShareHashTag() {
+
+        properties.getRedis().setPartitions(4);
+        mockStatusScript(Arrays.asList(1L, new Order(123, OrderStatus.IN_PREPARATION, "Test details")));
+
+        orderService.updateOrderStatus(123, OrderStatus.IN_PREPARATION);
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate).execute(any(RedisScript.class), nullable(RedisSerializer.class), nullable(RedisSerializer.class),
+                keys.capture(), any());
+        assertEquals(Arrays.asList("order:{3}:123", "order:outbox:{3}", "order:status:{3}:RECEIVED",
+                "order:status:{3}:IN_PREPARATION", "order:status:{3}:READY", "order:status:{3}:FINISHED",
+                "order:status-since:{3}"), keys.getValue());
+    }
+
+    @Test
+    public void testProcessOrders_PartitionedBatchRunsOneScriptPerPartition() {
+        // Arrange: Pedidos 1 e 3 na partição 1 e pedido 2 na partição 0; o pedido 3 já existia
+        properties.getRedis().setPartitions(2);
+        OrderNearCache nearCache = mock(OrderNearCache.class);
+        orderService = new OrderService(new RedisOrderRepository(redisTemplate, redisTemplate, properties), properties, nearCache, new ProductionAnalytics(properties, meterRegistry), meterRegistry);
+        RedisScriptingCommands scriptingCommands = mock(RedisScriptingCommands.class);
+        when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return Arrays.asList(Arrays.asList(1L, 0L), Collections.singletonList(1L));
+        });
+
+        // Act
+        orderService.processOrders(Arrays.asList(new Order(1, null, "Details 1"), new Order(2, null, "Details 2"),
+                new Order(3, null, "Details 3")));
+
+        // Assert: Um script por partição, cada um só com chaves da própria partição
+        ArgumentCaptor<byte[]> keysAndArgs = ArgumentCaptor.forClass(byte[].class);
+        verify(scriptingCommands).eval(any(byte[].class), eq(ReturnType.MULTI), eq(7), keysAndArgs.capture());
+        assertEquals(Arrays.asList("order:{1}:1", "order:{1}:3", "order:status:{1}:RECEIVED"),
+                Arrays.asList(string(keysAndArgs.getAllValues().get(0)), string(keysAndArgs.getAllValues().get(1)),
+                        string(keysAndArgs.getAllValues().get(2))));
+        ArgumentCaptor<byte[]> otherKeysAndArgs = ArgumentCaptor.forClass(byte[].class);
+        verify(scriptingCommands).eval(any(byte[].class), eq(ReturnType.MULTI), eq(6), otherKeysAndArgs.capture());
+        assertEquals("order:{0}:2", string(otherKeysAndArgs.getAllValues().get(0)));
+        verify(nearCache).invalidate(1);
+        verify(nearCache).invalidate(2);
+        verify(nearCache, never()).invalidate(3);
+        assertEquals(1, meterRegistry.get("orders.ingest.duplicates").counter().count());
+    }
+
+    @Test
+    public void testUpdateOrderStatuses_PipelinesScriptsAndReportsEachOrder() {
+        // Arrange: Um pedido atualizado, um sem alteração, um inexistente e uma transição inválida
+        OrderNearCache nearCache = mock(OrderNearCache.class);
+        orderService = new OrderService(new RedisOrderRepository(redisTemplate, redisTemplate, properties), properties, nearCache, new ProductionAnalytics(properties, meterRegistry), meterRegistry);
+        RedisScriptingCommands scriptingCommands = mock(RedisScriptingCommands.class);
+        when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return Arrays.asList(
+                    Arrays.asList(1L, valueSerializer.serialize(new Order(1, OrderStatus.READY, "Details 1"))),
+                    Arrays.asList(2L, valueSerializer.serialize(new Order(2, OrderStatus.READY, "Details 2"))),
+                    Collections.singletonList(0L));
+        });
+
+        // Act
+        List<OrderStatusUpdateResultDTO> results = orderService.updateOrderStatuses(Arrays.asList(
+                new OrderStatusDTO(1, OrderStatus.READY), new OrderStatusDTO(2, OrderStatus.READY),
+                new OrderStatusDTO(3, OrderStatus.READY), new OrderStatusDTO(4, null)));
+
+        // Assert: Os três scripts foram para o mesmo pipeline e o pedido sem status não foi ao Redis
+        assertEquals(Arrays.asList(Result.UPDATED, Result.UNCHANGED, Result.NOT_FOUND, Result.INVALID_TRANSITION),
+                results.stream().map(OrderStatusUpdateResultDTO::getResult).collect(Collectors.toList()));
+        assertEquals(OrderStatus.READY, results.get(0).getOrder().getStatus());
+        assertNull(results.get(2).getOrder());
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class), any(RedisSerializer.class));
+        ArgumentCaptor<byte[]> keysAndArgs = ArgumentCaptor.forClass(byte[].class);
+        verify(scriptingCommands, times(3)).evalSha(any(byte[].class), eq(ReturnType.MULTI), eq(7), keysAndArgs.capture());
+        int perCall = keysAndArgs.getAllValues().size() / 3;
+        assertEquals(Arrays.asList("order:1", "order:2", "order:3"), Arrays.asList(string(keysAndArgs.getAllValues().get(0)),
+                string(keysAndArgs.getAllValues().get(perCall)), string(keysAndArgs.getAllValues().get(2 * perCall))));
+        verify(nearCache).invalidate(1);
+        verify(nearCache, never()).invalidate(2);
+        assertEquals(1, meterRegistry.get("orders.status.updates").tag("outcome", "updated").counter().count());
+    }
+
+    @Test
+    public void testUpdateOrderStatuses_SendsScriptBodyWhenNotCached() {
+        // Arrange: O EVALSHA falha com NOSCRIPT e o pipeline é reenviado com EVAL
+        RedisScriptingCommands scriptingCommands = mock(RedisScriptingCommands.class);
+        when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenThrow(new RedisPipelineException(new RedisNoScriptException("NOSCRIPT No matching script")))
+                .thenAnswer(invocation -> {
+                    invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+                    return Collections.singletonList(
+                            Arrays.asList(1L, valueSerializer.serialize(new Order(1, OrderStatus.READY, "Details 1"))));
+                });
+
+        // Act
+        List<OrderStatusUpdateResultDTO> results = orderService.updateOrderStatuses(
+                Collections.singletonList(new OrderStatusDTO(1, OrderStatus.READY)));
+
+        // Assert
+        assertEquals(Result.UPDATED, results.get(0).getResult());
+        verify(scriptingCommands).eval(any(byte[].class), eq(ReturnType.MULTI), eq(7), any());
+    }
+
+    @Test
+    public void testUpdateOrderStatuses_RejectsBatchAboveMaxSize() {
+
+        properties.getRedis().setBulkUpdateMaxSize(1);
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.updateOrderStatuses(Arrays.asList(
+                new OrderStatusDTO(1, OrderStatus.READY), new OrderStatusDTO(2, OrderStatus.READY))));
+        assertThrows(IllegalArgumentException.class, () -> orderService.updateOrderStatuses(Collections.emptyList()));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    public void testGetOrdersByStatus_PartitionedMergesIndexes() {
+        // Arrange: Cada partição devolve as suas entradas em ordem; a página intercala as duas
+        properties.getRedis().setPartitions(2);
+        long receivedAt = System.currentTimeMillis();
+        RedisZSetCommands zSetCommands = mock(RedisZSetCommands.class);
+        when(connection.zSetCommands()).thenReturn(zSetCommands);
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return Arrays.asList(index("2", receivedAt + 1, "4", receivedAt + 3),
+                    index("1", receivedAt, "3", receivedAt + 2, "5", receivedAt + 4));
+        });
+        when(valueOperations.multiGet(Arrays.asList("order:{1}:1", "order:{0}:2", "order:{1}:3"))).thenReturn(Arrays.asList(
+                new Order(1, OrderStatus.READY, null), new Order(2, OrderStatus.READY, null), new Order(3, OrderStatus.READY, null)));
+
+        // Act
+        OrderPage<Iterator<Order>> page = orderService.getOrdersByStatus(OrderStatus.READY, 3, null);
+
+        // Assert: Os dois índices foram lidos no mesmo pipeline e a próxima página começa depois do pedido 3
+        assertEquals(Arrays.asList(1, 2, 3), ids(page.getOrders()));
+        assertEquals(Base64.getUrlEncoder().withoutPadding().encodeToString(
+                ((receivedAt + 2) + ":3").getBytes(StandardCharsets.UTF_8)), page.getNextCursor());
+        verify(zSetCommands).zRangeByScoreWithScores(aryEq(bytes("order:status:{0}:READY")), any(), any());
+        verify(zSetCommands).zRangeByScoreWithScores(aryEq(bytes("order:status:{1}:READY")), any(), any());
+        verify(zSetOperations, never()).rangeByScoreWithScores(anyString(), anyDouble(), anyDouble(), anyLong(), anyLong());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Entradas do índice por status: pares membro, pontuação
+    private static Set<ZSetOperations.TypedTuple<Object>> index(Object... memberScores) {
+        Set<ZSetOperations.TypedTuple<Object>> entries = new LinkedHashSet<>();
+        for (int i = 0; i < memberScores.length; i += 2) {
+            entries.add(new DefaultTypedTuple<>(memberScores[i], ((Number) memberScores[i + 1]).doubleValue()));
+        }
+        return entries;
+    }
+
+    private static List<Order> toList(Iterator<Order> orders) {
+        List<Order> list = new ArrayList<>();
+        orders.forEachRemaining(list::add);
+        return list;
+    }
 
-        // Assert: Apenas order1 deve ser adicionado à lista
-        assertNotNull(orders);
-        assertEquals(1, orders.size());
-        assertTrue(orders.contains(order1));
+    private static List<Integer> ids(Iterator<Order> orders) {
+        List<Integer> ids = new ArrayList<>();
+        orders.forEachRemaining(order -> ids.add(order.getOrderId()));
+        return ids;
     }
 }
@@ -0,0 +1,201 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.config.OrderProductionProperties.OverflowPolicy;
+import com.example.orderproduction.dto.OrderStatusDTO;
+import com.example.orderproduction.model.OrderStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderStatusPushServiceTest {
+
+    private OrderProductionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private OrderStatusPushService pushService;
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+    private CountDownLatch sendGate = new CountDownLatch(0);
+
+    @BeforeEach
+    public void setUp() {
+
+        properties = new OrderProductionProperties();
+        properties.getPush().setSenderThreads(1);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        sendGate.countDown();
+        pushService.destroy();
+    }
+
+    @Test
+    public void testOnMessage_DeliversOnlyToMatchingSubscribers() throws Exception {
+
+        createService();
+        pushService.subscribe(OrderStatus.READY, null);
+        pushService.subscribe(null, 7);
+
+        pushService.onMessage(change(7, OrderStatus.IN_PREPARATION), null);
+        pushService.onMessage(change(8, OrderStatus.READY), null);
+
+        String readyEvent = emitters.get(0).next();
+        assertTrue(readyEvent.contains("event:order-status"));
+        assertTrue(readyEvent.contains("order 8 READY"));
+        assertTrue(emitters.get(1).next().contains("order 7 IN_PREPARATION"));
+        assertNull(emitters.get(0).sent.poll(50, TimeUnit.MILLISECONDS));
+        assertNull(emitters.get(1).sent.poll(50, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testOnMessage_DisconnectsSlowSubscriber() throws Exception {
+
+        properties.getPush().setBufferSize(1);
+        createService();
+        sendGate = new CountDownLatch(1);
+        pushService.subscribe(null, null);
+
+        fillPastBuffer();
+        sendGate.countDown();
+
+        assertTrue(emitters.get(0).completed.await(1, TimeUnit.SECONDS));
+        assertEquals(0, pushService.subscriberCount());
+        assertEquals(1.0, meterRegistry.counter("orders.push.dropped").count());
+    }
+
+    @Test
+    public void testDisconnectStalledSubscribers_OthersKeepReceiving() throws Exception {
+
+        properties.getPush().setWriteTimeout(Duration.ofMillis(50));
+        createService();
+        sendGate = new CountDownLatch(1);
+        pushService.subscribe(null, 1);
+        CountDownLatch stalledGate = sendGate;
+        sendGate = new CountDownLatch(0);
+        pushService.subscribe(null, 2);
+
+        // A única thread de envio fica presa no primeiro assinante
+        pushService.onMessage(change(1, OrderStatus.READY), null);
+        assertTrue(emitters.get(0).sending.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        pushService.disconnectStalledSubscribers();
+        pushService.onMessage(change(2, OrderStatus.READY), null);
+
+        assertTrue(emitters.get(1).next().contains("order 2 READY"));
+        assertEquals(1, pushService.subscriberCount());
+        assertEquals(1.0, meterRegistry.counter("orders.push.stalled").count());
+        stalledGate.countDown();
+        assertTrue(emitters.get(0).completed.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testOnMessage_DropOldestKeepsSubscriber() throws Exception {
+
+        properties.getPush().setBufferSize(1);
+        properties.getPush().setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+        createService();
+        sendGate = new CountDownLatch(1);
+        pushService.subscribe(null, null);
+
+        fillPastBuffer();
+        sendGate.countDown();
+
+        assertTrue(emitters.get(0).next().contains("order 1 READY"));
+        assertTrue(emitters.get(0).next().contains("order 3 READY"));
+        assertEquals(1, pushService.subscriberCount());
+        assertEquals(1.0, meterRegistry.counter("orders.push.dropped").count());
+    }
+
+    @Test
+    public void testOnMessage_IgnoresInvalidPayload() {
+
+        createService();
+        pushService.subscribe(null, null);
+
+        pushService.onMessage(new DefaultMessage(bytes("order:status-changes"), bytes("not json")), null);
+
+        assertTrue(emitters.get(0).sent.isEmpty());
+    }
+
+    // O primeiro evento fica preso no envio, o segundo ocupa o buffer e o terceiro excede o limite
+    private void fillPastBuffer() throws InterruptedException {
+        pushService.onMessage(change(1, OrderStatus.READY), null);
+        assertTrue(emitters.get(0).sending.await(1, TimeUnit.SECONDS));
+        pushService.onMessage(change(2, OrderStatus.READY), null);
+        pushService.onMessage(change(3, OrderStatus.READY), null);
+    }
+
+    private void createService() {
+        pushService = new OrderStatusPushService(properties, new ObjectMapper(), meterRegistry) {
+            @Override
+            SseEmitter newEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    private static DefaultMessage change(int orderId, OrderStatus status) {
+        String body = "{\"orderId\":" + orderId + ",\"status\":\"" + status + "\"}";
+        return new DefaultMessage(bytes("order:status-changes"), bytes(body));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private final CountDownLatch gate = sendGate;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sending.countDown();
+            try {
+                gate.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            StringBuilder event = new StringBuilder();
+            for (DataWithMediaType item : builder.build()) {
+                Object data = item.getData();
+                if (data instanceof OrderStatusDTO) {
+                    OrderStatusDTO change = (OrderStatusDTO) data;
+                    data = "order " + change.getOrderId() + " " + change.getStatus();
+                }
+                event.append(data);
+            }
+            sent.add(event.toString());
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+
+        private String next() throws InterruptedException {
+            return sent.poll(1, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class OrderWriteBehindBufferTest {
+
+    private OrderService orderService;
+    private OrderProductionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private OrderWriteBehindBuffer writeBehind;
+
+    @BeforeEach
+    public void setUp() {
+
+        orderService = Mockito.mock(OrderService.class);
+        properties = new OrderProductionProperties();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void tearDown() {
+
+        if (writeBehind != null) {
+            writeBehind.destroy();
+        }
+    }
+
+    @Test
+    public void testWrite_DisabledWritesDirectly() {
+
+        writeBehind = new OrderWriteBehindBuffer(orderService, properties, meterRegistry);
+        List<Order> orders = Collections.singletonList(order(1));
+
+        writeBehind.write(orders);
+
+        verify(orderService).processOrders(orders);
+    }
+
+    @Test
+    public void testWrite_CoalescesConcurrentBatches() throws Exception {
+
+        properties.getWriteBehind().setEnabled(true);
+        properties.getWriteBehind().setFlushSize(3);
+        // Só o tamanho dispara a gravação: os dois lotes precisam sair juntos
+        properties.getWriteBehind().setFlushInterval(Duration.ofMinutes(1));
+        writeBehind = new OrderWriteBehindBuffer(orderService, properties, meterRegistry);
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> writeBehind.write(Arrays.asList(order(1), order(2))));
+        writeBehind.write(Arrays.asList(order(2), order(3)));
+        first.get(5, TimeUnit.SECONDS);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Order>> written = ArgumentCaptor.forClass(List.class);
+        verify(orderService, times(1)).processOrders(written.capture());
+        assertEquals(Arrays.asList(1, 2, 3),
+                written.getValue().stream().map(Order::getOrderId).sorted().collect(Collectors.toList()));
+        assertEquals(1, meterRegistry.get("orders.write-behind.coalesced").counter().count());
+        assertEquals(3, meterRegistry.get("orders.write-behind.flush.size").summary().totalAmount());
+    }
+
+    @Test
+    public void testWrite_FlushFailureReachesListener() {
+
+        properties.getWriteBehind().setEnabled(true);
+        properties.getWriteBehind().setFlushInterval(Duration.ofMillis(10));
+        properties.getWriteBehind().setMaxPending(1);
+        writeBehind = new OrderWriteBehindBuffer(orderService, properties, meterRegistry);
+        IllegalStateException failure = new IllegalStateException("Redis indisponível");
+        doThrow(failure).when(orderService).processOrders(anyList());
+
+        List<Order> orders = Collections.singletonList(order(1));
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> writeBehind.write(orders)));
+
+        // O lote com falha libera o buffer
+        doNothing().when(orderService).processOrders(anyList());
+        writeBehind.write(orders);
+        verify(orderService, times(2)).processOrders(anyList());
+    }
+
+    @Test
+    public void testWrite_FailedFlushRetriesEachBatchAlone() throws Exception {
+
+        properties.getWriteBehind().setEnabled(true);
+        properties.getWriteBehind().setFlushSize(3);
+        properties.getWriteBehind().setFlushInterval(Duration.ofMinutes(1));
+        writeBehind = new OrderWriteBehindBuffer(orderService, properties, meterRegistry);
+        IllegalArgumentException failure = new IllegalArgumentException("Pedido inválido: 3");
+        // Falha a gravação conjunta e a do lote com o pedido 3; o lote dos pedidos 1 e 2 é gravado sozinho
+        doThrow(failure).when(orderService).processOrders(argThat(orders ->
+                orders.stream().anyMatch(order -> order.getOrderId() == 3)));
+
+        CompletableFuture<Void> healthy = CompletableFuture.runAsync(() -> writeBehind.write(Arrays.asList(order(1), order(2))));
+        assertSame(failure, assertThrows(IllegalArgumentException.class,
+                () -> writeBehind.write(Collections.singletonList(order(3)))));
+        healthy.get(5, TimeUnit.SECONDS);
+
+        verify(orderService).processOrders(Arrays.asList(order(1), order(2)));
+        verify(orderService, times(3)).processOrders(anyList());
+        assertEquals(2, meterRegistry.get("orders.write-behind.isolated.retries").counter().count());
+    }
+
+    private static Order order(int orderId) {
+        return new Order(orderId, OrderStatus.RECEIVED, null);
+    }
+}
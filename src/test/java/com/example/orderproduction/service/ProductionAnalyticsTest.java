@@ -0,0 +1,180 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO.Result;
+import com.example.orderproduction.dto.ProductionAnalyticsDTO;
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ProductionAnalyticsTest {
+
+    private static final long START = 1_700_000_040_000L;
+    private static final long MINUTE = 60_000L;
+
+    private final AtomicLong clock = new AtomicLong(START);
+    private ProductionAnalytics analytics;
+
+    @BeforeEach
+    public void setUp() {
+
+        OrderProductionProperties properties = new OrderProductionProperties();
+        properties.getAnalytics().setRetention(Duration.ofMinutes(5));
+        analytics = new ProductionAnalytics(properties, new SimpleMeterRegistry(), clock::get, null);
+    }
+
+    @Test
+    public void testSnapshot_CountsEnteredOrdersPerBucket() {
+
+        analytics.recordEntered(OrderStatus.RECEIVED, 3, START);
+        clock.addAndGet(MINUTE);
+        analytics.recordEntered(OrderStatus.RECEIVED, 2, clock.get());
+        analytics.recordTransition(transition(OrderStatus.RECEIVED, OrderStatus.IN_PREPARATION, 1000L));
+
+        ProductionAnalyticsDTO snapshot = analytics.snapshot(Duration.ofMinutes(2));
+
+        assertEquals(2, snapshot.getThroughput().size());
+        assertEquals(MINUTE, snapshot.getBucketMillis());
+        assertEquals(START - START % MINUTE, snapshot.getFrom());
+        assertEquals(3, snapshot.getThroughput().get(0).getEntered().get(OrderStatus.RECEIVED));
+        assertEquals(2, snapshot.getThroughput().get(1).getEntered().get(OrderStatus.RECEIVED));
+        assertEquals(1, snapshot.getThroughput().get(1).getEntered().get(OrderStatus.IN_PREPARATION));
+        assertFalse(snapshot.getTimeInStatus().containsKey(OrderStatus.FINISHED));
+    }
+
+    @Test
+    public void testSnapshot_MergesTimeInStatusAcrossBuckets() {
+
+        for (int i = 1; i <= 100; i++) {
+            analytics.recordTransition(transition(OrderStatus.IN_PREPARATION, OrderStatus.READY, i * 1000L));
+            if (i == 50) {
+                clock.addAndGet(MINUTE);
+            }
+        }
+
+        ProductionAnalyticsDTO.StatusTime time = analytics.snapshot(Duration.ofMinutes(5))
+                .getTimeInStatus().get(OrderStatus.IN_PREPARATION);
+
+        assertEquals(100, time.getCount());
+        assertBetween(50_000, time.getP50());
+        assertBetween(95_000, time.getP95());
+        assertBetween(99_000, time.getP99());
+        assertEquals(50, analytics.snapshot(Duration.ofMinutes(1)).getTimeInStatus()
+                .get(OrderStatus.IN_PREPARATION).getCount());
+    }
+
+    @Test
+    public void testSnapshot_DropsBucketsOutsideRetention() {
+
+        analytics.recordTransition(transition(OrderStatus.RECEIVED, OrderStatus.IN_PREPARATION, 1000L));
+        clock.addAndGet(5 * MINUTE);
+        analytics.recordEntered(OrderStatus.RECEIVED, 1, clock.get());
+        analytics.recordEntered(OrderStatus.RECEIVED, 1, START);
+
+        ProductionAnalyticsDTO snapshot = analytics.snapshot(Duration.ofHours(1));
+
+        assertEquals(5, snapshot.getThroughput().size());
+        assertEquals(0, snapshot.getTimeInStatus().get(OrderStatus.RECEIVED).getCount());
+        assertEquals(1, snapshot.getThroughput().get(4).getEntered().get(OrderStatus.RECEIVED));
+    }
+
+    @Test
+    public void testSnapshot_MergesInstancesThroughRedis() {
+
+        OrderProductionProperties properties = new OrderProductionProperties();
+        properties.getAnalytics().setRetention(Duration.ofMinutes(5));
+        RedisOrderRepository repository = sharedRepository(0);
+        ProductionAnalytics first = new ProductionAnalytics(properties, new SimpleMeterRegistry(), clock::get, repository);
+        ProductionAnalytics second = new ProductionAnalytics(properties, new SimpleMeterRegistry(), clock::get, repository);
+
+        first.recordEntered(OrderStatus.RECEIVED, 3, START);
+        first.recordTransition(transition(OrderStatus.RECEIVED, OrderStatus.IN_PREPARATION, 1000L));
+        first.flush();
+        second.recordTransition(transition(OrderStatus.RECEIVED, OrderStatus.IN_PREPARATION, 3000L));
+        second.flush();
+        // Só a diferença desde o último envio é somada
+        first.recordEntered(OrderStatus.RECEIVED, 1, START);
+        first.flush();
+
+        ProductionAnalyticsDTO snapshot = second.snapshot(Duration.ofMinutes(1));
+
+        assertEquals(4, snapshot.getThroughput().get(0).getEntered().get(OrderStatus.RECEIVED));
+        assertEquals(2, snapshot.getThroughput().get(0).getEntered().get(OrderStatus.IN_PREPARATION));
+        assertEquals(2, snapshot.getTimeInStatus().get(OrderStatus.RECEIVED).getCount());
+        assertBetween(3000, snapshot.getTimeInStatus().get(OrderStatus.RECEIVED).getP99());
+    }
+
+    @Test
+    public void testFlush_FailureKeepsCountsForNextCycle() {
+
+        OrderProductionProperties properties = new OrderProductionProperties();
+        ProductionAnalytics shared = new ProductionAnalytics(properties, new SimpleMeterRegistry(), clock::get,
+                sharedRepository(1));
+        shared.recordEntered(OrderStatus.RECEIVED, 2, START);
+
+        shared.flush();
+        shared.flush();
+
+        assertEquals(2, shared.snapshot(Duration.ofMinutes(1)).getThroughput().get(0).getEntered()
+                .get(OrderStatus.RECEIVED));
+    }
+
+    @Test
+    public void testLatencyHistogram_BucketsCoverValuesWithBoundedError() {
+
+        for (long value : new long[]{0, 7, 8, 17, 1000, 123_456, 1_800_000}) {
+            long upper = LatencyHistogram.upperBound(LatencyHistogram.bucketOf(value));
+            assertTrue(upper >= value && upper <= value + value / 8, value + " -> " + upper);
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    // Percentil estimado pelo limite superior da faixa: nunca abaixo do valor e no máximo 12,5% acima
+    private static void assertBetween(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 8, expected + " -> " + actual);
+    }
+
+    // Repositório que soma os contadores em memória, como os hashes order:analytics:<bucket> compartilhados no Redis;
+    // os primeiros failures envios falham
+    private static RedisOrderRepository sharedRepository(int failures) {
+        Map<Long, Map<String, Long>> hashes = new HashMap<>();
+        AtomicInteger remainingFailures = new AtomicInteger(failures);
+        RedisOrderRepository repository = mock(RedisOrderRepository.class);
+        doAnswer(invocation -> {
+            if (remainingFailures.getAndDecrement() > 0) {
+                throw new IllegalStateException("Redis indisponível");
+            }
+            Map<Long, Map<String, Long>> counts = invocation.getArgument(0);
+            counts.forEach((start, fields) -> fields.forEach((field, delta) ->
+                    hashes.computeIfAbsent(start, key -> new HashMap<>()).merge(field, delta, Long::sum)));
+            return null;
+        }).when(repository).addAnalyticsCounts(anyMap(), any(Duration.class));
+        when(repository.findAnalyticsCounts(anyList())).thenAnswer(invocation -> {
+            List<Long> starts = invocation.getArgument(0);
+            return starts.stream().map(start -> hashes.getOrDefault(start, new HashMap<>())).collect(Collectors.toList());
+        });
+        return repository;
+    }
+
+    private static OrderStatusUpdateResultDTO transition(OrderStatus previous, OrderStatus status, Long millis) {
+        OrderStatusUpdateResultDTO result = new OrderStatusUpdateResultDTO(1, Result.UPDATED, new Order(1, status, null));
+        result.setPreviousStatus(previous);
+        result.setPreviousStatusMillis(millis);
+        return result;
+    }
+}
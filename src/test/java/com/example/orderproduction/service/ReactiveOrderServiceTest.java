@@ -0,0 +1,266 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.dto.OrderStatusDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO;
+import com.example.orderproduction.dto.OrderStatusUpdateResultDTO.Result;
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderPage;
+import com.example.orderproduction.model.OrderStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ReactiveRedisCallback;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.ReactiveZSetOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveOrderServiceTest {
+
+    @Mock
+    private ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private ReactiveZSetOperations<String, Object> zSetOperations;
+
+    private OrderProductionProperties properties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReactiveOrderService orderService;
+
+    private final GenericJackson2JsonRedisSerializer valueSerializer = new GenericJackson2JsonRedisSerializer();
+
+    @BeforeEach
+    public void setUp() {
+
+        properties = new OrderProductionProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        RedisSerializationContext<String, Object> serializationContext = RedisSerializationContext
+                .<String, Object>newSerializationContext(RedisSerializer.string())
+                .value(valueSerializer)
+                .hashKey(RedisSerializer.string())
+                .hashValue(valueSerializer)
+                .build();
+        when(reactiveRedisTemplate.getSerializationContext()).thenReturn(serializationContext);
+        lenient().when(reactiveRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(reactiveRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+
+        orderService = new ReactiveOrderService(reactiveRedisTemplate, reactiveRedisTemplate, properties,
+                new OrderNearCache(properties, meterRegistry), new ProductionAnalytics(properties, meterRegistry), meterRegistry);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUpdateOrderStatus_Success() {
+
+        Order order = new Order(123, OrderStatus.IN_PREPARATION, "Test details");
+        mockStatusScript(Arrays.asList(1L, valueSerializer.serialize(order)));
+
+        StepVerifier.create(orderService.updateOrderStatus(123, OrderStatus.IN_PREPARATION))
+                .expectNext(order)
+                .verifyComplete();
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<String>> args = ArgumentCaptor.forClass(List.class);
+        verify(reactiveRedisTemplate).execute(any(RedisScript.class), keys.capture(), args.capture(),
+                any(RedisElementWriter.class), any(RedisElementReader.class));
+        assertEquals(Arrays.asList("order:123", "order:outbox", "order:status:RECEIVED", "order:status:IN_PREPARATION",
+                "order:status:READY", "order:status:FINISHED", "order:status-since"), keys.getValue());
+        assertEquals(Arrays.asList("IN_PREPARATION", "1800000"), args.getValue().subList(0, 2));
+        assertEquals(Arrays.asList("123", "order:status-changes", "RECEIVED"), args.getValue().subList(3, 6));
+        assertEquals(1, meterRegistry.get("orders.status.updates").tag("outcome", "updated").counter().count());
+    }
+
+    @Test
+    public void testUpdateOrderStatus_OrderNotFound() {
+
+        mockStatusScript(Collections.singletonList(0L));
+
+        StepVerifier.create(orderService.updateOrderStatus(123, OrderStatus.IN_PREPARATION))
+                .expectErrorMessage("Pedido não encontrado com id: 123")
+                .verify();
+    }
+
+    @Test
+    public void testUpdateOrderStatus_InvalidTransition() {
+
+        mockStatusScript(Arrays.asList(3L, valueSerializer.serialize(new Order(123, OrderStatus.READY, "Test details"))));
+
+        StepVerifier.create(orderService.updateOrderStatus(123, OrderStatus.IN_PREPARATION))
+                .expectError(InvalidStatusTransitionException.class)
+                .verify();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUpdateOrderStatus_NullStatus() {
+
+        StepVerifier.create(orderService.updateOrderStatus(123, null))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        verify(reactiveRedisTemplate, never()).execute(any(RedisScript.class), anyList(), anyList(),
+                any(RedisElementWriter.class), any(RedisElementReader.class));
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void testUpdateOrderStatuses_ReportsEachOrderInRequestOrder() {
+
+        when(reactiveRedisTemplate.execute(any(RedisScript.class), anyList(), anyList(),
+                any(RedisElementWriter.class), any(RedisElementReader.class)))
+                .thenReturn((Flux) Flux.just(Arrays.asList(1L, valueSerializer.serialize(new Order(1, OrderStatus.READY, null))))
+                        .delayElements(Duration.ofMillis(50)),
+                        (Flux) Flux.error(new RuntimeException("timeout")),
+                        (Flux) Flux.just(Collections.singletonList(0L)));
+
+        StepVerifier.create(orderService.updateOrderStatuses(Arrays.asList(new OrderStatusDTO(1, OrderStatus.READY),
+                        new OrderStatusDTO(2, OrderStatus.READY), new OrderStatusDTO(3, OrderStatus.READY),
+                        new OrderStatusDTO(4, null))))
+                .assertNext(results -> assertEquals(
+                        Arrays.asList(Result.UPDATED, Result.FAILED, Result.NOT_FOUND, Result.INVALID_TRANSITION),
+                        results.stream().map(OrderStatusUpdateResultDTO::getResult).collect(Collectors.toList())))
+                .verifyComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetOrder_NotFound() {
+
+        when(reactiveRedisTemplate.createMono(any(ReactiveRedisCallback.class))).thenReturn(Mono.empty());
+
+        StepVerifier.create(orderService.getOrder(123)).verifyComplete();
+        assertEquals(1, meterRegistry.get("orders.not.found").tag("operation", "get").counter().count());
+    }
+
+    @Test
+    public void testGetOrdersByStatus_StreamsOnlyOrdersStillInStatus() {
+
+        Order ready = new Order(1, OrderStatus.READY, "Test details");
+        Order moved = new Order(2, OrderStatus.FINISHED, "Test details");
+        long receivedAt = System.currentTimeMillis();
+        when(zSetOperations.rangeByScoreWithScores(eq("order:status:READY"), any(), any())).thenReturn(Flux.just(
+                new DefaultTypedTuple<>(1, (double) receivedAt), new DefaultTypedTuple<>(2, (double) receivedAt),
+                new DefaultTypedTuple<>(3, (double) receivedAt)));
+        when(valueOperations.multiGet(Arrays.asList("order:1", "order:2", "order:3")))
+                .thenReturn(Mono.just(Arrays.asList(ready, moved, null)));
+
+        OrderPage<Flux<Order>> page = orderService.getOrdersByStatus(OrderStatus.READY, null, null).block();
+
+        assertNull(page.getNextCursor());
+        StepVerifier.create(page.getOrders())
+                .expectNext(ready)
+                .verifyComplete();
+    }
+
+    @Test
+    public void testGetOrders_TooManyIds() {
+
+        properties.getRedis().setGetManyMaxSize(2);
+
+        StepVerifier.create(orderService.getOrders(Arrays.asList(1, 2, 3)))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        verifyNoInteractions(valueOperations);
+    }
+
+    @Test
+    public void testGetOrdersByStatus_NextCursorContinuesAfterLastOrder() {
+
+        long receivedAt = System.currentTimeMillis();
+        Flux<ZSetOperations.TypedTuple<Object>> index = Flux.just(
+                new DefaultTypedTuple<>(1, (double) receivedAt), new DefaultTypedTuple<>(2, (double) receivedAt + 1));
+        // A segunda página relê o índice a partir do cursor e encontra o fim no bloco seguinte
+        when(zSetOperations.rangeByScoreWithScores(eq("order:status:READY"), any(), any()))
+                .thenReturn(index, index, Flux.empty());
+        OrderPage<Flux<Order>> first = orderService.getOrdersByStatus(OrderStatus.READY, 1, null).block();
+        assertNotNull(first.getNextCursor());
+
+        when(valueOperations.multiGet(Collections.singletonList("order:2")))
+                .thenReturn(Mono.just(Collections.singletonList(new Order(2, OrderStatus.READY, "Test details"))));
+        OrderPage<Flux<Order>> second = orderService.getOrdersByStatus(OrderStatus.READY, 1, first.getNextCursor()).block();
+
+        assertNull(second.getNextCursor());
+        StepVerifier.create(second.getOrders().map(Order::getOrderId))
+                .expectNext(2)
+                .verifyComplete();
+    }
+
+    @Test
+    public void testGetOrdersByStatus_PartitionedMergesIndexes() {
+
+        properties.getRedis().setPartitions(2);
+        long receivedAt = System.currentTimeMillis();
+        when(zSetOperations.rangeByScoreWithScores(eq("order:status:{0}:READY"), any(), any())).thenReturn(Flux.just(
+                new DefaultTypedTuple<>(2, (double) receivedAt + 1)));
+        when(zSetOperations.rangeByScoreWithScores(eq("order:status:{1}:READY"), any(), any())).thenReturn(Flux.just(
+                new DefaultTypedTuple<>(1, (double) receivedAt), new DefaultTypedTuple<>(3, (double) receivedAt + 2)));
+        when(valueOperations.multiGet(Arrays.asList("order:{1}:1", "order:{0}:2"))).thenReturn(Mono.just(Arrays.asList(
+                new Order(1, OrderStatus.READY, null), new Order(2, OrderStatus.READY, null))));
+
+        OrderPage<Flux<Order>> page = orderService.getOrdersByStatus(OrderStatus.READY, 2, null).block();
+
+        assertNotNull(page.getNextCursor());
+        StepVerifier.create(page.getOrders().map(Order::getOrderId))
+                .expectNext(1, 2)
+                .verifyComplete();
+    }
+
+    @Test
+    public void testGetOrdersByStatus_InvalidCursor() {
+
+        StepVerifier.create(orderService.getOrdersByStatus(OrderStatus.READY, null, "???"))
+                .expectError(InvalidCursorException.class)
+                .verify();
+    }
+
+    @Test
+    public void testGetOrders_ReadsInChunks() {
+
+        properties.getRedis().setReadChunkSize(2);
+        Order order1 = new Order(1, OrderStatus.READY, "Test details");
+        Order order3 = new Order(3, OrderStatus.RECEIVED, "Test details");
+        when(valueOperations.multiGet(Arrays.asList("order:1", "order:2"))).thenReturn(Mono.just(Arrays.asList(order1, null)));
+        when(valueOperations.multiGet(Collections.singletonList("order:3"))).thenReturn(Mono.just(Collections.singletonList(order3)));
+
+        StepVerifier.create(orderService.getOrders(Arrays.asList(1, 2, 3, 1)))
+                .expectNext(order1, order3)
+                .verifyComplete();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void mockStatusScript(List<Object> result) {
+        when(reactiveRedisTemplate.execute(any(RedisScript.class), anyList(), anyList(),
+                any(RedisElementWriter.class), any(RedisElementReader.class)))
+                .thenReturn((Flux) Flux.just(result));
+    }
+}
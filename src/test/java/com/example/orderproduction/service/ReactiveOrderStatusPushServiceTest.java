@@ -0,0 +1,142 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.config.OrderProductionProperties.OverflowPolicy;
+import com.example.orderproduction.model.OrderStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class ReactiveOrderStatusPushServiceTest {
+
+    private OrderProductionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private Sinks.Many<ReactiveSubscription.Message<String, String>> channel;
+    private ReactiveOrderStatusPushService pushService;
+
+    @BeforeEach
+    public void setUp() {
+
+        properties = new OrderProductionProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        channel = Sinks.many().multicast().directBestEffort();
+    }
+
+    @Test
+    public void testSubscribe_DeliversOnlyMatchingChanges() {
+
+        createService();
+
+        StepVerifier.create(pushService.subscribe(OrderStatus.READY, 7))
+                .then(() -> {
+                    publish(7, OrderStatus.IN_PREPARATION);
+                    publish(8, OrderStatus.READY);
+                    publish(7, OrderStatus.READY);
+                })
+                .assertNext(event -> {
+                    assertEquals(OrderStatusPushService.EVENT_NAME, event.event());
+                    assertEquals(7, event.data().getOrderId());
+                    assertEquals(OrderStatus.READY, event.data().getStatus());
+                })
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(0, pushService.subscriberCount());
+    }
+
+    @Test
+    public void testSubscribe_IgnoresInvalidMessages() {
+
+        createService();
+
+        StepVerifier.create(pushService.subscribe(null, null))
+                .then(() -> {
+                    channel.tryEmitNext(new ReactiveSubscription.ChannelMessage<>("order:status-changes", "{invalido"));
+                    publish(1, OrderStatus.RECEIVED);
+                })
+                .assertNext(event -> assertEquals(1, event.data().getOrderId()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void testSubscribe_DisconnectsSlowSubscriber() {
+
+        properties.getPush().setBufferSize(1);
+        properties.getPush().setOverflowPolicy(OverflowPolicy.DISCONNECT);
+        createService();
+
+        StepVerifier.create(pushService.subscribe(null, null), 0)
+                .then(() -> {
+                    publish(1, OrderStatus.RECEIVED);
+                    publish(2, OrderStatus.RECEIVED);
+                    publish(3, OrderStatus.RECEIVED);
+                })
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(1.0, meterRegistry.get("orders.push.dropped").counter().count());
+    }
+
+    @Test
+    public void testSubscribe_DropOldestKeepsLatestChanges() {
+
+        properties.getPush().setBufferSize(1);
+        properties.getPush().setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+        createService();
+
+        StepVerifier.create(pushService.subscribe(null, null), 0)
+                .then(() -> {
+                    publish(1, OrderStatus.RECEIVED);
+                    publish(2, OrderStatus.RECEIVED);
+                    publish(3, OrderStatus.RECEIVED);
+                })
+                .thenRequest(2)
+                .assertNext(event -> assertEquals(1, event.data().getOrderId()))
+                .assertNext(event -> assertEquals(3, event.data().getOrderId()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(1.0, meterRegistry.get("orders.push.dropped").counter().count());
+    }
+
+    @Test
+    public void testSubscribe_SendsHeartbeats() {
+
+        createService(10);
+
+        StepVerifier.create(pushService.subscribe(null, null))
+                .assertNext(event -> {
+                    assertEquals("heartbeat", event.comment());
+                    assertNull(event.data());
+                })
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    private void createService() {
+        createService(60_000);
+    }
+
+    private void createService(long heartbeatInterval) {
+        ReactiveRedisMessageListenerContainer container = Mockito.mock(ReactiveRedisMessageListenerContainer.class);
+        when(container.receive(any(ChannelTopic.class))).thenReturn(channel.asFlux());
+        pushService = new ReactiveOrderStatusPushService(container, properties, new ObjectMapper(), meterRegistry,
+                heartbeatInterval);
+    }
+
+    private void publish(int orderId, OrderStatus status) {
+        channel.tryEmitNext(new ReactiveSubscription.ChannelMessage<>("order:status-changes",
+                "{\"orderId\":" + orderId + ",\"status\":\"" + status + "\"}"));
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.orderproduction.service;
+
+import com.example.orderproduction.config.OrderProductionProperties;
+import com.example.orderproduction.config.RabbitMQConfig;
+import com.example.orderproduction.model.Order;
+import com.example.orderproduction.model.OrderStatus;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.stream.*;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UpdatedOrderOutboxPublisherTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private StreamOperations<String, Object, Object> streamOperations;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private UpdatedOrderOutboxPublisher publisher;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void setUp() {
+
+        lenient().when(stringRedisTemplate.opsForStream()).thenReturn(streamOperations);
+        lenient().when(streamOperations.pending(eq(RedisOrderRepository.OUTBOX_KEY), eq(UpdatedOrderOutboxPublisher.CONSUMER_GROUP),
+                any(Range.class), anyLong())).thenReturn(null);
+
+        publisher = new UpdatedOrderOutboxPublisher(stringRedisTemplate, rabbitTemplate, new OrderProductionProperties(),
+                Optional.empty(), meterRegistry);
+    }
+
+    @Test
+    public void testPublishBatch_AcksConfirmedEvents() {
+
+        MapRecord<String, Object, Object> record1 = record("1-0", 10, OrderStatus.IN_PREPARATION);
+        MapRecord<String, Object, Object> record2 = record("2-0", 11, OrderStatus.READY);
+        mockRead(Collections.emptyList(), Arrays.asList(record1, record2));
+        confirmWith(correlationId -> !correlationId.equals("2-0"));
+
+        int published = publisher.publishBatch(RedisOrderRepository.OUTBOX_KEY);
+
+        assertEquals(1, published);
+        Map<String, Object> updatedOrderMessage = new HashMap<>();
+        updatedOrderMessage.put("orderId", 10);
+        updatedOrderMessage.put("orderStatus", OrderStatus.IN_PREPARATION);
+        verify(rabbitTemplate).convertAndSend(eq(RabbitMQConfig.UPDATED_ORDER_EXCHANGE),
+                eq(RabbitMQConfig.UPDATED_ORDER_ROUTING_KEY), eq(updatedOrderMessage), any(CorrelationData.class));
+        verify(streamOperations).acknowledge(RedisOrderRepository.OUTBOX_KEY, UpdatedOrderOutboxPublisher.CONSUMER_GROUP,
+                RecordId.of("1-0"));
+        verify(streamOperations).delete(RedisOrderRepository.OUTBOX_KEY, RecordId.of("1-0"));
+    }
+
+    @Test
+    public void testPublishBatch_RetriesOwnPendingFirst() {
+
+        MapRecord<String, Object, Object> pending = record("1-0", 10, OrderStatus.READY);
+        mockRead(Collections.singletonList(pending), Collections.emptyList());
+        confirmWith(correlationId -> true);
+
+        int published = publisher.publishBatch(RedisOrderRepository.OUTBOX_KEY);
+
+        assertEquals(1, published);
+        verify(streamOperations, times(1)).read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class));
+    }
+
+    @Test
+    public void testPublishBatch_EmptyOutbox() {
+
+        mockRead(Collections.emptyList(), Collections.emptyList());
+
+        int published = publisher.publishBatch(RedisOrderRepository.OUTBOX_KEY);
+
+        assertEquals(0, published);
+        verifyNoInteractions(rabbitTemplate);
+        verify(streamOperations, never()).acknowledge(anyString(), anyString(), any(RecordId[].class));
+    }
+
+    @Test
+    public void testPublishPending_SwallowsBrokerFailures() {
+
+        mockRead(Collections.emptyList(), Collections.singletonList(record("1-0", 10, OrderStatus.READY)));
+        doThrow(new AmqpConnectException(new RuntimeException("down")))
+                .when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class), any(CorrelationData.class));
+
+        publisher.publishPending();
+
+        verify(streamOperations, never()).acknowledge(anyString(), anyString(), any(RecordId[].class));
+    }
+
+    @Test
+    public void testPublishMemoryBatch_KeepsUnconfirmedEvents() {
+
+        InMemoryOrderRepository repository = new InMemoryOrderRepository(event -> { });
+        repository.insertAll(Arrays.asList(new Order(10, OrderStatus.RECEIVED, null),
+                new Order(11, OrderStatus.RECEIVED, null)), System.currentTimeMillis());
+        repository.updateStatus(10, OrderStatus.IN_PREPARATION);
+        repository.updateStatus(11, OrderStatus.IN_PREPARATION);
+        publisher = new UpdatedOrderOutboxPublisher(stringRedisTemplate, rabbitTemplate, new OrderProductionProperties(),
+                Optional.of(repository), meterRegistry);
+        confirmWith(correlationId -> !correlationId.endsWith("-11"));
+
+        publisher.publishPending();
+
+        List<InMemoryOrderRepository.OutboxEvent> pending = repository.outboxBatch(10);
+        assertEquals(1, pending.size());
+        assertEquals(11, pending.get(0).getOrderId());
+        verify(rabbitTemplate, times(2)).convertAndSend(eq(RabbitMQConfig.UPDATED_ORDER_EXCHANGE),
+                eq(RabbitMQConfig.UPDATED_ORDER_ROUTING_KEY), any(Object.class), any(CorrelationData.class));
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    public void testPublishBatch_RecreatesGroupAfterNoGroup() {
+
+        when(streamOperations.read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class)))
+                .thenThrow(new RedisSystemException("NOGROUP", new RedisCommandExecutionException(
+                        "NOGROUP No such key 'order:outbox' or consumer group in XREADGROUP")))
+                .thenReturn(Collections.emptyList());
+
+        assertThrows(RedisSystemException.class, () -> publisher.publishBatch(RedisOrderRepository.OUTBOX_KEY));
+        assertEquals(0, publisher.publishBatch(RedisOrderRepository.OUTBOX_KEY));
+
+        verify(streamOperations, times(2)).createGroup(eq(RedisOrderRepository.OUTBOX_KEY), any(ReadOffset.class),
+                eq(UpdatedOrderOutboxPublisher.CONSUMER_GROUP));
+    }
+
+    private void mockRead(List<MapRecord<String, Object, Object>> pending, List<MapRecord<String, Object, Object>> fresh) {
+        when(streamOperations.read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class)))
+                .thenAnswer(invocation -> {
+                    StreamOffset<String> offset = invocation.getArgument(2);
+                    return ReadOffset.lastConsumed().equals(offset.getOffset()) ? fresh : pending;
+                });
+    }
+
+    private void confirmWith(Predicate<String> ack) {
+        doAnswer(invocation -> {
+            CorrelationData correlationData = invocation.getArgument(3);
+            correlationData.getFuture().set(new CorrelationData.Confirm(ack.test(correlationData.getId()), "nack"));
+            return null;
+        }).when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class), any(CorrelationData.class));
+    }
+
+    private MapRecord<String, Object, Object> record(String id, int orderId, OrderStatus status) {
+        Map<Object, Object> fields = new HashMap<>();
+        fields.put("orderId", String.valueOf(orderId));
+        fields.put("orderStatus", status.name());
+        return StreamRecords.<String, Object, Object>mapBacked(fields).withStreamKey(RedisOrderRepository.OUTBOX_KEY)
+                .withId(RecordId.of(id));
+    }
+}
@@ -9,3 +9,9 @@ Feature: Atualização de Status do Pedido e Envio para a Fila
   When atualizo o status do pedido para "IN_PREPARATION"
   Then o pedido é enviado para a fila de pedidos atualizados
   And ao consultar o pedido, o status deve ser "IN_PREPARATION"
+
+  Scenario: Atualização que pula uma etapa do pedido
+  Given que recebo um pedido com status "RECEIVED"
+  When atualizo o status do pedido para "READY"
+  Then a atualização é recusada com o código 409
+  And ao consultar o pedido, o status deve ser "RECEIVED"